@@ -0,0 +1,295 @@
+/*
+ * File: AnalysisScheduler.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao;
+
+import javafx.application.Platform;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs the background work of the IDE (highlighting, scanning, parsing,
+ * building the structure and directory views) on one bounded pool of
+ * daemon threads, instead of a new thread and a new executor per request.
+ *
+ * Every task is submitted under a key, such as a tab together with the kind
+ * of analysis.  Submitting a task cancels the task still pending or running
+ * under the same key, since its result would be out of date, and a result is
+ * only delivered if no newer task was submitted under its key in the meantime.
+ * Results are delivered on the result executor, which for the IDE is the
+ * FX thread.
+ *
+ * @author Tia Zhang and Danqing Zhao
+ */
+public class AnalysisScheduler {
+
+    private static AnalysisScheduler shared;
+
+    private final ThreadPoolExecutor executor;
+    private final Executor resultExecutor;
+
+    // the latest task submitted under each key
+    private final Map<Object, Task<?>> latestTasks = new ConcurrentHashMap<>();
+
+    // metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong droppedStale = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Creates a scheduler
+     *
+     * @param numThreads     the number of threads running tasks
+     * @param resultExecutor the executor the results are delivered on
+     */
+    public AnalysisScheduler(int numThreads, Executor resultExecutor) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(numThreads, numThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.resultExecutor = resultExecutor;
+    }
+
+    /**
+     * Returns the scheduler shared by the whole IDE.  It has one thread
+     * per core but one, and delivers results on the FX thread.
+     *
+     * @return the shared scheduler
+     */
+    public static synchronized AnalysisScheduler getShared() {
+        if (shared == null) {
+            int numThreads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+            shared = new AnalysisScheduler(numThreads, Platform::runLater);
+        }
+        return shared;
+    }
+
+    /**
+     * Submits a task, cancelling the task submitted earlier under the same key
+     *
+     * @param key       identifies what the task analyzes, e.g. a tab and the kind of analysis
+     * @param work      the work to run in the background
+     * @param onSuccess receives the result on the result executor, if it is still current
+     * @param onFailure receives the exception thrown by the work on the result executor,
+     *                  if the task is still current
+     * @param <T>       the type of the result
+     */
+    public <T> void submit(Object key, Callable<T> work, Consumer<? super T> onSuccess,
+                           Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<>(key, work, onSuccess, onFailure);
+        this.submitted.incrementAndGet();
+        Task<?> previous = this.latestTasks.put(key, task);
+        if (previous != null) {
+            previous.supersede();
+        }
+        this.executor.execute(task);
+    }
+
+    /**
+     * Cancels the task submitted under a key, if it has not delivered its result yet
+     *
+     * @param key the key of the task
+     */
+    public void cancel(Object key) {
+        Task<?> task = this.latestTasks.remove(key);
+        if (task != null) {
+            task.supersede();
+        }
+    }
+
+    /**
+     * @return the current metrics of the scheduler
+     */
+    public Metrics getMetrics() {
+        return new Metrics(this.executor.getQueue().size(), this.executor.getActiveCount(),
+                this.submitted.get(), this.completed.get(), this.failed.get(), this.finished.get(),
+                this.droppedStale.get(), this.totalLatencyNanos.get(), this.maxLatencyNanos.get());
+    }
+
+    /**
+     * A submitted task.  It is a FutureTask so that cancelling it
+     * interrupts it if it is running, and it is removed from the queue if it is not.
+     */
+    private class Task<T> extends FutureTask<T> {
+        private final Object key;
+        private final Consumer<? super T> onSuccess;
+        private final Consumer<Throwable> onFailure;
+        private final long submitTime = System.nanoTime();
+
+        private Task(Object key, Callable<T> work, Consumer<? super T> onSuccess,
+                     Consumer<Throwable> onFailure) {
+            super(work);
+            this.key = key;
+            this.onSuccess = onSuccess;
+            this.onFailure = onFailure;
+        }
+
+        /**
+         * Cancels the task because a newer one was submitted under its key
+         */
+        private void supersede() {
+            if (this.cancel(true)) {
+                AnalysisScheduler.this.executor.remove(this);
+            }
+        }
+
+        /**
+         * Records the metrics of the finished task and delivers its result
+         */
+        @Override
+        protected void done() {
+            if (this.isCancelled()) {
+                AnalysisScheduler.this.droppedStale.incrementAndGet();
+                return;
+            }
+            long latency = System.nanoTime() - this.submitTime;
+            AnalysisScheduler.this.finished.incrementAndGet();
+            AnalysisScheduler.this.totalLatencyNanos.addAndGet(latency);
+            AnalysisScheduler.this.maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            AnalysisScheduler.this.resultExecutor.execute(this::deliver);
+        }
+
+        /**
+         * Passes the result or the failure on, unless a newer task was submitted under the key
+         */
+        private void deliver() {
+            if (!AnalysisScheduler.this.latestTasks.remove(this.key, this)) {
+                AnalysisScheduler.this.droppedStale.incrementAndGet();
+                return;
+            }
+            T result;
+            try {
+                result = this.get();
+            }
+            catch (ExecutionException e) {
+                AnalysisScheduler.this.failed.incrementAndGet();
+                this.onFailure.accept(e.getCause());
+                return;
+            }
+            catch (InterruptedException e) {
+                // cannot happen, the task is done
+                Thread.currentThread().interrupt();
+                return;
+            }
+            AnalysisScheduler.this.completed.incrementAndGet();
+            this.onSuccess.accept(result);
+        }
+    }
+
+    /**
+     * A snapshot of the metrics of a scheduler
+     */
+    public static class Metrics {
+        private final int queueDepth;
+        private final int running;
+        private final long submitted;
+        private final long completed;
+        private final long failed;
+        private final long finished;
+        private final long droppedStale;
+        private final long totalLatencyNanos;
+        private final long maxLatencyNanos;
+
+        private Metrics(int queueDepth, int running, long submitted, long completed, long failed,
+                        long finished, long droppedStale, long totalLatencyNanos, long maxLatencyNanos) {
+            this.queueDepth = queueDepth;
+            this.running = running;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.finished = finished;
+            this.droppedStale = droppedStale;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+        }
+
+        /**
+         * @return the number of tasks waiting for a thread
+         */
+        public int getQueueDepth() {
+            return this.queueDepth;
+        }
+
+        /**
+         * @return the number of tasks running
+         */
+        public int getRunning() {
+            return this.running;
+        }
+
+        /**
+         * @return the number of tasks submitted
+         */
+        public long getSubmitted() {
+            return this.submitted;
+        }
+
+        /**
+         * @return the number of tasks whose results were delivered
+         */
+        public long getCompleted() {
+            return this.completed;
+        }
+
+        /**
+         * @return the number of tasks whose failures were delivered
+         */
+        public long getFailed() {
+            return this.failed;
+        }
+
+        /**
+         * @return the number of tasks cancelled or whose results were dropped
+         * because a newer task was submitted under the same key
+         */
+        public long getDroppedStale() {
+            return this.droppedStale;
+        }
+
+        /**
+         * @return the mean time in milliseconds from submitting a task to its end,
+         * over the tasks that ran to the end
+         */
+        public double getMeanLatencyMillis() {
+            return this.finished == 0 ? 0 : this.totalLatencyNanos / 1e6 / this.finished;
+        }
+
+        /**
+         * @return the longest time in milliseconds from submitting a task to its end
+         */
+        public double getMaxLatencyMillis() {
+            return this.maxLatencyNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("queued: %d, running: %d, submitted: %d, completed: %d, failed: %d, " +
+                            "dropped as stale: %d, mean latency: %.1f ms, max latency: %.1f ms",
+                    this.queueDepth, this.running, this.submitted, this.completed, this.failed,
+                    this.droppedStale, this.getMeanLatencyMillis(), this.getMaxLatencyMillis());
+        }
+    }
+}
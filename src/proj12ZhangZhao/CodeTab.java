@@ -11,6 +11,7 @@ import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Tab;
 import org.fxmisc.flowless.VirtualizedScrollPane;
 import org.fxmisc.richtext.LineNumberFactory;
+import proj12ZhangZhao.proj12.AnalysisSession;
 
 /**
  * This class subclasses Tab to contain a CodeArea
@@ -24,6 +25,9 @@ public class CodeTab extends Tab{
     private MasterController masterController;
     private CodeAreaContextMenu codeAreaContextMenu;
     private CodeTabPane codeTabPane;
+    // the semantic analysis of the tab's file, kept between checks so that only
+    // the classes that changed are checked again; it is dropped with the tab
+    private AnalysisSession analysisSession = new AnalysisSession();
 
     /**
      * Constructor for the codeTab
@@ -46,6 +50,14 @@ public class CodeTab extends Tab{
         this.setContextMenu(tabContextMenu);
     }
 
+    /**
+     * Returns the semantic analysis of the tab's file
+     * @return the analysis session of this tab
+     */
+    public AnalysisSession getAnalysisSession(){
+        return this.analysisSession;
+    }
+
     /**
      * Creates a code area, adds it to a VirtualizedScrollPane, and then adds the scroll pane to the tab object.
      * @param content content to add to the code area if opening a file
@@ -59,6 +71,10 @@ public class CodeTab extends Tab{
         codeArea.setOnContextMenuRequested(event->this.codeAreaContextMenu.bindCutCopyMenuItems(codeArea));
         codeArea.setParagraphGraphicFactory(LineNumberFactory.get(codeArea));
         codeArea.getStyleClass().add("code-area");
+        // highlight Bantam files as Bantam, following the tab if it is renamed
+        codeArea.setBantamSyntax(this.getText().endsWith(".btm"));
+        this.textProperty().addListener((observable, oldName, newName) ->
+                codeArea.setBantamSyntax(newName.endsWith(".btm")));
 
         VirtualizedScrollPane scrollPane = new VirtualizedScrollPane<>(codeArea,
                 ScrollPane.ScrollBarPolicy.ALWAYS,
@@ -7,20 +7,37 @@
  * Edited By: Zeb Keith-Hardy, Michael Li, Iris Lian, Kevin Zhou
  * Project 6/7/9
  * Date: October 26, 2018/ November 3, 2018/ November 20, 2018
+ * ---------------------------
+ * Edited By: Tia Zhang and Danqing Zhao
+ * Class: CS 461
+ * Date: March 2019
  */
 
 package proj12ZhangZhao;
 
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import org.fxmisc.richtext.StyleClassedTextArea;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * This class is used to support console functionality.
  * It can be used to write new lines of text to the console.
  * It can also be used to check whether user input been given,
  * and what the command string was.
  *
+ * Text written to the console from any thread is queued and appended once
+ * per frame, all the text queued since the last frame in one edit, and the
+ * oldest lines are dropped once the console holds more than a maximum number
+ * of characters, so a flood of output does not stall the FX thread.
+ *
  * @author  Zeb Keith-Hardy, Michael Li, Iris Lian, Kevin Zhou
  * @author  Zena Abulhab, Paige Hanssen, Kyle Slager Kevin Zhou
  * @version 1.0
@@ -29,11 +46,42 @@ import org.fxmisc.richtext.StyleClassedTextArea;
  */
 public class Console extends StyleClassedTextArea {
 
+    /**
+     * The number of characters kept if no other maximum is set
+     */
+    public static final int DEFAULT_MAX_LENGTH = 200000;
+
+    /**
+     * A piece of text waiting to be written, with its style class
+     */
+    private static class Chunk {
+        private final String text;
+        private final String styleClass;
+
+        private Chunk(String text, String styleClass) {
+            this.text = text;
+            this.styleClass = styleClass;
+        }
+    }
+
     private boolean receivedCommand;
     private String command;
     private ToolbarController toolbarController;
     //The index of the first character of the command in the console text string
     private int commandStartIndex;
+    //The text written but not yet appended, added to by any thread
+    private final Queue<Chunk> pendingChunks = new ConcurrentLinkedQueue<>();
+    //Whether the flush timer is running or about to be started
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    //Appends the pending text once per frame while there is any
+    private final AnimationTimer flushTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            Console.this.flushPending();
+        }
+    };
+    //The maximum number of characters kept in the console
+    private volatile int maxLength = DEFAULT_MAX_LENGTH;
 
     /**
      *  This is the constructor, setting up the console
@@ -56,30 +104,154 @@ public class Console extends StyleClassedTextArea {
     /**
      * Adds a new, separate line of text to this console.
      * Used in ToolbarController when printing to the console.
+     * Can be called from any thread; the text appears at the next frame,
+     * after all the text written before it.
      * @param newString the string to add to the console
+     * @param type "Output", "Error", or anything else for process information
      */
     public void writeToConsole(String newString, String type) {
-
-        int fromIndex = this.getText().length();
-        this.appendText(newString);
-
         //Style the texts differently base on their source provided
-        int toIndex = this.getText().length();
+        String styleClass;
         switch (type) {
             case ("Output"):
-                this.setStyleClass(fromIndex, toIndex, "output");
+                styleClass = "output";
                 break;
             case("Error"):
-                this.setStyleClass(fromIndex, toIndex, "error");
+                styleClass = "error";
                 break;
             default:
-                this.setStyleClass(fromIndex, toIndex, "processInfo");
+                styleClass = "processInfo";
+        }
+        this.pendingChunks.add(new Chunk(newString, styleClass));
+
+        //Start the flush timer unless it is running already
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            if (Platform.isFxApplicationThread()) {
+                this.flushTimer.start();
+            }
+            else {
+                Platform.runLater(this.flushTimer::start);
+            }
+        }
+    }
+
+    /**
+     * Sets how many characters the console keeps.  When it holds more,
+     * the oldest lines are dropped down to three quarters of the maximum.
+     * @param maxLength the maximum number of characters
+     */
+    public void setMaxLength(int maxLength) {
+        if (maxLength <= 0) {
+            throw new IllegalArgumentException("maxLength must be positive");
         }
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the maximum number of characters the console keeps
+     */
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+    /**
+     * Appends all the pending text in one edit, styles it, trims the oldest
+     * lines if the console is too long, and stops the timer once nothing is
+     * pending.  Runs on the FX thread once per frame.
+     */
+    private void flushPending() {
+        StringBuilder text = new StringBuilder();
+        //The style class of each run of text, with the index where the run ends
+        List<String> runClasses = new ArrayList<>();
+        List<Integer> runEnds = new ArrayList<>();
+        for (Chunk chunk = this.pendingChunks.poll(); chunk != null; chunk = this.pendingChunks.poll()) {
+            text.append(chunk.text);
+            int last = runClasses.size() - 1;
+            if (last >= 0 && runClasses.get(last).equals(chunk.styleClass)) {
+                runEnds.set(last, text.length());
+            }
+            else {
+                runClasses.add(chunk.styleClass);
+                runEnds.add(text.length());
+            }
+        }
+
+        if (text.length() == 0) {
+            this.stopFlushing();
+            return;
+        }
+
+        //Text that would be trimmed right away is not appended at all
+        int skip = Math.max(0, text.length() - this.maxLength);
+        if (skip > 0) {
+            int newline = text.indexOf("\n", skip - 1);
+            if (newline >= 0 && newline < text.length() - this.maxLength / 2) {
+                skip = newline + 1;
+            }
+        }
+        int fromIndex = this.getLength();
+        this.appendText(skip == 0 ? text.toString() : text.substring(skip));
+        int runStart = 0;
+        for (int i = 0; i < runClasses.size(); i++) {
+            int runEnd = runEnds.get(i);
+            if (runEnd > skip) {
+                this.setStyleClass(fromIndex + Math.max(runStart, skip) - skip,
+                        fromIndex + runEnd - skip, runClasses.get(i));
+            }
+            runStart = runEnd;
+        }
+        this.trim();
 
         this.moveCaretToEnd();
+        int toIndex = this.getLength();
         this.setStyleClass(toIndex, toIndex, "default");
     }
 
+    /**
+     * Stops the flush timer, unless text was written after the queue was found empty
+     */
+    private void stopFlushing() {
+        this.flushTimer.stop();
+        this.flushScheduled.set(false);
+        if (!this.pendingChunks.isEmpty() && this.flushScheduled.compareAndSet(false, true)) {
+            this.flushTimer.start();
+        }
+    }
+
+    /**
+     * Clears the console, including the text written but not yet appended,
+     * and forgets the start of the current command.  Called on the FX thread.
+     */
+    @Override
+    public void clear() {
+        this.pendingChunks.clear();
+        this.stopFlushing();
+        super.clear();
+        this.commandStartIndex = -1;
+        this.command = "";
+    }
+
+    /**
+     * Drops the oldest lines once the console holds more than the maximum
+     * number of characters, so that it holds about three quarters of it
+     */
+    private void trim() {
+        int length = this.getLength();
+        if (length <= this.maxLength) {
+            return;
+        }
+        int end = length - this.maxLength * 3 / 4;
+        //Drop whole lines when the line ends before half the maximum is left
+        int newline = this.getText(end - 1, length - this.maxLength / 2).indexOf('\n');
+        if (newline >= 0) {
+            end += newline;
+        }
+        this.deleteText(0, end);
+        if (this.commandStartIndex != -1) {
+            this.commandStartIndex = Math.max(0, this.commandStartIndex - end);
+        }
+    }
+
     /**
      * Consume all keyTyped event if it is before the commandstartindex
      * @param e the keyEvent
@@ -150,7 +322,7 @@ public class Console extends StyleClassedTextArea {
      * Moves the caret to the end of the text and movee the scroll bar to the caret position
      */
     private void moveCaretToEnd(){
-        int length = this.getText().length();
+        int length = this.getLength();
         this.moveTo(length);
         this.requestFollowCaret();
     }
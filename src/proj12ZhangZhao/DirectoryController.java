@@ -16,7 +16,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
 
-import javafx.application.Platform;
 import javafx.scene.control.*;
 
 /**
@@ -33,15 +32,22 @@ public class DirectoryController {
     private Map<TreeItem<String>, File> treeItemFileMap;
     private TabPane tabPane;
     private TreeItem<String> directoryTreeRoot;
+    private AnalysisScheduler analysisScheduler;
+
+    // the key the directory tree requests are scheduled under
+    private static final String DIRECTORY_TREE_KEY = "directory tree";
 
     /**
      * This is the constructor of DirectoryController.
      * @param directoryTree the directory tree with file structures
      * @param tabPane the tab pane
      * @param tabFileMap  the HashMap mapping the tabs and the associated files
+     * @param analysisScheduler builds the directory tree in the background
      */
-    public DirectoryController(TreeView<String> directoryTree, TabPane tabPane, Map<Tab, File> tabFileMap){
+    public DirectoryController(TreeView<String> directoryTree, TabPane tabPane, Map<Tab, File> tabFileMap,
+                               AnalysisScheduler analysisScheduler){
         this.directoryTree = directoryTree;
+        this.analysisScheduler = analysisScheduler;
         this.tabFileMap = tabFileMap;
         this.treeItemFileMap = new HashMap<>();
         this.tabPane = tabPane;
@@ -51,24 +57,31 @@ public class DirectoryController {
     }
 
     /**
-     * Returns the directory tree for the given file
+     * Returns the directory tree for the given file.  It stops when the thread
+     * is interrupted, as a newer tree replaces this one.
      *
      * @param file the file
+     * @param treeItemFileMap the map the file of each created TreeItem is put in
      * @return the root TreeItem of the tree
+     * @throws InterruptedException if the thread is interrupted
      */
-    private TreeItem<String> getNode(File file) {
+    private TreeItem<String> getNode(File file, Map<TreeItem<String>, File> treeItemFileMap)
+            throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
         // create root, which is returned at the end
         TreeItem<String> root = new TreeItem<>(file.getName());
-        this.treeItemFileMap.put(root, file);
+        treeItemFileMap.put(root, file);
 
         for (File f : file.listFiles()) {
             if (f.isDirectory()) {
                 // recursively traverse file directory
-                root.getChildren().add(getNode(f));
+                root.getChildren().add(getNode(f, treeItemFileMap));
             } else {
                 TreeItem<String> leaf = new TreeItem<>(f.getName());
                 root.getChildren().add(leaf);
-                this.treeItemFileMap.put(leaf, f);
+                treeItemFileMap.put(leaf, f);
             }
         }
         return root;
@@ -78,24 +91,21 @@ public class DirectoryController {
      * Adds the directory tree for the current file to the GUI
      */
     public void createDirectoryTree() {
-        new Thread(()->{
-            createDirectoryTreeTask createDirectoryTreeTask=new createDirectoryTreeTask(this.tabFileMap,
-                    this.tabPane, this);
-            FutureTask<TreeItem<String>> curFutureTask = new FutureTask<>(createDirectoryTreeTask);
-            ExecutorService curExecutor = Executors.newFixedThreadPool(1);
-            curExecutor.execute(curFutureTask);
-            try{
-                this.directoryTreeRoot = curFutureTask.get();
-                curExecutor.shutdown();
-            }catch (InterruptedException|ExecutionException e){
-                Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setContentText("Failed to create directory tree.");
-                alert.showAndWait();
-            }
-            Platform.runLater(()->{
-                this.directoryTree.setRoot(this.directoryTreeRoot);
-            });
-        }).start();
+        createDirectoryTreeTask createDirectoryTreeTask=new createDirectoryTreeTask(this.tabFileMap,
+                this.tabPane, this);
+        // there is one directory tree for all the tabs, so a newer request replaces any other
+        this.analysisScheduler.submit(DIRECTORY_TREE_KEY, createDirectoryTreeTask,
+                root -> {
+                    // the map is only replaced here, on the FX thread, together with the tree
+                    this.treeItemFileMap = createDirectoryTreeTask.treeItemFileMap;
+                    this.directoryTreeRoot = root;
+                    this.directoryTree.setRoot(this.directoryTreeRoot);
+                },
+                error -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setContentText("Failed to create directory tree.");
+                    alert.showAndWait();
+                });
     }
 
     /**
@@ -113,6 +123,9 @@ public class DirectoryController {
         private Map<Tab, File> tabFileMap;
         private TabPane tabPane;
         private DirectoryController directoryController;
+        private File file;
+        // the file of each TreeItem of the tree built by this task
+        private Map<TreeItem<String>, File> treeItemFileMap = new HashMap<>();
 
         /**
          * Constructor
@@ -125,19 +138,20 @@ public class DirectoryController {
             this.tabFileMap=tabFileMap;
             this.tabPane=tabPane;
             this.directoryController=directoryController;
-
+            // find the file of the selected tab here, on the FX thread
+            this.file = this.tabFileMap.get(this.tabPane.getSelectionModel().getSelectedItem());
         }
 
         /**
          * create the directory tree root and return it
          * @return the created tree root
+         * @throws InterruptedException if the task is cancelled by a newer one
          */
         @Override
-        public TreeItem<String> call(){
-            File file = this.tabFileMap.get(this.tabPane.getSelectionModel().getSelectedItem());
+        public TreeItem<String> call() throws InterruptedException {
             // create the directory tree
-            if (file != null) {
-                return this.directoryController.getNode(file.getParentFile());
+            if (this.file != null) {
+                return this.directoryController.getNode(this.file.getParentFile(), this.treeItemFileMap);
             }
             else return null;
         }
@@ -133,7 +133,7 @@ public class EditController {
 
         curCodeArea.replaceSelection(modified);
         //restyle Code Area
-        curCodeArea.setStyleSpans(0, JavaStyle.computeHighlighting(curCodeArea.getText()));
+        this.restyle(curCodeArea);
     }
 
     /**
@@ -289,6 +289,17 @@ public class EditController {
         this.showAlert("MATCHING CLOSING CHARACTER NOT FOUND");
     }
 
+    /**
+     * restyles a code area at once, without waiting for the user to stop typing
+     *
+     * @param codeArea the code area to restyle
+     */
+    private void restyle(CodeArea codeArea) {
+        if (codeArea instanceof JavaCodeArea) {
+            ((JavaCodeArea) codeArea).highlight();
+        }
+    }
+
     /**
      * creates and displays an informational alert
      *
@@ -401,7 +412,7 @@ public class EditController {
         codeArea.replaceText(newContent);
 
         //restyle Code Area
-        codeArea.setStyleSpans(0, JavaStyle.computeHighlighting(codeArea.getText()));
+        this.restyle(codeArea);
         codeArea.moveTo(beforeComment.length() + currentLine.length());
     }
 
@@ -560,7 +571,7 @@ public class EditController {
         }
 
         //restyle Code Area
-        codeArea.setStyleSpans(0, JavaStyle.computeHighlighting(codeArea.getText()));
+        this.restyle(codeArea);
     }
 
     /**
@@ -11,16 +11,20 @@
 
 package proj12ZhangZhao;
 
+import javafx.application.Platform;
 import org.fxmisc.richtext.CodeArea;
+import org.fxmisc.richtext.model.StyleSpan;
 import org.fxmisc.richtext.model.StyleSpans;
 import org.fxmisc.richtext.model.StyleSpansBuilder;
 import org.reactfx.Subscription;
+import proj12ZhangZhao.bantam.lexer.IncrementalScanner;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 /**
  * This class is the controller for all of the toolbar functionality.
@@ -34,6 +38,35 @@ import java.util.regex.Pattern;
  */
 public class JavaCodeArea extends CodeArea{
 
+    // the style class collection of each highlighting style, and of unstyled text
+    private static final List<Collection<String>> STYLES = new ArrayList<>();
+    private static final Collection<String> NO_STYLE = Collections.emptyList();
+    static {
+        for (String styleClass : SyntaxHighlighter.STYLE_CLASSES) {
+            STYLES.add(Collections.singleton(styleClass));
+        }
+    }
+
+    // the Bantam tokens of the text, kept up to date as the text is edited
+    private final IncrementalScanner incrementalScanner = new IncrementalScanner();
+
+    // whether the text is highlighted as Bantam instead of Java
+    private boolean bantam = false;
+
+    // counts the edits of the text, so highlighting of an older text is dropped
+    private int textVersion = 0;
+
+    // the paragraphs around the viewport that are styled at once, and the number of
+    // paragraphs styled by each background chunk
+    private static final int VIEWPORT_MARGIN = 50;
+    private static final int CHUNK_SIZE = 500;
+
+    // the computed style runs of each paragraph of the current text, or null if the text
+    // was edited since, and which paragraphs have been styled from them
+    private int[][] styleCache;
+    private boolean[] styled;
+    private int nextChunk;
+
     /**
      * This is the constructor of JavaCodeArea
      */
@@ -61,91 +94,193 @@ public class JavaCodeArea extends CodeArea{
                 .successionEnds(Duration.ofMillis(500))
 
                 // run the following code block when previous stream emits an event
-                .subscribe(ignore -> this.setStyleSpans(0, JavaStyle.computeHighlighting(this.getText())));
+                .subscribe(ignore -> this.highlight());
+
+        // re-lex only the edited region of the text after every change
+        this.plainTextChanges().subscribe(change -> {
+            this.textVersion++;
+            this.styleCache = null;
+            this.incrementalScanner.replace(
+                    change.getPosition(), change.getRemoved().length(), change.getInserted());
+        });
+
+        // style the paragraphs scrolled into view before the background chunks reach them
+        this.viewportDirtyEvents().subscribe(ignore -> this.styleVisibleParagraphs());
+    }
+
+    /**
+     * Sets whether the text is highlighted as Bantam or as Java, and restyles it
+     *
+     * @param bantam true for Bantam source code
+     */
+    public void setBantamSyntax(boolean bantam) {
+        if (this.bantam != bantam) {
+            this.bantam = bantam;
+            this.highlight();
+        }
     }
-}
 
     /**
-     * source:  https://moodle.colby.edu/pluginfile.php/294745/mod_resource/content/0/JavaKeywordsDemo.java
-     * @author  Matt Jones, Kevin Zhou, Kevin Ahn, Jackie Hang
-     * @author  Zena Abulhab, Paige Hanssen, Kyle Slager Kevin Zhou
-     * @version 3.0
-     * @since   09-30-2018
+     * Restyles the text.  The styles are computed on a background thread
+     * and then only the paragraphs whose styles changed are restyled,
+     * starting with the visible ones.
+     * If the text is edited in the meantime, the result is dropped, since
+     * another highlighting follows the edit.
      */
-    class JavaStyle {
-
-        // a list of strings that contain the keywords for the IDE to identify.
-        private static final String[] KEYWORDS = new String[]{
-                "abstract", "assert", "boolean", "break", "byte",
-                "case", "catch", "char", "class", "const",
-                "continue", "default", "do", "double", "else",
-                "enum", "extends", "final", "finally", "float",
-                "for", "goto", "if", "implements", "import",
-                "instanceof", "int", "interface", "long", "native",
-                "new", "package", "private", "protected", "public",
-                "return", "short", "static", "strictfp", "super",
-                "switch", "synchronized", "this", "throw", "throws",
-                "transient", "try", "void", "volatile", "while", "var"
-        };
-
-        // the regex rules for the ide
-        private static final String IDENTIFIER_PATTERN = "[a-zA-Z]+[a-zA-Z0-9_]*";
-        private static final String FLOAT_PATTERN = "(\\d+\\.\\d+)";
-        private static final String INTCONST_PATTERN = "\\d+";
-        private static final String KEYWORD_PATTERN = "\\b(" + String.join("|", KEYWORDS) + ")\\b";
-        private static final String PAREN_PATTERN = "\\(|\\)";
-        private static final String BRACE_PATTERN = "\\{|\\}";
-        private static final String BRACKET_PATTERN = "\\[|\\]";
-        private static final String SEMICOLON_PATTERN = "\\;";
-        private static final String STRING_PATTERN = "\"([^\"\\\\]|\\\\.)*\"";
-        private static final String CHAR_PATTERN = "\"([^\'\\\\]|\\\\.)*\'";
-        private static final String COMMENT_PATTERN = "//[^\n]*" + "|" + "/\\*(.|\\R)*?\\*/";
-
-        private static final Pattern PATTERN = Pattern.compile(
-                "(?<KEYWORD>" + KEYWORD_PATTERN + ")"
-                        + "|(?<PAREN>" + PAREN_PATTERN + ")"
-                        + "|(?<BRACE>" + BRACE_PATTERN + ")"
-                        + "|(?<BRACKET>" + BRACKET_PATTERN + ")"
-                        + "|(?<SEMICOLON>" + SEMICOLON_PATTERN + ")"
-                        + "|(?<STRING>" + STRING_PATTERN + ")"
-                        + "|(?<COMMENT>" + COMMENT_PATTERN + ")"
-                        + "|(?<FLOAT>" + FLOAT_PATTERN + ")"
-                        + "|(?<INTCONST>" + INTCONST_PATTERN + ")"
-                        + "|(?<IDENTIFIER>" + IDENTIFIER_PATTERN + ")"
-                        + "|(?<CHARACTER>" + CHAR_PATTERN + ")"
-
-        );
-
-        /**
-         * Method to highlight all of the regex rules and keywords.
-         * Code obtained from the RichTextFX Demo from GitHub.
-         *
-         * @param text a string analyzed for proper syntax highlighting
-         */
-        public static StyleSpans<Collection<String>> computeHighlighting(String text) {
-            Matcher matcher = PATTERN.matcher(text);
-            int lastKwEnd = 0;
-            StyleSpansBuilder<Collection<String>> spansBuilder
-                    = new StyleSpansBuilder<>();
-            while (matcher.find()) {
-                String styleClass = matcher.group("KEYWORD") != null ? "keyword" :
-                        matcher.group("PAREN") != null ? "paren" :
-                                matcher.group("BRACE") != null ? "brace" :
-                                        matcher.group("BRACKET") != null ? "bracket" :
-                                                matcher.group("SEMICOLON") != null ? "semicolon" :
-                                                        matcher.group("STRING") != null ? "string" :
-                                                                matcher.group("COMMENT") != null ? "comment" :
-                                                                        matcher.group("IDENTIFIER") != null ? "identifier" :
-                                                                                matcher.group("INTCONST") != null ? "intconst" :
-                                                                                        matcher.group("CHARACTER") != null ? "char" :
-                                                                                        null; /* never happens */
-                assert styleClass != null;
-                spansBuilder.add(Collections.emptyList(), matcher.start() - lastKwEnd);
-                spansBuilder.add(Collections.singleton(styleClass), matcher.end() - matcher.start());
-                lastKwEnd = matcher.end();
+    public void highlight() {
+        String text = this.getText();
+        IncrementalScanner tokens = this.bantam ? this.incrementalScanner.copy() : null;
+        int version = this.textVersion;
+        AnalysisScheduler.getShared().submit(Arrays.asList(this, "highlight"),
+                () -> tokens != null ? SyntaxHighlighter.highlightBantam(text, tokens)
+                        : SyntaxHighlighter.highlightJava(text),
+                paragraphs -> {
+                    if (version == this.textVersion) {
+                        this.applyHighlighting(paragraphs);
+                    }
+                },
+                // leave the text styled as it is
+                error -> { });
+    }
+
+    /**
+     * Caches the computed styles, restyles the visible paragraphs at once and
+     * leaves the others to background chunks
+     *
+     * @param paragraphs the style runs of each paragraph
+     */
+    private void applyHighlighting(int[][] paragraphs) {
+        this.styleCache = paragraphs;
+        this.styled = new boolean[paragraphs.length];
+        this.nextChunk = 0;
+        this.styleVisibleParagraphs();
+        this.styleNextChunk(paragraphs);
+    }
+
+    /**
+     * Restyles the visible paragraphs, and a margin around them, from the cache
+     */
+    private void styleVisibleParagraphs() {
+        int numVisible = this.getVisibleParagraphs().size();
+        if (this.styleCache == null || numVisible == 0) {
+            return;
+        }
+        int first = Math.max(0, this.visibleParToAllParIndex(0) - VIEWPORT_MARGIN);
+        int last = Math.min(this.styleCache.length - 1,
+                this.visibleParToAllParIndex(numVisible - 1) + VIEWPORT_MARGIN);
+        for (int i = first; i <= last; i++) {
+            this.styleParagraph(i);
+        }
+    }
+
+    /**
+     * Restyles the next chunk of paragraphs from the cache in a later pulse
+     * of the FX thread, and so on until all of them are styled, so that
+     * the editor keeps responding in between.  The chunks stop when the text is edited.
+     *
+     * @param cache the cache the chunks style from
+     */
+    private void styleNextChunk(int[][] cache) {
+        Platform.runLater(() -> {
+            if (this.styleCache != cache) {
+                return;
+            }
+            int end = Math.min(cache.length, this.nextChunk + CHUNK_SIZE);
+            for (int i = this.nextChunk; i < end; i++) {
+                this.styleParagraph(i);
             }
-            spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
-            return spansBuilder.create();
+            this.nextChunk = end;
+            if (end < cache.length) {
+                this.styleNextChunk(cache);
+            }
+        });
+    }
+
+    /**
+     * Restyles one paragraph from the cache, unless it is already styled that way
+     *
+     * @param paragraph the index of the paragraph
+     */
+    private void styleParagraph(int paragraph) {
+        if (this.styled[paragraph]) {
+            return;
         }
-}
+        this.styled[paragraph] = true;
+        int[] runs = this.styleCache[paragraph];
+        if (runs.length > 0 && !hasStyles(this.getStyleSpans(paragraph), runs)) {
+            this.setStyleSpans(paragraph, 0, toStyleSpans(runs));
+        }
+    }
+
+    /**
+     * @param spans the current styles of a paragraph
+     * @param runs  the computed style runs of the paragraph
+     * @return true if the paragraph is already styled by the runs
+     */
+    private static boolean hasStyles(StyleSpans<Collection<String>> spans, int[] runs) {
+        int run = 0;
+        int left = runs[0];
+        for (StyleSpan<Collection<String>> span : spans) {
+            int length = span.getLength();
+            int style = styleOf(span.getStyle());
+            while (length > 0) {
+                if (left == 0) {
+                    run += 2;
+                    if (run >= runs.length) {
+                        return false;
+                    }
+                    left = runs[run];
+                }
+                if (runs[run + 1] != style) {
+                    return false;
+                }
+                int n = Math.min(left, length);
+                left -= n;
+                length -= n;
+            }
+        }
+        return left == 0 && run + 2 >= runs.length;
+    }
+
+    /**
+     * @return the style of a style class collection, NONE if it is empty, or
+     * -2 if it is not a single highlighting style class
+     */
+    private static int styleOf(Collection<String> styleClasses) {
+        if (styleClasses.isEmpty()) {
+            return SyntaxHighlighter.NONE;
+        }
+        if (styleClasses.size() == 1) {
+            String styleClass = styleClasses.iterator().next();
+            for (int i = 0; i < SyntaxHighlighter.STYLE_CLASSES.length; i++) {
+                if (SyntaxHighlighter.STYLE_CLASSES[i].equals(styleClass)) {
+                    return i;
+                }
+            }
+        }
+        return -2;
+    }
 
+    /**
+     * @return the style spans of the style runs of a paragraph
+     */
+    private static StyleSpans<Collection<String>> toStyleSpans(int[] runs) {
+        StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+        for (int i = 0; i < runs.length; i += 2) {
+            int style = runs[i + 1];
+            spansBuilder.add(style == SyntaxHighlighter.NONE ? NO_STYLE
+                    : STYLES.get(style), runs[i]);
+        }
+        return spansBuilder.create();
+    }
+
+    /**
+     * Returns the incremental scanner holding the tokens of the current text.
+     * It is updated on the FX thread, so other threads should scan a copy of it.
+     *
+     * @return the incremental scanner of this code area
+     */
+    public IncrementalScanner getIncrementalScanner() {
+        return this.incrementalScanner;
+    }
+}
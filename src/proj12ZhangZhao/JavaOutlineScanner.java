@@ -0,0 +1,884 @@
+/*
+ * File: JavaOutlineScanner.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the classes, fields and methods of a Java file, with the line of each
+ * declaration, without parsing the whole file.  The file is split into tokens,
+ * and only the shapes of declarations are recognized: the code inside method
+ * bodies and initializers is skipped by matching brackets, looking only for
+ * local classes and anonymous class bodies.
+ *
+ * The outline holds what the structure view shows when it walks the ANTLR
+ * parse tree: normal classes, with the fields and methods declared in their
+ * bodies, including those of the interfaces, enums and anonymous classes
+ * nested in them.  Interfaces and enums themselves, constructors and interface
+ * constants are not part of it.
+ *
+ * When the scanner meets something it does not recognize, such as an
+ * annotation type, a unicode escape or unbalanced brackets, it gives up and
+ * the file should be parsed instead.
+ *
+ * @author Tia Zhang and Danqing Zhao
+ */
+public class JavaOutlineScanner {
+
+    /**
+     * The kinds of declarations in an outline
+     */
+    public enum Kind { CLASS, FIELD, METHOD }
+
+    // the token kinds; a punctuation character is its own kind
+    private static final int EOF = -1;
+    private static final int IDENTIFIER = 1000;
+    private static final int OTHER = 1001;  // literals, and keywords with no role here
+    private static final int CLASS = 1002;
+    private static final int INTERFACE = 1003;
+    private static final int ENUM = 1004;
+    private static final int NEW = 1005;
+    private static final int PACKAGE = 1006;
+    private static final int IMPORT = 1007;
+    private static final int THROWS = 1008;
+    private static final int PRIMITIVE = 1009;  // the primitive types and void
+    private static final int MODIFIER = 1010;
+
+    // The keywords, hashed on their first two chars, last char and length into a table
+    // with linear probing, so an identifier is looked up without creating its spelling
+    private static final int HASH_TABLE_SIZE = 256;
+    private static final char[][] hashedWords = new char[HASH_TABLE_SIZE][];
+    private static final int[] hashedKinds = new int[HASH_TABLE_SIZE];
+    static {
+        for (String keyword : new String[] { "assert", "break", "case", "catch", "const", "continue",
+                "do", "else", "extends", "false", "finally", "for", "goto", "if", "implements",
+                "instanceof", "null", "return", "super", "switch", "this", "throw", "true", "try",
+                "while" }) {
+            addKeyword(keyword, OTHER);
+        }
+        for (String primitive : new String[] { "boolean", "byte", "char", "double", "float",
+                "int", "long", "short", "void" }) {
+            addKeyword(primitive, PRIMITIVE);
+        }
+        for (String modifier : new String[] { "abstract", "default", "final", "native", "private",
+                "protected", "public", "static", "strictfp", "synchronized", "transient",
+                "volatile" }) {
+            addKeyword(modifier, MODIFIER);
+        }
+        addKeyword("class", CLASS);
+        addKeyword("interface", INTERFACE);
+        addKeyword("enum", ENUM);
+        addKeyword("new", NEW);
+        addKeyword("package", PACKAGE);
+        addKeyword("import", IMPORT);
+        addKeyword("throws", THROWS);
+    }
+
+    // The class of each char, which picks the token it starts.  The chars outside
+    // ASCII, the backslash of a unicode escape, and control chars, which the Java
+    // lexer may read differently, are UNSURE.
+    private static final byte UNSURE = 0;
+    private static final byte SPACE = 1;
+    private static final byte NEWLINE = 2;
+    private static final byte SLASH = 3;
+    private static final byte QUOTE = 4;
+    private static final byte LETTER = 5;
+    private static final byte DIGIT = 6;
+    private static final byte PUNCTUATION = 7;
+    private static final byte[] CHAR_CLASSES = new byte[Character.MAX_VALUE + 1];
+    static {
+        for (char c = '!'; c < 127; c++) {
+            CHAR_CLASSES[c] = PUNCTUATION;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHAR_CLASSES[c] = LETTER;
+            CHAR_CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CHAR_CLASSES[c] = DIGIT;
+        }
+        CHAR_CLASSES['_'] = LETTER;
+        CHAR_CLASSES['$'] = LETTER;
+        CHAR_CLASSES[' '] = SPACE;
+        CHAR_CLASSES['\t'] = SPACE;
+        CHAR_CLASSES['\r'] = SPACE;
+        CHAR_CLASSES['\f'] = SPACE;
+        CHAR_CLASSES['\n'] = NEWLINE;
+        CHAR_CLASSES['/'] = SLASH;
+        CHAR_CLASSES['"'] = QUOTE;
+        CHAR_CLASSES['\''] = QUOTE;
+        CHAR_CLASSES['\\'] = UNSURE;
+    }
+
+    // the tokens of the file being scanned; the arrays are reused for the next file
+    private String text;
+    private char[] chars = new char[8192];
+    private int[] kinds = new int[1024];
+    private int[] starts = new int[1024];
+    private int[] ends = new int[1024];
+    private int[] lines = new int[1024];
+    private int numTokens;
+    private int pos;
+
+    // statistics
+    private long scans;
+    private long unsure;
+
+    /**
+     * Finds the outline of a Java file.  Only one file is scanned at a time.
+     *
+     * @param fileContents the text of the file
+     * @return the classes, fields and methods declared at the top level of the file,
+     * or null if the scanner is unsure of the file
+     */
+    public synchronized List<Item> scan(String fileContents) {
+        this.scans++;
+        this.text = fileContents;
+        List<Item> items = new ArrayList<>();
+        try {
+            this.tokenize();
+            this.pos = 0;
+            this.scanCompilationUnit(items);
+            return items;
+        }
+        catch (UnsureException e) {
+            this.unsure++;
+            return null;
+        }
+        finally {
+            this.text = null;
+        }
+    }
+
+    /**
+     * @return the number of files scanned
+     */
+    public synchronized long getScans() {
+        return this.scans;
+    }
+
+    /**
+     * @return the number of files the scanner was unsure of
+     */
+    public synchronized long getUnsure() {
+        return this.unsure;
+    }
+
+    // ---------------------------------------------------------------------
+    // Splitting the text into tokens
+    // ---------------------------------------------------------------------
+
+    private static void addKeyword(String keyword, int kind) {
+        char[] word = keyword.toCharArray();
+        int slot = hash(word, 0, word.length);
+        while (hashedWords[slot] != null) {
+            slot = (slot + 1) & (HASH_TABLE_SIZE - 1);
+        }
+        hashedWords[slot] = word;
+        hashedKinds[slot] = kind;
+    }
+
+    private static int hash(char[] chars, int start, int length) {
+        int hash = chars[start] * 31 + chars[start + length - 1] * 7 + length;
+        if (length > 1) {
+            hash += chars[start + 1] * 3;
+        }
+        return hash & (HASH_TABLE_SIZE - 1);
+    }
+
+    /**
+     * @return the kind of the keyword spelled by a range of chars, or IDENTIFIER
+     */
+    private static int identifierKind(char[] chars, int start, int length) {
+        for (int slot = hash(chars, start, length); hashedWords[slot] != null;
+             slot = (slot + 1) & (HASH_TABLE_SIZE - 1)) {
+            char[] word = hashedWords[slot];
+            if (word.length == length && matches(word, chars, start)) {
+                return hashedKinds[slot];
+            }
+        }
+        return IDENTIFIER;
+    }
+
+    private static boolean matches(char[] word, char[] chars, int start) {
+        for (int i = 0; i < word.length; i++) {
+            if (word[i] != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits the text into tokens, skipping white space and comments
+     */
+    private void tokenize() {
+        int length = this.text.length();
+        if (this.chars.length < length) {
+            this.chars = new char[Math.max(length, this.chars.length * 2)];
+        }
+        this.text.getChars(0, length, this.chars, 0);
+        char[] chars = this.chars;
+        int line = 1;
+        int i = 0;
+        this.numTokens = 0;
+        while (i < length) {
+            char c = chars[i];
+            int start = i;
+            int kind;
+            switch (CHAR_CLASSES[c]) {
+                case SPACE:
+                    i++;
+                    continue;
+                case NEWLINE:
+                    line++;
+                    i++;
+                    continue;
+                case SLASH:
+                    if (i + 1 < length && chars[i + 1] == '/') {
+                        while (i < length && chars[i] != '\n') {
+                            i++;
+                        }
+                        continue;
+                    }
+                    if (i + 1 < length && chars[i + 1] == '*') {
+                        i += 2;
+                        while (i + 1 < length && (chars[i] != '*' || chars[i + 1] != '/')) {
+                            if (chars[i] == '\n') {
+                                line++;
+                            }
+                            i++;
+                        }
+                        if (i + 1 >= length) {
+                            throw new UnsureException();
+                        }
+                        i += 2;
+                        continue;
+                    }
+                    i++;
+                    kind = c;
+                    break;
+                case QUOTE:
+                    i = this.quotedEnd(i, c);
+                    kind = OTHER;
+                    break;
+                case LETTER:
+                    i++;
+                    while (i < length && (CHAR_CLASSES[chars[i]] == LETTER || CHAR_CLASSES[chars[i]] == DIGIT)) {
+                        i++;
+                    }
+                    if (i < length && CHAR_CLASSES[chars[i]] == UNSURE) {
+                        // the identifier may go on with a char outside ASCII
+                        throw new UnsureException();
+                    }
+                    kind = c >= 'a' && c <= 'z' ? identifierKind(chars, start, i - start) : IDENTIFIER;
+                    break;
+                case DIGIT:
+                    i++;
+                    while (i < length && (CHAR_CLASSES[chars[i]] == LETTER || CHAR_CLASSES[chars[i]] == DIGIT
+                            || chars[i] == '.')) {
+                        i++;
+                    }
+                    kind = OTHER;
+                    break;
+                case PUNCTUATION:
+                    i++;
+                    kind = c;
+                    break;
+                default:
+                    throw new UnsureException();
+            }
+            this.addToken(kind, start, i, line);
+        }
+        this.addToken(EOF, length, length, line);
+    }
+
+    /**
+     * @return the end of the string or char literal starting at the given offset
+     */
+    private int quotedEnd(int offset, char quote) {
+        char[] chars = this.chars;
+        int length = this.text.length();
+        int i = offset + 1;
+        while (i < length) {
+            char c = chars[i];
+            if (c == quote) {
+                return i + 1;
+            }
+            else if (c == '\n' || c == '\\' && i + 1 < length && chars[i + 1] == '\n') {
+                break;
+            }
+            i += c == '\\' ? 2 : 1;
+        }
+        // an unterminated literal
+        throw new UnsureException();
+    }
+
+    private void addToken(int kind, int start, int end, int line) {
+        if (this.numTokens == this.kinds.length) {
+            int capacity = this.numTokens * 2;
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+            this.lines = Arrays.copyOf(this.lines, capacity);
+        }
+        this.kinds[this.numTokens] = kind;
+        this.starts[this.numTokens] = start;
+        this.ends[this.numTokens] = end;
+        this.lines[this.numTokens] = line;
+        this.numTokens++;
+    }
+
+    // ---------------------------------------------------------------------
+    // Recognizing declarations
+    // ---------------------------------------------------------------------
+
+    /**
+     * @return the kind of the token at the current position plus an offset
+     */
+    private int peek(int offset) {
+        return this.kinds[Math.min(this.pos + offset, this.numTokens - 1)];
+    }
+
+    /**
+     * Skips the token at the current position, which must be of the given kind
+     */
+    private void expect(int kind) {
+        if (this.peek(0) != kind) {
+            throw new UnsureException();
+        }
+        this.pos++;
+    }
+
+    /**
+     * Scans the package and import declarations and the type declarations of a file
+     */
+    private void scanCompilationUnit(List<Item> items) {
+        while (this.peek(0) != EOF) {
+            int declarationStart = this.pos;
+            this.skipModifiers();
+            switch (this.peek(0)) {
+                case PACKAGE:
+                case IMPORT:
+                    while (this.peek(0) != ';') {
+                        if (this.peek(0) == EOF) {
+                            throw new UnsureException();
+                        }
+                        this.pos++;
+                    }
+                    this.pos++;
+                    break;
+                case ';':
+                    this.pos++;
+                    break;
+                default:
+                    this.scanTypeDeclaration(declarationStart, items);
+            }
+        }
+    }
+
+    /**
+     * Skips the modifiers and annotations at the current position
+     */
+    private void skipModifiers() {
+        while (true) {
+            if (this.peek(0) == MODIFIER) {
+                this.pos++;
+            }
+            else if (this.peek(0) == '@' && this.peek(1) != INTERFACE) {
+                this.pos++;
+                this.skipQualifiedName();
+                if (this.peek(0) == '(') {
+                    this.skipBalanced();
+                }
+            }
+            else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Scans a class, interface or enum declaration at the current position,
+     * after its modifiers
+     *
+     * @param declarationStart the position of the first modifier of the declaration
+     * @param items receives the items declared
+     */
+    private void scanTypeDeclaration(int declarationStart, List<Item> items) {
+        switch (this.peek(0)) {
+            case CLASS:
+                this.pos++;
+                Item classItem = new Item(Kind.CLASS, this.name(), this.lines[declarationStart]);
+                items.add(classItem);
+                this.skipTypeHeader();
+                this.scanClassBody(classItem.children, false);
+                break;
+            case INTERFACE:
+                this.pos++;
+                this.expect(IDENTIFIER);
+                this.skipTypeHeader();
+                this.scanClassBody(items, true);
+                break;
+            case ENUM:
+                this.pos++;
+                this.expect(IDENTIFIER);
+                this.skipTypeHeader();
+                this.scanEnumBody(items);
+                break;
+            default:
+                // annotation types, and anything else
+                throw new UnsureException();
+        }
+    }
+
+    /**
+     * Skips the type parameters, superclass and interfaces in a type
+     * declaration, up to the opening brace of its body
+     */
+    private void skipTypeHeader() {
+        while (this.peek(0) != '{') {
+            switch (this.peek(0)) {
+                case EOF:
+                case '(':
+                case ')':
+                case ';':
+                case '}':
+                case '@':
+                    throw new UnsureException();
+                default:
+                    this.pos++;
+            }
+        }
+    }
+
+    /**
+     * Scans the body of a class or an interface at the current position.  The fields
+     * of an interface are constants, which are not part of the outline.
+     *
+     * @param items     receives the items declared in the body
+     * @param interface_ true for the body of an interface
+     */
+    private void scanClassBody(List<Item> items, boolean interface_) {
+        this.expect('{');
+        while (this.peek(0) != '}') {
+            this.scanMember(items, interface_);
+        }
+        this.pos++;
+    }
+
+    /**
+     * Scans the body of an enum at the current position: its constants, with
+     * their arguments and class bodies, and then its members
+     *
+     * @param items receives the items declared in the body
+     */
+    private void scanEnumBody(List<Item> items) {
+        this.expect('{');
+        while (this.peek(0) != ';' && this.peek(0) != '}') {
+            this.skipModifiers();
+            this.expect(IDENTIFIER);
+            if (this.peek(0) == '(') {
+                this.pos++;
+                this.scanCode(items, ')');
+            }
+            if (this.peek(0) == '{') {
+                this.scanClassBody(items, false);
+            }
+            if (this.peek(0) == ',') {
+                this.pos++;
+            }
+            else if (this.peek(0) != ';' && this.peek(0) != '}') {
+                throw new UnsureException();
+            }
+        }
+        if (this.peek(0) == ';') {
+            this.pos++;
+            while (this.peek(0) != '}') {
+                this.scanMember(items, false);
+            }
+        }
+        this.pos++;
+    }
+
+    /**
+     * Scans one member of a class or interface body at the current position
+     *
+     * @param items      receives the items declared by the member
+     * @param interface_ true for a member of an interface
+     */
+    private void scanMember(List<Item> items, boolean interface_) {
+        int declarationStart = this.pos;
+        this.skipModifiers();
+        int headerStart = this.pos;
+        switch (this.peek(0)) {
+            case ';':
+                this.pos++;
+                return;
+            case '{':
+                // an initializer
+                this.pos++;
+                this.scanCode(items, '}');
+                return;
+            case CLASS:
+            case INTERFACE:
+            case ENUM:
+            case '@':
+                this.scanTypeDeclaration(declarationStart, items);
+                return;
+            case '<':
+                // the type parameters of a generic method or constructor
+                this.skipTypeArguments();
+                break;
+            case EOF:
+                throw new UnsureException();
+            default:
+        }
+
+        if (this.peek(0) == IDENTIFIER && this.peek(1) == '(') {
+            // a constructor
+            if (interface_) {
+                throw new UnsureException();
+            }
+            this.pos++;
+            this.skipBalanced();
+            this.skipThrows();
+            this.expect('{');
+            this.scanCode(items, '}');
+            return;
+        }
+
+        this.skipType();
+        int nameIndex = this.pos;
+        this.expect(IDENTIFIER);
+        if (this.peek(0) == '(') {
+            items.add(new Item(Kind.METHOD, this.tokenText(nameIndex), this.lines[headerStart]));
+            this.skipBalanced();
+            while (this.peek(0) == '[' && this.peek(1) == ']') {
+                this.pos += 2;
+            }
+            this.skipThrows();
+            if (this.peek(0) == '{') {
+                this.pos++;
+                this.scanCode(items, '}');
+            }
+            else {
+                this.expect(';');
+            }
+        }
+        else {
+            if (!interface_) {
+                items.add(new Item(Kind.FIELD, this.tokenText(nameIndex),
+                        this.lines[declarationStart]));
+            }
+            // the rest of the declarators and their initializers
+            this.scanCode(items, ';');
+        }
+    }
+
+    /**
+     * Skips the throws clause of a method or constructor, if any
+     */
+    private void skipThrows() {
+        if (this.peek(0) == THROWS) {
+            this.pos++;
+            while (this.peek(0) != '{' && this.peek(0) != ';') {
+                if (this.peek(0) != IDENTIFIER && this.peek(0) != '.' && this.peek(0) != ','
+                        && this.peek(0) != '<' && this.peek(0) != '>') {
+                    throw new UnsureException();
+                }
+                this.pos++;
+            }
+        }
+    }
+
+    /**
+     * Skips a type at the current position: a primitive type or a class type,
+     * with any type arguments and array dimensions
+     */
+    private void skipType() {
+        if (this.peek(0) == PRIMITIVE) {
+            this.pos++;
+        }
+        else {
+            this.expect(IDENTIFIER);
+            if (this.peek(0) == '<') {
+                this.skipTypeArguments();
+            }
+            while (this.peek(0) == '.' && this.peek(1) == IDENTIFIER) {
+                this.pos += 2;
+                if (this.peek(0) == '<') {
+                    this.skipTypeArguments();
+                }
+            }
+        }
+        while (this.peek(0) == '[' && this.peek(1) == ']') {
+            this.pos += 2;
+        }
+    }
+
+    /**
+     * Skips type arguments or type parameters, from the opening angle bracket
+     * at the current position to the matching closing one
+     */
+    private void skipTypeArguments() {
+        int depth = 0;
+        do {
+            switch (this.peek(0)) {
+                case '<':
+                    depth++;
+                    break;
+                case '>':
+                    depth--;
+                    break;
+                case IDENTIFIER:
+                case PRIMITIVE:
+                case OTHER:  // extends and super
+                case '.':
+                case ',':
+                case '?':
+                case '&':
+                case '[':
+                case ']':
+                    break;
+                default:
+                    throw new UnsureException();
+            }
+            this.pos++;
+        } while (depth > 0);
+    }
+
+    /**
+     * Skips a name made of identifiers separated by dots
+     */
+    private void skipQualifiedName() {
+        this.expect(IDENTIFIER);
+        while (this.peek(0) == '.' && this.peek(1) == IDENTIFIER) {
+            this.pos += 2;
+        }
+    }
+
+    /**
+     * Skips the parenthesized group at the current position, which holds no
+     * declarations, such as the parameters of a method or the values of an annotation
+     */
+    private void skipBalanced() {
+        this.expect('(');
+        int depth = 1;
+        while (depth > 0) {
+            switch (this.peek(0)) {
+                case '(':
+                    depth++;
+                    break;
+                case ')':
+                    depth--;
+                    break;
+                case EOF:
+                case ';':
+                    throw new UnsureException();
+                default:
+            }
+            this.pos++;
+        }
+    }
+
+    /**
+     * Skips code, such as a method body or an initializer, up to and including
+     * the given closing token, matching the brackets on the way.  Local classes
+     * and the members of anonymous classes declared in the code are added to the
+     * outline, as the structure view adds them to the enclosing class.
+     *
+     * @param items  receives the items declared in the code
+     * @param closer the token that ends the code
+     */
+    private void scanCode(List<Item> items, int closer) {
+        // the position of the first of the modifiers just before the current position, if any
+        int modifiersStart = -1;
+        while (true) {
+            int kind = this.peek(0);
+            if (kind == closer) {
+                this.pos++;
+                return;
+            }
+            switch (kind) {
+                case '(':
+                    this.pos++;
+                    this.scanCode(items, ')');
+                    modifiersStart = -1;
+                    continue;
+                case '[':
+                    this.pos++;
+                    this.scanCode(items, ']');
+                    modifiersStart = -1;
+                    continue;
+                case '{':
+                    this.pos++;
+                    this.scanCode(items, '}');
+                    modifiersStart = -1;
+                    continue;
+                case ')':
+                case ']':
+                case '}':
+                case EOF:
+                    throw new UnsureException();
+                case MODIFIER:
+                case '@':
+                    if (modifiersStart < 0) {
+                        modifiersStart = this.pos;
+                    }
+                    if (kind == '@' && this.peek(1) == INTERFACE) {
+                        throw new UnsureException();
+                    }
+                    this.skipModifiers();
+                    continue;
+                case CLASS:
+                case ENUM:
+                    if (this.pos > 0 && this.kinds[this.pos - 1] == '.') {
+                        // a class literal
+                        this.pos++;
+                        break;
+                    }
+                    // a local class
+                    this.scanTypeDeclaration(modifiersStart < 0 ? this.pos : modifiersStart, items);
+                    break;
+                case INTERFACE:
+                    throw new UnsureException();
+                case NEW:
+                    if (this.isAfterDoubleColon()) {
+                        // a constructor reference
+                        this.pos++;
+                        break;
+                    }
+                    this.scanInstanceCreation(items);
+                    break;
+                default:
+                    this.pos++;
+            }
+            modifiersStart = -1;
+        }
+    }
+
+    /**
+     * @return true if the token at the current position follows ::
+     */
+    private boolean isAfterDoubleColon() {
+        return this.pos > 1 && this.kinds[this.pos - 1] == ':' && this.kinds[this.pos - 2] == ':'
+                && this.ends[this.pos - 2] == this.starts[this.pos - 1];
+    }
+
+    /**
+     * Scans a class instance or array creation at the current position, up to its
+     * arguments or dimensions.  The members of an anonymous class are added to the outline.
+     *
+     * @param items receives the items declared in the body of an anonymous class
+     */
+    private void scanInstanceCreation(List<Item> items) {
+        this.expect(NEW);
+        if (this.peek(0) == '<') {
+            this.skipTypeArguments();
+        }
+        if (this.peek(0) == PRIMITIVE) {
+            this.pos++;
+        }
+        else {
+            this.skipModifiers();
+            this.expect(IDENTIFIER);
+            while (this.peek(0) == '.' || this.peek(0) == '<' || this.peek(0) == IDENTIFIER
+                    || this.peek(0) == '@') {
+                if (this.peek(0) == '<') {
+                    this.skipTypeArguments();
+                }
+                else if (this.peek(0) == '@') {
+                    this.skipModifiers();
+                }
+                else {
+                    this.pos++;
+                }
+            }
+        }
+        if (this.peek(0) == '(') {
+            this.pos++;
+            this.scanCode(items, ')');
+            if (this.peek(0) == '{') {
+                this.scanClassBody(items, false);
+            }
+        }
+        else if (this.peek(0) != '[') {
+            throw new UnsureException();
+        }
+    }
+
+    /**
+     * @return the identifier at the current position, which is skipped
+     */
+    private String name() {
+        int index = this.pos;
+        this.expect(IDENTIFIER);
+        return this.tokenText(index);
+    }
+
+    private String tokenText(int index) {
+        return new String(this.chars, this.starts[index], this.ends[index] - this.starts[index]);
+    }
+
+    /**
+     * Stops a scan the scanner is unsure of
+     */
+    private static class UnsureException extends RuntimeException {
+        private UnsureException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A class, field or method declaration in the outline of a file
+     */
+    public static class Item {
+        private final Kind kind;
+        private final String name;
+        private final int line;
+        private final List<Item> children = new ArrayList<>();
+
+        private Item(Kind kind, String name, int line) {
+            this.kind = kind;
+            this.name = name;
+            this.line = line;
+        }
+
+        /**
+         * @return whether this is a class, a field or a method
+         */
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        /**
+         * @return the name declared
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the line the declaration starts on, counting from 1
+         */
+        public int getLine() {
+            return this.line;
+        }
+
+        /**
+         * @return the fields, methods and classes declared in a class, in order
+         */
+        public List<Item> getChildren() {
+            return Collections.unmodifiableList(this.children);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * File: JavaStructureParser.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import proj12ZhangZhao.Java8.Java8Lexer;
+import proj12ZhangZhao.Java8.Java8Parser;
+
+/**
+ * Parses Java files for the structure view, reusing one Java8Lexer and
+ * Java8Parser for every file.
+ *
+ * A file is first parsed with SLL prediction, which is much faster than the
+ * full LL prediction but may fail on input that needs full context to
+ * decide; the parse then bails out at the first error and the file is
+ * parsed again with LL prediction and the default error recovery.  The
+ * second parse runs for files with syntax errors, and also for some valid
+ * files, since a few decisions of the Java 8 grammar need full context.
+ * The number of parses that needed the second stage is counted.
+ *
+ * A parse stops with a ParseCancellationException when the thread running
+ * it is interrupted.
+ *
+ * @author Tia Zhang and Danqing Zhao
+ */
+public class JavaStructureParser {
+
+    private final Java8Lexer lexer;
+    private final Java8Parser parser;
+    private boolean twoStage = true;
+
+    // statistics
+    private long sllParses;
+    private long llFallbacks;
+    private long llOnlyParses;
+    private long sllNanos;
+    private long llNanos;
+
+    /**
+     * Creates a parser, with the SLL stage turned on
+     */
+    public JavaStructureParser() {
+        this.lexer = new Java8Lexer(CharStreams.fromString("")) {
+            @Override
+            public Token nextToken() {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new ParseCancellationException("parse cancelled");
+                }
+                return super.nextToken();
+            }
+        };
+        this.lexer.removeErrorListeners();
+        this.parser = new Java8Parser(new CommonTokenStream(this.lexer));
+        this.parser.removeErrorListeners();
+    }
+
+    /**
+     * Turns the SLL stage on or off.  Without it every file is parsed with full LL prediction.
+     *
+     * @param twoStage true to try SLL prediction first
+     */
+    public synchronized void setTwoStage(boolean twoStage) {
+        this.twoStage = twoStage;
+    }
+
+    /**
+     * Parses a Java file.  Only one file is parsed at a time; a thread
+     * parsing while another one is waits for it to finish.
+     *
+     * @param fileContents the text of the file
+     * @return the parse tree of the compilation unit
+     */
+    public synchronized ParseTree parse(String fileContents) {
+        this.lexer.setInputStream(CharStreams.fromString(fileContents));
+        this.parser.setTokenStream(new CommonTokenStream(this.lexer));
+
+        long start = System.nanoTime();
+        if (this.twoStage) {
+            this.parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            this.parser.setErrorHandler(new BailErrorStrategy());
+            try {
+                ParseTree tree = this.parser.compilationUnit();
+                this.sllParses++;
+                this.sllNanos += System.nanoTime() - start;
+                return tree;
+            }
+            catch (ParseCancellationException e) {
+                // the lexer throws it too, when the parse is cancelled
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                this.llFallbacks++;
+                this.sllNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                this.parser.reset();
+            }
+        }
+        else {
+            this.llOnlyParses++;
+        }
+
+        this.parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        this.parser.setErrorHandler(new DefaultErrorStrategy());
+        ParseTree tree = this.parser.compilationUnit();
+        this.llNanos += System.nanoTime() - start;
+        return tree;
+    }
+
+    /**
+     * @return the number of files parsed by the SLL stage alone
+     */
+    public synchronized long getSllParses() {
+        return this.sllParses;
+    }
+
+    /**
+     * @return the number of files the SLL stage failed on, which were then parsed with LL prediction
+     */
+    public synchronized long getLlFallbacks() {
+        return this.llFallbacks;
+    }
+
+    /**
+     * @return a summary of the parses so far and the time spent in each stage
+     */
+    public synchronized String getStatistics() {
+        return String.format("SLL parses: %d, LL fallbacks: %d, LL-only parses: %d, " +
+                        "SLL time: %.1f ms, LL time: %.1f ms",
+                this.sllParses, this.llFallbacks, this.llOnlyParses,
+                this.sllNanos / 1e6, this.llNanos / 1e6);
+    }
+}
@@ -88,18 +88,20 @@ public class MasterController {
         TabContextMenu tabContextMenu = new TabContextMenu(this);
         ConsoleContextMenu consoleContextMenu = new ConsoleContextMenu(this);
 
-        //initialize the controllers
+        //initialize the controllers, which share one scheduler for their background work
+        AnalysisScheduler analysisScheduler = AnalysisScheduler.getShared();
         this.editController = new EditController(this.codeTabPane);
         this.fileController = new FileController(this.vBox,this.codeTabPane,this);
-        this.toolbarController = new ToolbarController(this.console, this.codeTabPane);
+        this.toolbarController = new ToolbarController(this.console, this.codeTabPane, analysisScheduler);
 
         this.preferenceController = new PreferenceController(this.vBox, this.console, structureTabPane,
                 fileStructureItem,directoryTreeItem,this.fileStructureTree,this.directoryTree);
         this.helpMenuController = new HelpMenuController();
 
         this.directoryController = new DirectoryController(this.directoryTree,this.codeTabPane,
-                this.codeTabPane.getFileNames());
-        this.structureViewController=new StructureViewController(this.fileStructureTree, this.codeTabPane);
+                this.codeTabPane.getFileNames(), analysisScheduler);
+        this.structureViewController=new StructureViewController(this.fileStructureTree, this.codeTabPane,
+                analysisScheduler);
 
         //bind the edit, save, saveAs, close menus to the property of a list of opened tabs
         SimpleListProperty<Tab> tabsProperty = new SimpleListProperty<> (this.codeTabPane.getTabs());
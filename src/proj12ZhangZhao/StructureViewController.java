@@ -11,7 +11,6 @@
 
 package proj12ZhangZhao;
 
-import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
@@ -19,17 +18,19 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
 import javafx.scene.input.KeyEvent;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
 import org.fxmisc.richtext.CodeArea;
+import org.reactfx.EventSource;
 import proj12ZhangZhao.Java8.*;
 
 import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 
@@ -46,23 +47,52 @@ public class StructureViewController
     private TreeView<String> treeView;
     private final ParseTreeWalker walker;
     private TreeItem<String> structureTreeRoot;
+    private AnalysisScheduler analysisScheduler;
+
+    // the key the updates of the structure view are scheduled under
+    private static final String STRUCTURE_VIEW_KEY = "structure view";
+
+    // the structure view is updated once typing pauses for this long
+    private static final Duration TYPING_PAUSE = Duration.ofMillis(300);
+
+    // parses the files; a cancelled update interrupts its thread, which stops the parse early
+    private final JavaStructureParser structureParser;
+
+    // finds the outline of a file without parsing it; the file is parsed when it is unsure
+    private final JavaOutlineScanner outlineScanner;
+    private volatile boolean outlineScanning = true;
+
+    // the icons of the tree items, shared by all the trees
+    private final Image classPic;
+    private final Image methodPic;
+    private final Image fieldPic;
 
 
     /**
      * Constructor for this class
      * @param fileStructureTree the TreeView object passed by master controller
      *                          It holds all structure information
+     * @param analysisScheduler runs the updates of the structure view in the background
      */
-    public StructureViewController(TreeView<String> fileStructureTree, CodeTabPane codeTabPane) {
+    public StructureViewController(TreeView<String> fileStructureTree, CodeTabPane codeTabPane,
+                                   AnalysisScheduler analysisScheduler) {
         this.walker = new ParseTreeWalker();
         this.codeTabPane=codeTabPane;
+        this.analysisScheduler = analysisScheduler;
         this.treeItemLineNumMap = new HashMap<>();
         this.treeView = fileStructureTree;
 
-        // Updates the file structure view whenever a key is typed
-        this.codeTabPane.addEventFilter(KeyEvent.KEY_RELEASED, event -> {
-            this.updateStructureView();
-        });
+        this.structureParser = new JavaStructureParser();
+        this.outlineScanner = new JavaOutlineScanner();
+
+        this.classPic = new Image(getClass().getResource("resources/c.png").toExternalForm());
+        this.methodPic = new Image(getClass().getResource("resources/m.png").toExternalForm());
+        this.fieldPic = new Image(getClass().getResource("resources/f.png").toExternalForm());
+
+        // Updates the file structure view when the user stops typing
+        EventSource<KeyEvent> keyReleases = new EventSource<>();
+        this.codeTabPane.addEventFilter(KeyEvent.KEY_RELEASED, keyReleases::push);
+        keyReleases.successionEnds(TYPING_PAUSE).subscribe(event -> this.updateStructureView());
         //update the file structure view when user change tab
         this.codeTabPane.getSelectionModel().selectedItemProperty().addListener((observableValue, oldTab, newTab) -> {
             this.updateStructureView();
@@ -71,51 +101,177 @@ public class StructureViewController
 
     /**
      * Parses a file thereby storing contents as TreeItems in our special tree.
+     * With outline scanning on, the file is only parsed if the outline scanner is unsure of it.
      * @param fileContents the file to be parsed
+     * @param treeItemLineNumMap receives the line number of each TreeItem
      */
-    public TreeItem<String> generateStructureTree(String fileContents)
+    public TreeItem<String> generateStructureTree(String fileContents, Map<TreeItem, Integer> treeItemLineNumMap)
     {
         TreeItem<String> newRoot = new TreeItem<>(fileContents);
 
-        //build lexer, parser, and parse tree for the given file
-        Java8Lexer lexer = new Java8Lexer(CharStreams.fromString(fileContents));
-        lexer.removeErrorListeners();
-
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        Java8Parser parser = new Java8Parser(tokens);
-        parser.removeErrorListeners();
+        if (this.outlineScanning) {
+            List<JavaOutlineScanner.Item> outline = this.outlineScanner.scan(fileContents);
+            if (outline != null) {
+                this.addOutlineItems(newRoot, outline, treeItemLineNumMap);
+                return newRoot;
+            }
+        }
 
-        ParseTree tree = parser.compilationUnit();
+        ParseTree tree = this.structureParser.parse(fileContents);
 
         //walk through parse tree with listening for code structure elements
-        CodeStructureListener codeStructureListener = new CodeStructureListener(newRoot, this.treeItemLineNumMap);
+        CodeStructureListener codeStructureListener = new CodeStructureListener(newRoot, treeItemLineNumMap);
         this.walker.walk(codeStructureListener, tree);
 
         return newRoot;
     }
 
+    /**
+     * Adds TreeItems for the items of an outline, as the CodeStructureListener
+     * adds them for the declarations in a parse tree
+     * @param parent the TreeItem to add them to
+     * @param items the items of the outline
+     * @param treeItemLineNumMap receives the line number of each TreeItem
+     */
+    private void addOutlineItems(TreeItem<String> parent, List<JavaOutlineScanner.Item> items,
+                                 Map<TreeItem, Integer> treeItemLineNumMap) {
+        for (JavaOutlineScanner.Item item : items) {
+            TreeItem<String> newNode = new TreeItem<>(item.getName());
+            switch (item.getKind()) {
+                case CLASS:
+                    newNode.setGraphic(new ImageView(this.classPic));
+                    newNode.setExpanded(true);
+                    this.addOutlineItems(newNode, item.getChildren(), treeItemLineNumMap);
+                    break;
+                case FIELD:
+                    newNode.setGraphic(new ImageView(this.fieldPic));
+                    break;
+                default:
+                    newNode.setGraphic(new ImageView(this.methodPic));
+            }
+            parent.getChildren().add(newNode);
+            treeItemLineNumMap.put(newNode, item.getLine());
+        }
+    }
+
+    /**
+     * Turns outline scanning on or off.  Without it every file is parsed with ANTLR.
+     *
+     * @param outlineScanning true to build the structure tree from the outline scanner
+     */
+    public void setOutlineScanning(boolean outlineScanning) {
+        this.outlineScanning = outlineScanning;
+    }
+
+    /**
+     * Rebuilds the structure view of the current tab in the background, replacing
+     * an update that is still running.  There is one structure view for all the tabs,
+     * so an update for one tab also replaces an update for another.
+     */
     public void updateStructureView(){
-        //declare a new thread and assign it with the work of updating the structure view
-        new Thread(()->{
-            updateStructureViewTask updateStructViewTask = new updateStructureViewTask(this.codeTabPane,this);
-            FutureTask<TreeItem<String>> curFutureTask = new FutureTask<>(updateStructViewTask );
-            ExecutorService curExecutor = Executors.newFixedThreadPool(1);
-            curExecutor.execute(curFutureTask);
-            //when the updating structure task is successfully done, close the current executor
-            try {
-                this.structureTreeRoot = curFutureTask.get();
-                curExecutor.shutdown();
+        updateStructureViewTask updateStructViewTask = new updateStructureViewTask(this.codeTabPane,this);
+        this.analysisScheduler.submit(STRUCTURE_VIEW_KEY, updateStructViewTask,
+                root -> this.applyStructureTree(root, updateStructViewTask.treeItemLineNumMap),
                 //if the update failed, an dialog box will pops up reporting error
-            }catch (InterruptedException| ExecutionException e){
-                Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setContentText("Failed to update structure view.");
-                alert.showAndWait();
-            }
+                error -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setContentText("Failed to update structure view.");
+                    alert.showAndWait();
+                });
+    }
+
+    /**
+     * Shows a newly built structure tree.  If a tree is already shown, only the
+     * items that changed are replaced, so the other items keep their expanded
+     * and selected states.
+     *
+     * @param newRoot the root of the new tree, or null if there is no structure to show
+     * @param newLineNumMap the line number of each item of the new tree
+     */
+    private void applyStructureTree(TreeItem<String> newRoot, Map<TreeItem, Integer> newLineNumMap) {
+        if (newRoot == null || this.structureTreeRoot == null) {
+            this.structureTreeRoot = newRoot;
+            this.treeItemLineNumMap = newLineNumMap;
             //set the root node of the current structure view to the new root node
-            Platform.runLater(()-> {
-                this.setRootNode(this.structureTreeRoot);
-            });
-        }).start();
+            this.setRootNode(this.structureTreeRoot);
+            return;
+        }
+        Map<TreeItem, Integer> lineNumMap = new HashMap<>();
+        this.structureTreeRoot.setValue(newRoot.getValue());
+        this.mergeChildren(this.structureTreeRoot, newRoot, newLineNumMap, lineNumMap);
+        this.treeItemLineNumMap = lineNumMap;
+    }
+
+    /**
+     * Makes the children of a shown item match the children of a new item.
+     * Children that are the same at the start and at the end of both lists are kept,
+     * and their own children merged; the children in between are replaced by the new ones.
+     *
+     * @param item the shown item
+     * @param newItem the new item
+     * @param newLineNumMap the line numbers of the new items
+     * @param lineNumMap receives the line numbers of the items shown afterwards
+     */
+    private void mergeChildren(TreeItem<String> item, TreeItem<String> newItem,
+                               Map<TreeItem, Integer> newLineNumMap, Map<TreeItem, Integer> lineNumMap) {
+        List<TreeItem<String>> children = item.getChildren();
+        List<TreeItem<String>> newChildren = newItem.getChildren();
+        int size = children.size();
+        int newSize = newChildren.size();
+
+        int prefix = 0;
+        while (prefix < size && prefix < newSize
+                && this.isSameItem(children.get(prefix), newChildren.get(prefix))) {
+            this.mergeItem(children.get(prefix), newChildren.get(prefix), newLineNumMap, lineNumMap);
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < size - prefix && suffix < newSize - prefix
+                && this.isSameItem(children.get(size - 1 - suffix), newChildren.get(newSize - 1 - suffix))) {
+            this.mergeItem(children.get(size - 1 - suffix), newChildren.get(newSize - 1 - suffix),
+                    newLineNumMap, lineNumMap);
+            suffix++;
+        }
+        if (prefix + suffix == size && prefix + suffix == newSize) {
+            return;
+        }
+
+        List<TreeItem<String>> inserted = new ArrayList<>(newChildren.subList(prefix, newSize - suffix));
+        for (TreeItem<String> insertedItem : inserted) {
+            this.copyLineNums(insertedItem, newLineNumMap, lineNumMap);
+        }
+        // an item can only have one parent
+        newChildren.clear();
+        children.subList(prefix, size - suffix).clear();
+        children.addAll(prefix, inserted);
+    }
+
+    /**
+     * Keeps a shown item in place of an equal new item
+     */
+    private void mergeItem(TreeItem<String> item, TreeItem<String> newItem,
+                           Map<TreeItem, Integer> newLineNumMap, Map<TreeItem, Integer> lineNumMap) {
+        lineNumMap.put(item, newLineNumMap.get(newItem));
+        this.mergeChildren(item, newItem, newLineNumMap, lineNumMap);
+    }
+
+    /**
+     * Copies the line numbers of an item and all the items below it
+     */
+    private void copyLineNums(TreeItem<String> item, Map<TreeItem, Integer> newLineNumMap,
+                              Map<TreeItem, Integer> lineNumMap) {
+        lineNumMap.put(item, newLineNumMap.get(item));
+        for (TreeItem<String> child : item.getChildren()) {
+            this.copyLineNums(child, newLineNumMap, lineNumMap);
+        }
+    }
+
+    /**
+     * @return true if the two items have the same name and the same kind (class, field or method)
+     */
+    private boolean isSameItem(TreeItem<String> item, TreeItem<String> newItem) {
+        return item.getValue().equals(newItem.getValue())
+                && ((ImageView) item.getGraphic()).getImage() == ((ImageView) newItem.getGraphic()).getImage();
     }
 
     /**
@@ -129,6 +285,18 @@ public class StructureViewController
         this.treeView.setShowRoot(false);
     }
 
+    /**
+     * Returns the statistics of the outline scans and parses run for the structure view
+     *
+     * @return how many files the outline scanner was unsure of, how many parses needed
+     * full LL prediction, and the time spent in each stage
+     */
+    public String getParseStatistics() {
+        return String.format("outline scans: %d, unsure: %d, ",
+                this.outlineScanner.getScans(), this.outlineScanner.getUnsure())
+                + this.structureParser.getStatistics();
+    }
+
     /**
      * Returns the line number currently associated with the specified tree item
      *
@@ -146,9 +314,6 @@ public class StructureViewController
      */
     private class CodeStructureListener extends Java8BaseListener
     {
-        private Image classPic;
-        private Image methodPic;
-        private Image fieldPic;
         private TreeItem<String> currentNode;
         private Map<TreeItem, Integer> treeItemIntegerMap;
 
@@ -163,9 +328,6 @@ public class StructureViewController
         {
             this.currentNode = root;
             this.treeItemIntegerMap = treeItemIntegerMap;
-            this.classPic = new Image(getClass().getResource("resources/c.png").toExternalForm());
-            this.methodPic = new Image(getClass().getResource("resources/m.png").toExternalForm());
-            this.fieldPic = new Image(getClass().getResource("resources/f.png").toExternalForm());
         }
 
         /**
@@ -184,7 +346,7 @@ public class StructureViewController
                 //set up the icon
                 //store the line number of its declaration
                 TreeItem<String> newNode = new TreeItem<>(className);
-                newNode.setGraphic(new ImageView(this.classPic));
+                newNode.setGraphic(new ImageView(StructureViewController.this.classPic));
                 newNode.setExpanded(true);
                 this.currentNode.getChildren().add(newNode);
                 this.currentNode = newNode; //move current node into new subtree
@@ -218,7 +380,7 @@ public class StructureViewController
             //set up the icon
             //store the line number of its declaration
             TreeItem<String> newNode = new TreeItem<>(fieldName);
-            newNode.setGraphic(new ImageView(this.fieldPic));
+            newNode.setGraphic(new ImageView(StructureViewController.this.fieldPic));
             this.currentNode.getChildren().add(newNode);
             this.treeItemIntegerMap.put(newNode, fieldDeclarationContext.getStart().getLine());
         }
@@ -238,7 +400,7 @@ public class StructureViewController
             //set up the icon
             //store the line number of its declaration
             TreeItem<String> newNode = new TreeItem<>(methodName);
-            newNode.setGraphic(new ImageView(this.methodPic));
+            newNode.setGraphic(new ImageView(StructureViewController.this.methodPic));
             this.currentNode.getChildren().add(newNode);
             this.treeItemIntegerMap.put(newNode, headerDeclarationContext.getStart().getLine());
 
@@ -250,28 +412,20 @@ public class StructureViewController
      * Writes the input/output error to the console.
      */
     private class updateStructureViewTask implements Callable<TreeItem<String>> {
-        private CodeTabPane codeTabPane;
+        private String fileContents;
         private StructureViewController structureViewController;
+        private Map<TreeItem, Integer> treeItemLineNumMap = new HashMap<>();
 
         /**
-         * Constructor for the task class that updates the structure view
+         * Constructor for the task class that updates the structure view.
+         * It reads the code area and the current file here, on the FX thread.
          * @param codeTabPane the codeTabPane class to access the codearea and current file
          * @param structureViewController the structure view controller class to access the structure tree
          */
 
         public updateStructureViewTask(CodeTabPane codeTabPane,
                                        StructureViewController structureViewController){
-            this.codeTabPane=codeTabPane;
             this.structureViewController = structureViewController;
-        }
-
-        /**
-         * the run function that override the original ones offered by the runnable class
-         * This one updates the structure view
-         * @return the TreeItem root that indicates the file to be parsed
-         */
-        @Override
-        public TreeItem<String> call(){
             CodeArea currentCodeArea=codeTabPane.getCodeArea();
             File currentFile=codeTabPane.getCurrentFile();
             // if the code area is open
@@ -281,13 +435,25 @@ public class StructureViewController
                     String fileName = currentFile.getPath();
                     // if this is a java file
                     if (fileName.endsWith(".java")) {
-                        // Re-generates the tree
-                        return structureViewController.generateStructureTree(currentCodeArea.getText());
+                        this.fileContents = currentCodeArea.getText();
                     }
                 }
             }
+        }
+
+        /**
+         * the run function that override the original ones offered by the runnable class
+         * This one updates the structure view
+         * @return the TreeItem root that indicates the file to be parsed
+         */
+        @Override
+        public TreeItem<String> call(){
+            if (this.fileContents != null) {
+                // Re-generates the tree
+                return structureViewController.generateStructureTree(this.fileContents, this.treeItemLineNumMap);
+            }
             return null;
         }
 
     }
-}
\ No newline at end of file
+}
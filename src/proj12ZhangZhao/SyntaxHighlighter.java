@@ -0,0 +1,335 @@
+/*
+ * File: SyntaxHighlighter.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao;
+
+import proj12ZhangZhao.bantam.lexer.IncrementalScanner;
+
+import java.util.Arrays;
+
+/**
+ * Computes the syntax highlighting of a text in a single pass, one list of
+ * style runs per paragraph.  Java text is split into tokens by a small
+ * hand-written lexer; Bantam text is highlighted from the tokens of an
+ * IncrementalScanner.
+ *
+ * The runs of a paragraph are stored as pairs (length, style) in an int
+ * array, where the style is an index into STYLE_CLASSES or NONE.  Adjacent
+ * runs always have different styles and no run is empty, so two paragraphs
+ * are styled the same exactly when their arrays are equal.  Nothing here
+ * touches the code area, so it can run on any thread.
+ */
+class SyntaxHighlighter {
+
+    // the CSS style classes, indexed by style
+    static final String[] STYLE_CLASSES = {"keyword", "paren", "brace", "bracket",
+            "semicolon", "string", "comment", "identifier", "intconst", "char"};
+
+    static final int NONE = -1;
+    private static final int KEYWORD = 0;
+    private static final int PAREN = 1;
+    private static final int BRACE = 2;
+    private static final int BRACKET = 3;
+    private static final int SEMICOLON = 4;
+    private static final int STRING = 5;
+    private static final int COMMENT = 6;
+    private static final int IDENTIFIER = 7;
+    private static final int INTCONST = 8;
+    private static final int CHAR = 9;
+
+    // the Java keywords, grouped by their first letter
+    private static final String[][] KEYWORDS = new String[26][];
+    static {
+        String[] keywords = {
+                "abstract", "assert", "boolean", "break", "byte",
+                "case", "catch", "char", "class", "const",
+                "continue", "default", "do", "double", "else",
+                "enum", "extends", "final", "finally", "float",
+                "for", "goto", "if", "implements", "import",
+                "instanceof", "int", "interface", "long", "native",
+                "new", "package", "private", "protected", "public",
+                "return", "short", "static", "strictfp", "super",
+                "switch", "synchronized", "this", "throw", "throws",
+                "transient", "try", "void", "volatile", "while", "var"
+        };
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            KEYWORDS[i] = new String[0];
+        }
+        for (String keyword : keywords) {
+            int letter = keyword.charAt(0) - 'a';
+            KEYWORDS[letter] = Arrays.copyOf(KEYWORDS[letter], KEYWORDS[letter].length + 1);
+            KEYWORDS[letter][KEYWORDS[letter].length - 1] = keyword;
+        }
+    }
+
+    private final String text;
+    private int position = 0;   // everything before position has been styled
+    private int nextNewline = -1; // the first newline at or after position, or the text length
+
+    // the paragraphs finished so far, and the runs of the current one
+    private int[][] paragraphs = new int[64][];
+    private int numParagraphs = 0;
+    private int[] runs = new int[16];
+    private int numRuns = 0;
+
+    private SyntaxHighlighter(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Highlights Java source code
+     *
+     * @param text the text of the code area
+     * @return the style runs of each paragraph of the text
+     */
+    static int[][] highlightJava(String text) {
+        SyntaxHighlighter highlighter = new SyntaxHighlighter(text);
+        highlighter.lexJava();
+        return highlighter.finish();
+    }
+
+    /**
+     * Highlights Bantam source code using the tokens already found by a scanner
+     *
+     * @param text   the text of the code area
+     * @param tokens the tokens of the same text
+     * @return the style runs of each paragraph of the text
+     */
+    static int[][] highlightBantam(String text, IncrementalScanner tokens) {
+        SyntaxHighlighter highlighter = new SyntaxHighlighter(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            int style = bantamStyle(tokens, i);
+            if (style != NONE) {
+                highlighter.style(tokens.getStart(i), NONE);
+                highlighter.style(tokens.getStart(i) + tokens.getLength(i), style);
+            }
+        }
+        return highlighter.finish();
+    }
+
+    /**
+     * @return the style of the i-th token of a Bantam program
+     */
+    private static int bantamStyle(IncrementalScanner tokens, int i) {
+        switch (tokens.getKind(i)) {
+            case INTCONST:
+                return INTCONST;
+            case STRCONST:
+                return STRING;
+            case COMMENT:
+                return COMMENT;
+            case SEMICOLON:
+                return SEMICOLON;
+            case LPAREN:
+            case RPAREN:
+                return PAREN;
+            case LBRACKET:
+            case RBRACKET:
+                return BRACKET;
+            case LCURLY:
+            case RCURLY:
+                return BRACE;
+            case IDENTIFIER:
+                String name = tokens.getSpelling(i);
+                return name.equals("this") || name.equals("super") || name.equals("null")
+                        ? KEYWORD : IDENTIFIER;
+            case BOOLEAN:
+            case BREAK:
+            case CAST:
+            case CLASS:
+            case VAR:
+            case ELSE:
+            case EXTENDS:
+            case FOR:
+            case IF:
+            case INSTANCEOF:
+            case NEW:
+            case RETURN:
+            case WHILE:
+                return KEYWORD;
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * Splits the text into tokens and styles each one
+     */
+    private void lexJava() {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            int start = i;
+            int style;
+            if (c == '/' && i + 1 < length && text.charAt(i + 1) == '/') {
+                i = lineEnd(i);
+                style = COMMENT;
+            }
+            else if (c == '/' && i + 1 < length && text.charAt(i + 1) == '*') {
+                int end = text.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                style = COMMENT;
+            }
+            else if (c == '"' || c == '\'') {
+                i = quotedEnd(i, c);
+                style = c == '"' ? STRING : CHAR;
+            }
+            else if (Character.isJavaIdentifierStart(c)) {
+                i++;
+                while (i < length && Character.isJavaIdentifierPart(text.charAt(i))) {
+                    i++;
+                }
+                style = isKeyword(start, i) ? KEYWORD : IDENTIFIER;
+            }
+            else if (c >= '0' && c <= '9') {
+                // integers and floats, with any prefix, suffix or exponent
+                i++;
+                while (i < length && (Character.isLetterOrDigit(text.charAt(i))
+                        || text.charAt(i) == '_' || text.charAt(i) == '.')) {
+                    i++;
+                }
+                style = INTCONST;
+            }
+            else {
+                i++;
+                style = punctuationStyle(c);
+                if (style == NONE) {
+                    continue;
+                }
+            }
+            style(start, NONE);
+            style(i, style);
+        }
+    }
+
+    /**
+     * @return the offset of the end of the line holding the given offset
+     */
+    private int lineEnd(int offset) {
+        int end = text.indexOf('\n', offset);
+        return end < 0 ? text.length() : end;
+    }
+
+    /**
+     * @return the end of the string or char literal starting at the given offset.
+     * A literal missing its closing quote ends at the end of the line.
+     */
+    private int quotedEnd(int offset, char quote) {
+        int length = text.length();
+        int i = offset + 1;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == quote) {
+                return i + 1;
+            }
+            else if (c == '\n') {
+                return i;
+            }
+            i += c == '\\' && i + 1 < length && text.charAt(i + 1) != '\n' ? 2 : 1;
+        }
+        return length;
+    }
+
+    /**
+     * @return true if the identifier between start and end is a Java keyword
+     */
+    private boolean isKeyword(int start, int end) {
+        char first = text.charAt(start);
+        if (first < 'a' || first > 'z') {
+            return false;
+        }
+        for (String keyword : KEYWORDS[first - 'a']) {
+            if (keyword.length() == end - start && text.startsWith(keyword, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the style of a one-character token, or NONE if it is not styled
+     */
+    private static int punctuationStyle(char c) {
+        switch (c) {
+            case '(':
+            case ')':
+                return PAREN;
+            case '{':
+            case '}':
+                return BRACE;
+            case '[':
+            case ']':
+                return BRACKET;
+            case ';':
+                return SEMICOLON;
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * Gives the text from the current position up to the given offset one style,
+     * starting a new paragraph after every newline
+     */
+    private void style(int end, int style) {
+        while (position < end) {
+            if (nextNewline < position) {
+                nextNewline = text.indexOf('\n', position);
+                if (nextNewline < 0) {
+                    nextNewline = text.length();
+                }
+            }
+            if (nextNewline >= end) {
+                addRun(end - position, style);
+                position = end;
+            }
+            else {
+                addRun(nextNewline - position, style);
+                endParagraph();
+                position = nextNewline + 1;
+            }
+        }
+    }
+
+    /**
+     * Adds a run to the current paragraph, merging it with the last run if they have the same style
+     */
+    private void addRun(int length, int style) {
+        if (length == 0) {
+            return;
+        }
+        if (numRuns > 0 && runs[numRuns - 1] == style) {
+            runs[numRuns - 2] += length;
+            return;
+        }
+        if (numRuns == runs.length) {
+            runs = Arrays.copyOf(runs, runs.length * 2);
+        }
+        runs[numRuns++] = length;
+        runs[numRuns++] = style;
+    }
+
+    private void endParagraph() {
+        if (numParagraphs == paragraphs.length) {
+            paragraphs = Arrays.copyOf(paragraphs, paragraphs.length * 2);
+        }
+        paragraphs[numParagraphs++] = Arrays.copyOf(runs, numRuns);
+        numRuns = 0;
+    }
+
+    /**
+     * Styles the rest of the text and ends the last paragraph
+     *
+     * @return the runs of every paragraph
+     */
+    private int[][] finish() {
+        style(text.length(), NONE);
+        endParagraph();
+        return Arrays.copyOf(paragraphs, numParagraphs);
+    }
+}
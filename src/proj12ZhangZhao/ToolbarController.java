@@ -26,7 +26,7 @@
 
 package proj12ZhangZhao;
 
-import javafx.application.Platform;
+import javafx.scene.control.Tab;
 import proj12ZhangZhao.bantam.ast.Program;
 import proj12ZhangZhao.bantam.parser.Parser;
 import proj12ZhangZhao.bantam.semant.*;
@@ -35,13 +35,15 @@ import proj12ZhangZhao.bantam.util.ClassTreeNode;
 import proj12ZhangZhao.bantam.util.CompilationException;
 import proj12ZhangZhao.bantam.util.ErrorHandler;
 import proj12ZhangZhao.bantam.util.Error;
+import proj12ZhangZhao.bantam.util.ErrorListener;
+import proj12ZhangZhao.bantam.lexer.IncrementalScanner;
 import proj12ZhangZhao.bantam.lexer.Scanner;
 import proj12ZhangZhao.bantam.lexer.Token;
-import proj12ZhangZhao.proj12.SemanticAnalyzer;
+import proj12ZhangZhao.proj12.AnalysisSession;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Hashtable;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 
@@ -62,17 +64,23 @@ public class ToolbarController {
     private boolean parseIsDone;
     private Console console;
     private CodeTabPane codeTabPane;
+    private AnalysisScheduler analysisScheduler;
     private String tokenString;
     private Integer errorCounter = 0;
+    // the errors of the latest scan or parse under each scheduler key, written
+    // to the console while the task runs; only used on the FX thread
+    private Map<Object, ErrorStream> errorStreams = new HashMap<>();
 
     /**
      * This is the constructor of ToolbarController.
      * @param console the console
      * @param codeTabPane the tab pane
+     * @param analysisScheduler runs the scans and parses in the background
      */
-    public ToolbarController(Console console, CodeTabPane codeTabPane){
+    public ToolbarController(Console console, CodeTabPane codeTabPane, AnalysisScheduler analysisScheduler){
         this.console = console;
         this.codeTabPane = codeTabPane;
+        this.analysisScheduler = analysisScheduler;
         this.scanIsDone = true;
         this.parseIsDone = true;
     }
@@ -94,101 +102,70 @@ public class ToolbarController {
      */
     public void handleScan(){
         this.scanIsDone = false;
-        //declare a new thread and assign it with the work of scanning the current tab
-        new Thread(()-> {
-            ScanTask scanTask = new ScanTask();
-            FutureTask<String> curFutureTask = new FutureTask<>(scanTask);
-            ExecutorService curExecutor = Executors.newFixedThreadPool(1);
-            curExecutor.execute(curFutureTask);
-        }).start();
+        // if the tab is saved, its code area already holds the tokens of the file,
+        // so copy them here on the FX thread instead of scanning the file again
+        IncrementalScanner tokens = null;
+        Tab curTab = this.codeTabPane.getSelectionModel().getSelectedItem();
+        if(curTab != null && this.codeTabPane.getSaveStatus(curTab)
+                && this.codeTabPane.getCodeArea() instanceof JavaCodeArea){
+            tokens = ((JavaCodeArea) this.codeTabPane.getCodeArea()).getIncrementalScanner().copy();
+        }
+        //scan the current tab in the background, replacing a scan of the tab still running
+        ErrorStream errorStream = this.openErrorStream(Arrays.asList(curTab, "scan"));
+        ScanTask scanTask = new ScanTask(this.codeTabPane.getFileName(), tokens, errorStream);
+        this.analysisScheduler.submit(errorStream.key, scanTask, scanTask::showResult,
+                error -> {
+                    this.closeErrorStream(errorStream);
+                    this.console.writeToConsole("Scanning failed \n", "Error");
+                    this.scanIsDone = true;
+                });
     }
 
     /**
-     * creates a new finder thread for parsing the AST.
+     * parses the current file in the background.
      * Once AST is parsed, checks the type of finder and then passes the AST to the correct one.
      * default case draws the AST
      * @param method type of finder being executed
      */
     public void handleParsing(String method){
         this.parseIsDone = false;
-        new Thread (()->{
-            ParseTask parseTask = new ParseTask();
-            FutureTask<Program> curFutureTask = new FutureTask<Program>(parseTask);
-            ExecutorService curExecutor = Executors.newFixedThreadPool(1);
-            curExecutor.execute(curFutureTask);
-            try{
-                Program AST = curFutureTask.get();
-                if(AST != null){
-                    switch(method){
-
-                        //scan, parse, and check button clicked
-                        case "semanticCheck":
-                            ErrorHandler errorHandler = new ErrorHandler();
-                            SemanticAnalyzer semantAnalyzer = new SemanticAnalyzer(errorHandler);
-                            ClassTreeNode root = semantAnalyzer.analyze(AST);
-                            Hashtable<String, ClassTreeNode> map = semantAnalyzer.getClassMap();
-                            //Useful debugging code, but it crashes if there's a cycle
-                            /*map.forEach( (nodeName, node) -> {
-
-                                Platform.runLater(()->this.console.writeToConsole(
-                                        "The name is " + nodeName + "\n",
-                                        "Output"));
-                                if(!nodeName.equals("Object")) {
-                                    Platform.runLater(() -> this.console.writeToConsole(
-                                            "Parent is " + node.getParent().getName() + "\n",
-                                            "Output"));
-                                }
-                                if(node.getNumDescendants() > 0) {
-                                    Iterator<ClassTreeNode> childrenIt = node.getChildrenList();
-                                    while (childrenIt.hasNext()) {
-                                        ClassTreeNode child = childrenIt.next();
-                                        Platform.runLater(() -> this.console.writeToConsole(
-                                                "One child of " + nodeName + " is " + child.getName() + "\n",
-                                                "Output"));
-                                    }
-                                }
-                                else{
-                                    Platform.runLater(() -> this.console.writeToConsole(
-                                            "No children" + "\n",
-                                            "Output"));
-                                }
-
-                            });*/
-
-
-
-
-
-                            Platform.runLater(()-> {
-                                ToolbarController.this.console.writeToConsole("Semantic Analysis Failed\n","Error");
-                                ToolbarController.this.console.writeToConsole("There were: " +
-                                        errorHandler.getErrorList().size() + " semantic errors in " +
-                                        ToolbarController.this.codeTabPane.getFileName() + "\n", "Output");
+        Tab curTab = this.codeTabPane.getSelectionModel().getSelectedItem();
+        ErrorStream errorStream = this.openErrorStream(Arrays.asList(curTab, "parse"));
+        // the analysis session lives on the tab, so it is dropped when the tab is closed
+        AnalysisSession session = curTab instanceof CodeTab
+                ? ((CodeTab) curTab).getAnalysisSession() : new AnalysisSession();
+        ParseTask parseTask = new ParseTask(this.codeTabPane.getFileName(), method, session, errorStream);
+        this.analysisScheduler.submit(errorStream.key, parseTask, parseTask::showResult,
+                error -> {
+                    this.closeErrorStream(errorStream);
+                    this.console.writeToConsole("Parsing failed \n", "Error");
+                    this.parseIsDone = true;
+                });
+    }
 
-                                if (errorHandler.errorsFound()) {
-                                    List<Error> errorList = errorHandler.getErrorList();
-                                    Iterator<Error> errorIterator = errorList.iterator();
-                                    ToolbarController.this.console.writeToConsole("\n", "Error");
-                                    while (errorIterator.hasNext()) {
-                                        ToolbarController.this.console.writeToConsole(errorIterator.next().toString() +
-                                                "\n", "Error");
-                                    }
-                                }
-                            });
-                            break;
+    /**
+     * Starts writing the errors of a new task to the console as they are registered.
+     * The errors of the task submitted earlier under the same key are no longer written,
+     * since the scheduler drops that task.
+     * @param key the key the task is submitted under
+     * @return the stream to register the errors of the task with
+     */
+    private ErrorStream openErrorStream(Object key){
+        ErrorStream errorStream = new ErrorStream(key);
+        ErrorStream replaced = this.errorStreams.put(key, errorStream);
+        if(replaced != null){
+            replaced.open = false;
+        }
+        return errorStream;
+    }
 
-                        //scan and parse clicked, build AST image
-                        default:
-                            Drawer drawer = new Drawer();
-                            drawer.draw(this.codeTabPane.getFileName(),AST);
-                            break;
-                    }
-                }
-                this.parseIsDone = true;
-            }catch(InterruptedException| ExecutionException e){
-                Platform.runLater(()-> this.console.writeToConsole("Parsing failed \n", "Error"));
-            }
-        }).start();
+    /**
+     * Stops writing the errors of a finished task
+     * @param errorStream the stream of the finished task
+     */
+    private void closeErrorStream(ErrorStream errorStream){
+        errorStream.open = false;
+        this.errorStreams.remove(errorStream.key, errorStream);
     }
 
     /**
@@ -208,87 +185,237 @@ public class ToolbarController {
     }
 
     /**
-     * An inner class used to parse a file in a separate thread.
+     * An inner class used to parse a file in a separate thread,
+     * and to check it or draw its AST afterwards.
      * Prints error info to the console
      */
-    private class ParseTask implements Callable{
+    private class ParseTask implements Callable<Program>{
+        private String filename;
+        private String method;
+        private AnalysisSession session;
+        private ErrorHandler errorHandler = new ErrorHandler();
+        private ErrorHandler semanticErrorHandler;
+        private ErrorStream errorStream;
+
+        /**
+         * @param filename the file to parse
+         * @param method type of finder to run on the AST
+         * @param session the analysis session of the file's tab
+         * @param errorStream writes the errors to the console as they are found
+         */
+        private ParseTask(String filename, String method, AnalysisSession session, ErrorStream errorStream){
+            this.filename = filename;
+            this.method = method;
+            this.session = session;
+            this.errorStream = errorStream;
+            this.errorHandler.addErrorListener(errorStream);
+        }
 
         /**
-         * Create a Parser and use it to create an AST
-         * @return AST tree created by a parser
+         * Create a Parser and use it to create an AST, then run the semantic analyzer on it
+         * if the semantic check was asked for.  The parser recovers from syntax errors,
+         * so all of them are reported at once.  The analysis session of the file's tab keeps the
+         * results of the last check, so only the classes that changed are checked again.
+         * @return AST tree created by a parser, or null if parsing failed
          */
         @Override
         public Program call(){
-            ErrorHandler errorHandler = new ErrorHandler();
-            Parser parser = new Parser(errorHandler);
-            String filename = ToolbarController.this.codeTabPane.getFileName();
-            Program AST = null;
+            Parser parser = new Parser(this.errorHandler);
+            parser.setErrorRecovery(true);
+            Program AST;
             try{
-                AST = parser.parse(filename);
-                Platform.runLater(()->ToolbarController.this.console.writeToConsole(
-                        "Parsing Successful.\n", "Output"));
+                AST = parser.parse(this.filename);
             }
             catch (CompilationException e){
-                Platform.runLater(()-> {
-                    ToolbarController.this.console.writeToConsole("Parsing Failed\n","Error");
-                    ToolbarController.this.console.writeToConsole("There were: " +
-                            errorHandler.getErrorList().size() + " errors in " +
-                            ToolbarController.this.codeTabPane.getFileName() + "\n", "Output");
+                return null;
+            }
+            if(this.errorHandler.errorsFound()){
+                return null;
+            }
+            if(this.method.equals("semanticCheck")){
+                this.semanticErrorHandler = new ErrorHandler();
+                this.semanticErrorHandler.addErrorListener(this.errorStream);
+                ClassTreeNode root = this.session.analyze(AST, this.semanticErrorHandler);
+                Hashtable<String, ClassTreeNode> map = this.session.getClassMap();
+                //Useful debugging code, but it crashes if there's a cycle
+                /*map.forEach( (nodeName, node) -> {
 
-                    if (errorHandler.errorsFound()) {
-                        List<Error> errorList = errorHandler.getErrorList();
-                        Iterator<Error> errorIterator = errorList.iterator();
-                        ToolbarController.this.console.writeToConsole("\n", "Error");
-                        while (errorIterator.hasNext()) {
-                            ToolbarController.this.console.writeToConsole(errorIterator.next().toString() +
-                                    "\n", "Error");
+                    Platform.runLater(()->this.console.writeToConsole(
+                            "The name is " + nodeName + "\n",
+                            "Output"));
+                    if(!nodeName.equals("Object")) {
+                        Platform.runLater(() -> this.console.writeToConsole(
+                                "Parent is " + node.getParent().getName() + "\n",
+                                "Output"));
+                    }
+                    if(node.getNumDescendants() > 0) {
+                        Iterator<ClassTreeNode> childrenIt = node.getChildrenList();
+                        while (childrenIt.hasNext()) {
+                            ClassTreeNode child = childrenIt.next();
+                            Platform.runLater(() -> this.console.writeToConsole(
+                                    "One child of " + nodeName + " is " + child.getName() + "\n",
+                                    "Output"));
                         }
                     }
-                });
+                    else{
+                        Platform.runLater(() -> this.console.writeToConsole(
+                                "No children" + "\n",
+                                "Output"));
+                    }
+
+                });*/
             }
             return AST;
         }
+
+        /**
+         * Prints the results to the console, or draws the AST, on the FX thread.
+         * The errors themselves have been written while the file was parsed and checked.
+         * @param AST the AST returned by call
+         */
+        private void showResult(Program AST){
+            Console console = ToolbarController.this.console;
+            ToolbarController.this.closeErrorStream(this.errorStream);
+            if(AST == null){
+                console.writeToConsole("Parsing Failed\n","Error");
+                this.writeErrors("errors", this.errorHandler);
+            }
+            else{
+                console.writeToConsole("Parsing Successful.\n", "Output");
+                switch(this.method){
+
+                    //scan, parse, and check button clicked
+                    case "semanticCheck":
+                        console.writeToConsole("Semantic Analysis Failed\n","Error");
+                        this.writeErrors("semantic errors", this.semanticErrorHandler);
+                        break;
+
+                    //scan and parse clicked, build AST image
+                    default:
+                        Drawer drawer = new Drawer();
+                        drawer.draw(this.filename,AST);
+                        break;
+                }
+            }
+            ToolbarController.this.parseIsDone = true;
+        }
+
+        /**
+         * Writes the number of errors found to the console
+         * @param description what the errors are called in the count
+         * @param errorHandler the errors
+         */
+        private void writeErrors(String description, ErrorHandler errorHandler){
+            ToolbarController.this.writeErrorCount(description, this.filename, errorHandler);
+        }
     }
 
     /**
      * A private inner class used to scan a file in a separate thread
      * Print error messages to the console and write tokens in a new tab
      */
-    private class ScanTask implements Callable {
+    private class ScanTask implements Callable<String> {
+        private String filename;
+        private IncrementalScanner tokens;
+        private ErrorHandler errorHandler = new ErrorHandler();
+        private ErrorStream errorStream;
+
+        /**
+         * @param filename the file to scan
+         * @param tokens the tokens of the current tab, or null if the file must be scanned
+         * @param errorStream writes the errors to the console as they are found
+         */
+        private ScanTask(String filename, IncrementalScanner tokens, ErrorStream errorStream){
+            this.filename = filename;
+            this.tokens = tokens;
+            this.errorStream = errorStream;
+            this.errorHandler.addErrorListener(errorStream);
+        }
+
         /**
          * Start the process by creating a scanner and use it to scan the file
          * @return a result string containing information about all the tokens
          */
         @Override
         public String call(){
-            ErrorHandler errorHandler = new ErrorHandler();
-            Scanner scanner = new Scanner(ToolbarController.this.codeTabPane.getFileName(), errorHandler);
-            Token token = scanner.scan();
             StringBuilder tokenString = new StringBuilder();
-
-            while(token.kind != Token.Kind.EOF){
-                tokenString.append(token.toString() + "\n");
-                token = scanner.scan();
+            if(this.tokens != null){
+                // the last token is EOF
+                for(int i = 0; i < this.tokens.size() - 1; i++){
+                    tokenString.append(this.tokens.getToken(i).toString() + "\n");
+                }
+                for(Error error : this.tokens.getErrors(this.filename)){
+                    this.errorHandler.register(error.getKind(), error.getFilename(),
+                            error.getLineNum(), error.getMessage());
+                }
             }
-            String resultString = tokenString.toString();
-            Platform.runLater(()-> {
-                ToolbarController.this.console.writeToConsole("There were: " +
-                        errorHandler.getErrorList().size() + " errors in " +
-                        ToolbarController.this.codeTabPane.getFileName() + "\n","Output");
-                if(errorHandler.errorsFound()){
-                    List<Error> errorList= errorHandler.getErrorList();
-                    Iterator<Error> errorIterator = errorList.iterator();
-                    ToolbarController.this.console.writeToConsole("\n","Error");
+            else{
+                Scanner scanner = new Scanner(this.filename, this.errorHandler);
+                Token token = scanner.scan();
 
-                    while(errorIterator.hasNext()){
-                        ToolbarController.this.console.writeToConsole(
-                                errorIterator.next().toString() + "\n","Error");
-                    }
+                while(token.kind != Token.Kind.EOF){
+                    tokenString.append(token.toString() + "\n");
+                    token = scanner.scan();
                 }
-                ToolbarController.this.codeTabPane.createTabWithContent(resultString);
-                ToolbarController.this.scanIsDone = true;
-            });
+            }
             return tokenString.toString();
         }
+
+        /**
+         * Prints the number of errors to the console and writes the tokens in a new tab,
+         * on the FX thread.  The errors themselves have been written during the scan.
+         * @param resultString the tokens returned by call
+         */
+        private void showResult(String resultString){
+            ToolbarController.this.closeErrorStream(this.errorStream);
+            ToolbarController.this.writeErrorCount("errors", this.filename, this.errorHandler);
+            ToolbarController.this.codeTabPane.createTabWithContent(resultString);
+            ToolbarController.this.scanIsDone = true;
+        }
+    }
+
+    /**
+     * Writes the number of errors found in a file to the console, and how many
+     * of them were not kept and so not shown
+     * @param description what the errors are called in the count
+     * @param filename the file
+     * @param errorHandler the errors
+     */
+    private void writeErrorCount(String description, String filename, ErrorHandler errorHandler){
+        this.console.writeToConsole("There were: " +
+                (errorHandler.getNumErrors() + errorHandler.getNumSuppressed()) + " " +
+                description + " in " + filename + "\n", "Output");
+        if(errorHandler.getNumSuppressed() > 0){
+            this.console.writeToConsole(errorHandler.getNumSuppressed() +
+                    " more errors were not shown\n", "Output");
+        }
+    }
+
+    /**
+     * The errors of one scan or parse, written to the console by the task's
+     * thread as they are registered.  The console appends them once per frame.
+     */
+    private class ErrorStream implements ErrorListener {
+        private final Object key;
+        // false once the task has finished or been replaced
+        private volatile boolean open = true;
+
+        /**
+         * @param key the scheduler key of the task
+         */
+        private ErrorStream(Object key){
+            this.key = key;
+        }
+
+        /**
+         * Writes an error to the console, unless the task was replaced
+         * @param error the error just registered
+         */
+        @Override
+        public void errorRegistered(Error error){
+            if(this.open){
+                ToolbarController.this.console.writeToConsole(error.toString() + "\n", "Error");
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -26,6 +26,7 @@
 
 package proj12ZhangZhao.bantam.ast;
 
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
 
@@ -51,6 +52,16 @@ public class ArrayAssignExpr extends Expr {
      */
     protected String name;
 
+    /**
+     * The interned reference name, or null if there is none
+     */
+    protected Symbol refNameSymbol;
+
+    /**
+     * The interned name of the lefthand variable
+     */
+    protected Symbol nameSymbol;
+
     /**
      * The index expression
      */
@@ -71,9 +82,24 @@ public class ArrayAssignExpr extends Expr {
      * @param expr    righthand expression for assigning to the lefthand variable
      */
     public ArrayAssignExpr(int lineNum, String refName, String name, Expr index, Expr expr) {
+        this(lineNum, refName == null ? null : Symbol.intern(refName), Symbol.intern(name), index, expr);
+    }
+
+    /**
+     * ArrayAssignExpr constructor
+     *
+     * @param lineNum source line number corresponding to this AST node
+     * @param refName the optional interned reference name
+     * @param name    the interned name of the lefthand variable
+     * @param index   index expression
+     * @param expr    righthand expression for assigning to the lefthand variable
+     */
+    public ArrayAssignExpr(int lineNum, Symbol refName, Symbol name, Expr index, Expr expr) {
         super(lineNum);
-        this.refName = refName;
-        this.name = name;
+        this.refName = refName == null ? null : refName.getName();
+        this.name = name.getName();
+        this.refNameSymbol = refName;
+        this.nameSymbol = name;
         this.index = index;
         this.expr = expr;
     }
@@ -96,6 +122,24 @@ public class ArrayAssignExpr extends Expr {
         return name;
     }
 
+    /**
+     * Get the interned reference name
+     *
+     * @return reference name symbol, or null if there is none
+     */
+    public Symbol getRefNameSymbol() {
+        return refNameSymbol;
+    }
+
+    /**
+     * Get the interned lefthand variable name
+     *
+     * @return lefthand variable name symbol
+     */
+    public Symbol getNameSymbol() {
+        return nameSymbol;
+    }
+
     /**
      * Get the index expression
      *
@@ -26,6 +26,7 @@
 
 package proj12ZhangZhao.bantam.ast;
 
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
 
@@ -50,6 +51,11 @@ public class ArrayExpr extends Expr {
      */
     protected String name;
 
+    /**
+     * The interned name of the variable, or null if there is none
+     */
+    protected Symbol nameSymbol;
+
     /**
      * The index expression
      */
@@ -64,9 +70,22 @@ public class ArrayExpr extends Expr {
      * @param index   the index expression
      */
     public ArrayExpr(int lineNum, Expr ref, String name, Expr index) {
+        this(lineNum, ref, name == null ? null : Symbol.intern(name), index);
+    }
+
+    /**
+     * ArrayExpr constructor
+     *
+     * @param lineNum source line number corresponding to this AST node
+     * @param ref     the optional reference object (must be 'this' or 'super')
+     * @param name    the interned name of the variable
+     * @param index   the index expression
+     */
+    public ArrayExpr(int lineNum, Expr ref, Symbol name, Expr index) {
         super(lineNum);
         this.ref = ref;
-        this.name = name;
+        this.name = name == null ? null : name.getName();
+        this.nameSymbol = name;
         this.index = index;
     }
 
@@ -89,6 +108,15 @@ public class ArrayExpr extends Expr {
         return name;
     }
 
+    /**
+     * Get the interned name of the variable
+     *
+     * @return name symbol
+     */
+    public Symbol getNameSymbol() {
+        return nameSymbol;
+    }
+
     /**
      * Get the index expression
      *
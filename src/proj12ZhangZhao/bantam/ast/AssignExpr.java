@@ -26,6 +26,7 @@
 
 package proj12ZhangZhao.bantam.ast;
 
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
 
@@ -50,6 +51,16 @@ public class AssignExpr extends Expr {
      */
     protected String name;
 
+    /**
+     * The interned reference name, or null if there is none
+     */
+    protected Symbol refNameSymbol;
+
+    /**
+     * The interned name of the lefthand variable
+     */
+    protected Symbol nameSymbol;
+
     /**
      * The righthand expression for assigning to the lefthand variable
      */
@@ -64,9 +75,23 @@ public class AssignExpr extends Expr {
      * @param expr    righthand expression for assigning to the lefthand variable
      */
     public AssignExpr(int lineNum, String refName, String name, Expr expr) {
+        this(lineNum, refName == null ? null : Symbol.intern(refName), Symbol.intern(name), expr);
+    }
+
+    /**
+     * AssignExpr constructor
+     *
+     * @param lineNum source line number corresponding to this AST node
+     * @param refName the optional interned reference name
+     * @param name    the interned name of the lefthand variable
+     * @param expr    righthand expression for assigning to the lefthand variable
+     */
+    public AssignExpr(int lineNum, Symbol refName, Symbol name, Expr expr) {
         super(lineNum);
-        this.refName = refName;
-        this.name = name;
+        this.refName = refName == null ? null : refName.getName();
+        this.name = name.getName();
+        this.refNameSymbol = refName;
+        this.nameSymbol = name;
         this.expr = expr;
     }
 
@@ -88,6 +113,24 @@ public class AssignExpr extends Expr {
         return name;
     }
 
+    /**
+     * Get the interned reference name
+     *
+     * @return reference name symbol, or null if there is none
+     */
+    public Symbol getRefNameSymbol() {
+        return refNameSymbol;
+    }
+
+    /**
+     * Get the interned lefthand variable name
+     *
+     * @return lefthand variable name symbol
+     */
+    public Symbol getNameSymbol() {
+        return nameSymbol;
+    }
+
     /**
      * Get the righthand expression of the assignment
      *
@@ -26,6 +26,7 @@
 
 package proj12ZhangZhao.bantam.ast;
 
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
 /**
@@ -53,11 +54,26 @@ public class Class_ extends ASTNode {
      */
     protected String parent;
 
+    /**
+     * The interned name of this class
+     */
+    protected Symbol nameSymbol;
+
+    /**
+     * The interned name of the parent of this class (null if there is no extends clause)
+     */
+    protected Symbol parentSymbol;
+
     /**
      * List of the class members
      */
     protected MemberList memberList;
 
+    /**
+     * A hash of the tokens of this class set by the parser (0 if not known)
+     */
+    protected long sourceHash;
+
     /**
      * Class_ constructor
      *
@@ -68,10 +84,26 @@ public class Class_ extends ASTNode {
      * @param memberList a list of the class members
      */
     public Class_(int lineNum, String filename, String name, String parent, MemberList memberList) {
+        this(lineNum, filename, Symbol.intern(name),
+                parent == null ? null : Symbol.intern(parent), memberList);
+    }
+
+    /**
+     * Class_ constructor
+     *
+     * @param lineNum    source line number corresponding to this AST node
+     * @param filename   the filename of the file containing this class
+     * @param name       the interned name of this class
+     * @param parent     the interned name of the parent of this class (may be null)
+     * @param memberList a list of the class members
+     */
+    public Class_(int lineNum, String filename, Symbol name, Symbol parent, MemberList memberList) {
         super(lineNum);
         this.filename = filename;
-        this.name = name;
-        this.parent = parent;
+        this.name = name.getName();
+        this.parent = parent == null ? null : parent.getName();
+        this.nameSymbol = name;
+        this.parentSymbol = parent;
         this.memberList = memberList;
     }
 
@@ -102,6 +134,24 @@ public class Class_ extends ASTNode {
         return parent;
     }
 
+    /**
+     * Get the interned name of this class
+     *
+     * @return class name symbol
+     */
+    public Symbol getNameSymbol() {
+        return nameSymbol;
+    }
+
+    /**
+     * Get the interned name of the parent of this class
+     *
+     * @return name symbol of parent class, or null if there is no extends clause
+     */
+    public Symbol getParentSymbol() {
+        return parentSymbol;
+    }
+
     /**
      * Get list of members that this class contains
      *
@@ -111,6 +161,25 @@ public class Class_ extends ASTNode {
         return memberList;
     }
 
+    /**
+     * Get the hash of the tokens of this class, which does not depend on the
+     * line the class starts on
+     *
+     * @return the hash, or 0 if the class was not made by the parser
+     */
+    public long getSourceHash() {
+        return sourceHash;
+    }
+
+    /**
+     * Set the hash of the tokens of this class
+     *
+     * @param sourceHash the hash of the tokens
+     */
+    public void setSourceHash(long sourceHash) {
+        this.sourceHash = sourceHash;
+    }
+
     /**
      * Visitor method
      *
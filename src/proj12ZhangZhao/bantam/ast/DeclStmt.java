@@ -26,6 +26,7 @@
 
 package proj12ZhangZhao.bantam.ast;
 
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
 
@@ -49,6 +50,11 @@ public class DeclStmt extends Stmt {
      */
     protected String name;
 
+    /**
+     * The interned name of the variable being declared
+     */
+    protected Symbol nameSymbol;
+
     /**
      * The (non-optional) initialization expression for the variable being declared
      */
@@ -62,9 +68,21 @@ public class DeclStmt extends Stmt {
      * @param init    the (non-optional) initialization expression for the declared variable
      */
     public DeclStmt(int lineNum, String name, Expr init) {
+        this(lineNum, Symbol.intern(name), init);
+    }
+
+    /**
+     * DeclStmt constructor
+     *
+     * @param lineNum source line number corresponding to this AST node
+     * @param name    the interned name of the variable being declared
+     * @param init    the (non-optional) initialization expression for the declared variable
+     */
+    public DeclStmt(int lineNum, Symbol name, Expr init) {
         super(lineNum);
         this.type = null;
-        this.name = name;
+        this.name = name.getName();
+        this.nameSymbol = name;
         this.init = init;
     }
 
@@ -87,6 +105,15 @@ public class DeclStmt extends Stmt {
         return name;
     }
 
+    /**
+     * Get the interned name of the declared variable
+     *
+     * @return declared variable name symbol
+     */
+    public Symbol getNameSymbol() {
+        return nameSymbol;
+    }
+
     /**
      * Get the initialization expression for the declared variable
      *
@@ -26,6 +26,7 @@
 
 package proj12ZhangZhao.bantam.ast;
 
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
 /**
@@ -48,6 +49,11 @@ public class DispatchExpr extends Expr {
      */
     protected String methodName;
 
+    /**
+     * The interned name of the method
+     */
+    protected Symbol methodNameSymbol;
+
     /**
      * The list of actual parameter expressions
      */
@@ -63,9 +69,23 @@ public class DispatchExpr extends Expr {
      */
     public DispatchExpr(int lineNum, Expr refExpr,
                         String methodName, ExprList actualList) {
+        this(lineNum, refExpr, Symbol.intern(methodName), actualList);
+    }
+
+    /**
+     * DispatchExpr constructor
+     *
+     * @param lineNum    source line number corresponding to this AST node
+     * @param refExpr    reference expression (produces the object to dispatch on)
+     * @param methodName the interned name of the method
+     * @param actualList list of actual parameter expressions
+     */
+    public DispatchExpr(int lineNum, Expr refExpr,
+                        Symbol methodName, ExprList actualList) {
         super(lineNum);
         this.refExpr = refExpr;
-        this.methodName = methodName;
+        this.methodName = methodName.getName();
+        this.methodNameSymbol = methodName;
         this.actualList = actualList;
     }
 
@@ -87,6 +107,15 @@ public class DispatchExpr extends Expr {
         return methodName;
     }
 
+    /**
+     * Get the interned method name
+     *
+     * @return method name symbol
+     */
+    public Symbol getMethodNameSymbol() {
+        return methodNameSymbol;
+    }
+
     /**
      * Get the list of actual parameter expressions
      *
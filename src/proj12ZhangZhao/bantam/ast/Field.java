@@ -26,6 +26,7 @@
 
 package proj12ZhangZhao.bantam.ast;
 
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
 
@@ -47,6 +48,11 @@ public class Field extends Member {
      */
     protected String name;
 
+    /**
+     * The interned name of the field (instance variable)
+     */
+    protected Symbol nameSymbol;
+
     /**
      * The (optional) initialization expression for the field (instance variable)
      */
@@ -61,9 +67,22 @@ public class Field extends Member {
      * @param init    the (optional) initialization expression for the field (instance variable)
      */
     public Field(int lineNum, String type, String name, Expr init) {
+        this(lineNum, type, Symbol.intern(name), init);
+    }
+
+    /**
+     * Field constructor
+     *
+     * @param lineNum source line number corresponding to this AST node
+     * @param type    the type of the field (instance variable)
+     * @param name    the interned name of the field (instance variable)
+     * @param init    the (optional) initialization expression for the field (instance variable)
+     */
+    public Field(int lineNum, String type, Symbol name, Expr init) {
         super(lineNum);
         this.type = type;
-        this.name = name;
+        this.name = name.getName();
+        this.nameSymbol = name;
         this.init = init;
     }
 
@@ -85,6 +104,15 @@ public class Field extends Member {
         return name;
     }
 
+    /**
+     * Get the interned name of the field
+     *
+     * @return field name symbol
+     */
+    public Symbol getNameSymbol() {
+        return nameSymbol;
+    }
+
     /**
      * Get the initialization expression of the field
      *
@@ -0,0 +1,892 @@
+/*
+ * File: FlatAst.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.ast;
+
+import proj12ZhangZhao.bantam.util.Symbol;
+import proj12ZhangZhao.bantam.visitor.Visitor;
+
+import java.util.Arrays;
+
+/**
+ * An AST kept in primitive arrays instead of one object per node, for very
+ * large programs.  Node n is described by the n-th entry of each array: its
+ * kind, line, symbols, expression type and the range of its children in a
+ * shared array of child indices.  An absent child, such as a missing else
+ * statement, is NONE.  Nodes are numbered in preorder, so the nodes of a
+ * subtree are numbered consecutively from its root.
+ *
+ * Names, types and constants are kept as ids into a table of Symbols local
+ * to the FlatAst, so each distinct spelling is stored once.  The name and
+ * type of each kind of node are:
+ * <pre>
+ *   Class_                  name, type = parent, expression type = filename
+ *   Field, Method, Formal   name, type = declared or return type
+ *   DeclStmt                name, type = the type of the local variable
+ *   VarExpr, ArrayExpr      name
+ *   AssignExpr, ArrayAssignExpr  name, type = the name of the reference (this or super)
+ *   DispatchExpr            name = method name
+ *   ConstExpr               name = the constant
+ *   NewExpr, NewArrayExpr, CastExpr, InstanceofExpr  type
+ * </pre>
+ * The flags are the postfix flag of ++ and --, the upcast flag of a cast and
+ * the upcheck flag of instanceof.
+ *
+ * Existing visitors run over a FlatAst through <tt>accept</tt>, which builds
+ * ordinary nodes for a subtree, visits them, and copies the expression types
+ * and other results of the visit back into the arrays.
+ *
+ * @see ASTNode
+ */
+public class FlatAst {
+    /**
+     * The kinds of nodes, one for each concrete AST class
+     */
+    public enum Kind {
+        PROGRAM, CLASS_LIST, CLASS, MEMBER_LIST, FIELD, METHOD, ERROR_MEMBER,
+        FORMAL_LIST, FORMAL, STMT_LIST, DECL_STMT, EXPR_STMT, IF_STMT, WHILE_STMT,
+        FOR_STMT, BREAK_STMT, BLOCK_STMT, RETURN_STMT, ERROR_STMT, EXPR_LIST,
+        DISPATCH_EXPR, NEW_EXPR, NEW_ARRAY_EXPR, INSTANCEOF_EXPR, CAST_EXPR,
+        ASSIGN_EXPR, ARRAY_ASSIGN_EXPR, BINARY_COMP_EQ_EXPR, BINARY_COMP_NE_EXPR,
+        BINARY_COMP_LT_EXPR, BINARY_COMP_LEQ_EXPR, BINARY_COMP_GT_EXPR,
+        BINARY_COMP_GEQ_EXPR, BINARY_ARITH_PLUS_EXPR, BINARY_ARITH_MINUS_EXPR,
+        BINARY_ARITH_TIMES_EXPR, BINARY_ARITH_DIVIDE_EXPR, BINARY_ARITH_MODULUS_EXPR,
+        BINARY_LOGIC_AND_EXPR, BINARY_LOGIC_OR_EXPR, UNARY_NEG_EXPR, UNARY_NOT_EXPR,
+        UNARY_INCR_EXPR, UNARY_DECR_EXPR, VAR_EXPR, ARRAY_EXPR, CONST_INT_EXPR,
+        CONST_BOOLEAN_EXPR, CONST_STRING_EXPR
+    }
+
+    /**
+     * The index of an absent child, and the id of an absent symbol
+     */
+    public static final int NONE = -1;
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final byte POSTFIX = 1;
+    private static final byte UPCAST = 2;
+    private static final byte UPCHECK = 4;
+
+    // the nodes
+    private int numNodes;
+    private byte[] kinds = new byte[256];
+    private byte[] flags = new byte[256];
+    private int[] lines = new int[256];
+    private int[] names = new int[256];
+    private int[] types = new int[256];
+    private int[] exprTypes = new int[256];
+    // where each node's children start; they end where the next node's start,
+    // since the children are added in the same order as the nodes
+    private int[] firstChildren = new int[257];
+
+    // the children of all the nodes, each node's together
+    private int[] children = new int[256];
+    private int childrenSize;
+
+    // the symbols, and a hash table of their local ids + 1 by global id,
+    // with linear probing
+    private Symbol[] symbols = new Symbol[64];
+    private int numSymbols;
+    private int[] symbolSlots = new int[128];
+
+    private FlatAst() {
+    }
+
+    /**
+     * Builds the flat form of an AST
+     *
+     * @param root the root of the AST, usually a Program
+     * @return the flat AST, whose node 0 is the root
+     */
+    public static FlatAst of(ASTNode root) {
+        FlatAst ast = new FlatAst();
+        root.accept(ast.new Builder(Builder.BUILD, 0));
+        ast.trim();
+        return ast;
+    }
+
+    // ---------------------------------------------------------------------
+    // Reading the nodes
+    // ---------------------------------------------------------------------
+
+    /**
+     * @return the number of nodes
+     */
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    /**
+     * @return the kind of a node
+     */
+    public Kind getKind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    /**
+     * @return the source line number of a node
+     */
+    public int getLineNum(int node) {
+        return lines[node];
+    }
+
+    /**
+     * @return the number of children of a node, counting absent ones
+     */
+    public int getNumChildren(int node) {
+        return firstChildren[node + 1] - firstChildren[node];
+    }
+
+    /**
+     * @return the index-th child of a node, or NONE if it is absent
+     */
+    public int getChild(int node, int index) {
+        if (index >= getNumChildren(node)) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return children[firstChildren[node] + index];
+    }
+
+    /**
+     * @return the id of the name of a node, or NONE
+     */
+    public int getNameId(int node) {
+        return names[node];
+    }
+
+    /**
+     * @return the id of the type of a node, or NONE
+     */
+    public int getTypeId(int node) {
+        return types[node];
+    }
+
+    /**
+     * @return the id of the type of an expression, or NONE if it has not been checked
+     */
+    public int getExprTypeId(int node) {
+        return exprTypes[node];
+    }
+
+    /**
+     * @return the symbol with a local id, or null for NONE
+     */
+    public Symbol getSymbol(int id) {
+        return id == NONE ? null : symbols[id];
+    }
+
+    /**
+     * @return the number of distinct symbols in the AST
+     */
+    public int getNumSymbols() {
+        return numSymbols;
+    }
+
+    /**
+     * @return the bytes taken by the arrays of the AST, not counting the symbols themselves
+     */
+    public long getSizeInBytes() {
+        return 2L * kinds.length
+                + 4L * (5L * lines.length + firstChildren.length + children.length + symbolSlots.length)
+                + 4L * symbols.length;
+    }
+
+    // ---------------------------------------------------------------------
+    // Visiting
+    // ---------------------------------------------------------------------
+
+    /**
+     * Runs a visitor over the whole AST
+     *
+     * @param v the visitor
+     * @return the result of the visit
+     * @see #accept(int, Visitor)
+     */
+    public Object accept(Visitor v) {
+        return accept(0, v);
+    }
+
+    /**
+     * Runs a visitor over a subtree.  Ordinary nodes are built for the subtree
+     * and visited, then the expression types, local variable types and cast and
+     * instanceof flags set by the visitor are copied back into this AST.
+     *
+     * @param node the root of the subtree
+     * @param v    the visitor
+     * @return the result of the visit
+     */
+    public Object accept(int node, Visitor v) {
+        ASTNode root = toNode(node);
+        Object result = root.accept(v);
+        update(node, root);
+        return result;
+    }
+
+    /**
+     * Copies the expression types and other results of a visit back from
+     * ordinary nodes built with <tt>toNode</tt>
+     *
+     * @param node the root of the subtree the nodes were built for
+     * @param root the node built for it
+     */
+    public void update(int node, ASTNode root) {
+        root.accept(new Builder(Builder.UPDATE, node));
+    }
+
+    /**
+     * Copies the expression types, local variable types and cast and instanceof
+     * flags of a subtree onto ordinary nodes with the same structure and symbols,
+     * such as those of a new parse of a class that has not changed
+     *
+     * @param node the root of the subtree
+     * @param root the root of the ordinary nodes
+     */
+    public void annotate(int node, ASTNode root) {
+        root.accept(new Builder(Builder.ANNOTATE, node));
+    }
+
+    /**
+     * Builds ordinary nodes for a subtree
+     *
+     * @param node the root of the subtree
+     * @return the node built for the root, or null for NONE
+     */
+    public ASTNode toNode(int node) {
+        if (node == NONE) {
+            return null;
+        }
+        int line = lines[node];
+        switch (getKind(node)) {
+            case PROGRAM:
+                return new Program(line, (ClassList) toNode(getChild(node, 0)));
+            case CLASS_LIST:
+                return fillList(new ClassList(line), node);
+            case CLASS:
+                return new Class_(line, name(exprTypes[node]), getSymbol(names[node]),
+                        getSymbol(types[node]), (MemberList) toNode(getChild(node, 0)));
+            case MEMBER_LIST:
+                return fillList(new MemberList(line), node);
+            case FIELD:
+                return new Field(line, name(types[node]), getSymbol(names[node]),
+                        expr(node, 0));
+            case METHOD:
+                return new Method(line, name(types[node]), getSymbol(names[node]),
+                        (FormalList) toNode(getChild(node, 0)), (StmtList) toNode(getChild(node, 1)));
+            case ERROR_MEMBER:
+                return new ErrorMember(line);
+            case FORMAL_LIST:
+                return fillList(new FormalList(line), node);
+            case FORMAL:
+                return new Formal(line, name(types[node]), name(names[node]));
+            case STMT_LIST:
+                return fillList(new StmtList(line), node);
+            case DECL_STMT:
+                DeclStmt declStmt = new DeclStmt(line, getSymbol(names[node]), expr(node, 0));
+                declStmt.setType(name(types[node]));
+                return declStmt;
+            case EXPR_STMT:
+                return new ExprStmt(line, expr(node, 0));
+            case IF_STMT:
+                return new IfStmt(line, expr(node, 0), stmt(node, 1), stmt(node, 2));
+            case WHILE_STMT:
+                return new WhileStmt(line, expr(node, 0), stmt(node, 1));
+            case FOR_STMT:
+                return new ForStmt(line, expr(node, 0), expr(node, 1), expr(node, 2), stmt(node, 3));
+            case BREAK_STMT:
+                return new BreakStmt(line);
+            case BLOCK_STMT:
+                return new BlockStmt(line, (StmtList) toNode(getChild(node, 0)));
+            case RETURN_STMT:
+                return new ReturnStmt(line, expr(node, 0));
+            case ERROR_STMT:
+                return new ErrorStmt(line);
+            case EXPR_LIST:
+                return fillList(new ExprList(line), node);
+            default:
+                Expr expr = toExpr(node, line);
+                expr.setExprType(name(exprTypes[node]));
+                return expr;
+        }
+    }
+
+    /**
+     * Builds an ordinary node for an expression, without its type
+     */
+    private Expr toExpr(int node, int line) {
+        switch (getKind(node)) {
+            case DISPATCH_EXPR:
+                return new DispatchExpr(line, expr(node, 0), getSymbol(names[node]),
+                        (ExprList) toNode(getChild(node, 1)));
+            case NEW_EXPR:
+                return new NewExpr(line, name(types[node]));
+            case NEW_ARRAY_EXPR:
+                return new NewArrayExpr(line, name(types[node]), expr(node, 0));
+            case INSTANCEOF_EXPR:
+                InstanceofExpr instanceofExpr = new InstanceofExpr(line, expr(node, 0), name(types[node]));
+                instanceofExpr.setUpCheck((flags[node] & UPCHECK) != 0);
+                return instanceofExpr;
+            case CAST_EXPR:
+                CastExpr castExpr = new CastExpr(line, name(types[node]), expr(node, 0));
+                castExpr.setUpCast((flags[node] & UPCAST) != 0);
+                return castExpr;
+            case ASSIGN_EXPR:
+                return new AssignExpr(line, getSymbol(types[node]), getSymbol(names[node]), expr(node, 0));
+            case ARRAY_ASSIGN_EXPR:
+                return new ArrayAssignExpr(line, getSymbol(types[node]), getSymbol(names[node]),
+                        expr(node, 0), expr(node, 1));
+            case BINARY_COMP_EQ_EXPR:
+                return new BinaryCompEqExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_COMP_NE_EXPR:
+                return new BinaryCompNeExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_COMP_LT_EXPR:
+                return new BinaryCompLtExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_COMP_LEQ_EXPR:
+                return new BinaryCompLeqExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_COMP_GT_EXPR:
+                return new BinaryCompGtExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_COMP_GEQ_EXPR:
+                return new BinaryCompGeqExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_ARITH_PLUS_EXPR:
+                return new BinaryArithPlusExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_ARITH_MINUS_EXPR:
+                return new BinaryArithMinusExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_ARITH_TIMES_EXPR:
+                return new BinaryArithTimesExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_ARITH_DIVIDE_EXPR:
+                return new BinaryArithDivideExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_ARITH_MODULUS_EXPR:
+                return new BinaryArithModulusExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_LOGIC_AND_EXPR:
+                return new BinaryLogicAndExpr(line, expr(node, 0), expr(node, 1));
+            case BINARY_LOGIC_OR_EXPR:
+                return new BinaryLogicOrExpr(line, expr(node, 0), expr(node, 1));
+            case UNARY_NEG_EXPR:
+                return new UnaryNegExpr(line, expr(node, 0));
+            case UNARY_NOT_EXPR:
+                return new UnaryNotExpr(line, expr(node, 0));
+            case UNARY_INCR_EXPR:
+                return new UnaryIncrExpr(line, expr(node, 0), (flags[node] & POSTFIX) != 0);
+            case UNARY_DECR_EXPR:
+                return new UnaryDecrExpr(line, expr(node, 0), (flags[node] & POSTFIX) != 0);
+            case VAR_EXPR:
+                return new VarExpr(line, expr(node, 0), getSymbol(names[node]));
+            case ARRAY_EXPR:
+                return new ArrayExpr(line, expr(node, 0), getSymbol(names[node]), expr(node, 1));
+            case CONST_INT_EXPR:
+                return new ConstIntExpr(line, name(names[node]));
+            case CONST_BOOLEAN_EXPR:
+                return new ConstBooleanExpr(line, name(names[node]));
+            case CONST_STRING_EXPR:
+                return new ConstStringExpr(line, name(names[node]));
+            default:
+                throw new IllegalStateException("node " + node + " is not an expression");
+        }
+    }
+
+    /**
+     * Builds ordinary nodes for the declarations of a class only: its fields
+     * without their initial values, and its methods with their formal
+     * parameters and empty bodies.  That is all building the class tree and
+     * symbol tables needs, in a small part of the nodes of the whole class.
+     *
+     * @param node a Class_ node
+     * @return the Class_ node built for its declarations
+     */
+    public Class_ toDeclarations(int node) {
+        int memberList = getChild(node, 0);
+        int size = getNumChildren(memberList);
+        ASTNode[] members = new ASTNode[size];
+        for (int i = 0; i < size; i++) {
+            int member = getChild(memberList, i);
+            int line = lines[member];
+            switch (getKind(member)) {
+                case FIELD:
+                    members[i] = new Field(line, name(types[member]), getSymbol(names[member]), null);
+                    break;
+                case METHOD:
+                    members[i] = new Method(line, name(types[member]), getSymbol(names[member]),
+                            (FormalList) toNode(getChild(member, 0)),
+                            new StmtList(lines[getChild(member, 1)]));
+                    break;
+                default:
+                    members[i] = toNode(member);
+            }
+        }
+        MemberList memberNodes = (MemberList) new MemberList(lines[memberList]).addElements(members, 0, size);
+        return new Class_(lines[node], name(exprTypes[node]), getSymbol(names[node]),
+                getSymbol(types[node]), memberNodes);
+    }
+
+    private ListNode fillList(ListNode list, int node) {
+        int size = getNumChildren(node);
+        ASTNode[] elements = new ASTNode[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = toNode(children[firstChildren[node] + i]);
+        }
+        return list.addElements(elements, 0, size);
+    }
+
+    private Expr expr(int node, int index) {
+        return (Expr) toNode(getChild(node, index));
+    }
+
+    private Stmt stmt(int node, int index) {
+        return (Stmt) toNode(getChild(node, index));
+    }
+
+    private String name(int id) {
+        return id == NONE ? null : symbols[id].getName();
+    }
+
+    // ---------------------------------------------------------------------
+    // Building
+    // ---------------------------------------------------------------------
+
+    /**
+     * @return the local id of a symbol, adding it to the table the first time
+     */
+    private int symbolId(Symbol symbol) {
+        if (symbol == null) {
+            return NONE;
+        }
+        int globalId = symbol.getId();
+        int mask = symbolSlots.length - 1;
+        int slot = (globalId * 0x9E3779B9) >>> 7 & mask;
+        while (symbolSlots[slot] != 0) {
+            if (symbols[symbolSlots[slot] - 1] == symbol) {
+                return symbolSlots[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (numSymbols == symbols.length) {
+            symbols = Arrays.copyOf(symbols, Math.max(8, numSymbols * 2));
+        }
+        symbols[numSymbols++] = symbol;
+        symbolSlots[slot] = numSymbols;
+        if (numSymbols * 2 > symbolSlots.length) {
+            rehashSymbols();
+        }
+        return numSymbols - 1;
+    }
+
+    private void rehashSymbols() {
+        symbolSlots = new int[symbolSlots.length * 2];
+        int mask = symbolSlots.length - 1;
+        for (int id = 0; id < numSymbols; id++) {
+            int slot = (symbols[id].getId() * 0x9E3779B9) >>> 7 & mask;
+            while (symbolSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            symbolSlots[slot] = id + 1;
+        }
+    }
+
+    private int symbolId(String name) {
+        return name == null ? NONE : symbolId(Symbol.intern(name));
+    }
+
+    private void trim() {
+        kinds = Arrays.copyOf(kinds, numNodes);
+        flags = Arrays.copyOf(flags, numNodes);
+        lines = Arrays.copyOf(lines, numNodes);
+        names = Arrays.copyOf(names, numNodes);
+        types = Arrays.copyOf(types, numNodes);
+        exprTypes = Arrays.copyOf(exprTypes, numNodes);
+        firstChildren = Arrays.copyOf(firstChildren, numNodes + 1);
+        children = Arrays.copyOf(children, childrenSize);
+        symbols = Arrays.copyOf(symbols, numSymbols);
+    }
+
+    /**
+     * Walks ordinary nodes in preorder, either adding a flat node for each one,
+     * or, when updating, storing the symbols and flags of each one in the flat
+     * node with the same number, or, when annotating, copying the expression
+     * types and flags of the flat node with the same number onto each one
+     */
+    private class Builder extends Visitor {
+        static final int BUILD = 0;
+        static final int UPDATE = 1;
+        static final int ANNOTATE = 2;
+
+        private final int mode;
+        private int next;  // the number of the next node to add or update
+
+        Builder(int mode, int first) {
+            this.mode = mode;
+            this.next = first;
+        }
+
+        /**
+         * Adds or finds the flat node for an ordinary node, with room for its children
+         *
+         * @return the number of the flat node
+         */
+        private int node(Kind kind, ASTNode astNode, int childCount) {
+            int node = next++;
+            if (mode != BUILD) {
+                if (kinds[node] != kind.ordinal() || getNumChildren(node) != childCount) {
+                    throw new IllegalStateException("node " + node + " is not a " + kind);
+                }
+            }
+            else {
+                if (node == kinds.length) {
+                    grow();
+                }
+                kinds[node] = (byte) kind.ordinal();
+                lines[node] = astNode.getLineNum();
+                firstChildren[node] = childrenSize;
+                if (childrenSize + childCount > children.length) {
+                    children = Arrays.copyOf(children,
+                            Math.max(childrenSize + childCount, children.length * 2));
+                }
+                childrenSize += childCount;
+                firstChildren[node + 1] = childrenSize;
+                numNodes++;
+            }
+            if (mode == ANNOTATE) {
+                // the symbols are the same, so only the results of a visit are copied
+                if (astNode instanceof Expr) {
+                    ((Expr) astNode).setExprType(name(exprTypes[node]));
+                }
+                return node;
+            }
+            names[node] = NONE;
+            types[node] = NONE;
+            exprTypes[node] = astNode instanceof Expr
+                    ? symbolId(((Expr) astNode).getExprType()) : NONE;
+            flags[node] = 0;
+            return node;
+        }
+
+        private void grow() {
+            int capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            names = Arrays.copyOf(names, capacity);
+            types = Arrays.copyOf(types, capacity);
+            exprTypes = Arrays.copyOf(exprTypes, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity + 1);
+        }
+
+        /**
+         * Adds or updates the flat node of a child
+         */
+        private void child(int node, int index, ASTNode child) {
+            children[firstChildren[node] + index] = child == null ? NONE : next;
+            if (child != null) {
+                child.accept(this);
+            }
+        }
+
+        private Object list(Kind kind, ListNode list) {
+            int node = node(kind, list, list.getSize());
+            for (int i = 0; i < list.getSize(); i++) {
+                child(node, i, list.get(i));
+            }
+            return null;
+        }
+
+        private Object binary(Kind kind, BinaryExpr expr) {
+            int node = node(kind, expr, 2);
+            child(node, 0, expr.getLeftExpr());
+            child(node, 1, expr.getRightExpr());
+            return null;
+        }
+
+        private Object unary(Kind kind, UnaryExpr expr) {
+            int node = node(kind, expr, 1);
+            flags[node] = expr.isPostfix() ? POSTFIX : 0;
+            child(node, 0, expr.getExpr());
+            return null;
+        }
+
+        private Object constant(Kind kind, ConstExpr expr) {
+            int node = node(kind, expr, 0);
+            names[node] = symbolId(expr.getConstant());
+            return null;
+        }
+
+        public Object visit(Program node) {
+            child(node(Kind.PROGRAM, node, 1), 0, node.getClassList());
+            return null;
+        }
+
+        public Object visit(ClassList node) {
+            return list(Kind.CLASS_LIST, node);
+        }
+
+        public Object visit(Class_ node) {
+            int n = node(Kind.CLASS, node, 1);
+            names[n] = symbolId(node.getNameSymbol());
+            types[n] = symbolId(node.getParentSymbol());
+            exprTypes[n] = symbolId(node.getFilename());
+            child(n, 0, node.getMemberList());
+            return null;
+        }
+
+        public Object visit(MemberList node) {
+            return list(Kind.MEMBER_LIST, node);
+        }
+
+        public Object visit(Field node) {
+            int n = node(Kind.FIELD, node, 1);
+            names[n] = symbolId(node.getNameSymbol());
+            types[n] = symbolId(node.getType());
+            child(n, 0, node.getInit());
+            return null;
+        }
+
+        public Object visit(Method node) {
+            int n = node(Kind.METHOD, node, 2);
+            names[n] = symbolId(node.getNameSymbol());
+            types[n] = symbolId(node.getReturnType());
+            child(n, 0, node.getFormalList());
+            child(n, 1, node.getStmtList());
+            return null;
+        }
+
+        public Object visit(ErrorMember node) {
+            node(Kind.ERROR_MEMBER, node, 0);
+            return null;
+        }
+
+        public Object visit(FormalList node) {
+            return list(Kind.FORMAL_LIST, node);
+        }
+
+        public Object visit(Formal node) {
+            int n = node(Kind.FORMAL, node, 0);
+            names[n] = symbolId(node.getName());
+            types[n] = symbolId(node.getType());
+            return null;
+        }
+
+        public Object visit(StmtList node) {
+            return list(Kind.STMT_LIST, node);
+        }
+
+        public Object visit(DeclStmt node) {
+            int n = node(Kind.DECL_STMT, node, 1);
+            if (mode == ANNOTATE) {
+                node.setType(name(types[n]));
+            }
+            names[n] = symbolId(node.getNameSymbol());
+            types[n] = symbolId(node.getType());
+            child(n, 0, node.getInit());
+            return null;
+        }
+
+        public Object visit(ExprStmt node) {
+            child(node(Kind.EXPR_STMT, node, 1), 0, node.getExpr());
+            return null;
+        }
+
+        public Object visit(IfStmt node) {
+            int n = node(Kind.IF_STMT, node, 3);
+            child(n, 0, node.getPredExpr());
+            child(n, 1, node.getThenStmt());
+            child(n, 2, node.getElseStmt());
+            return null;
+        }
+
+        public Object visit(WhileStmt node) {
+            int n = node(Kind.WHILE_STMT, node, 2);
+            child(n, 0, node.getPredExpr());
+            child(n, 1, node.getBodyStmt());
+            return null;
+        }
+
+        public Object visit(ForStmt node) {
+            int n = node(Kind.FOR_STMT, node, 4);
+            child(n, 0, node.getInitExpr());
+            child(n, 1, node.getPredExpr());
+            child(n, 2, node.getUpdateExpr());
+            child(n, 3, node.getBodyStmt());
+            return null;
+        }
+
+        public Object visit(BreakStmt node) {
+            node(Kind.BREAK_STMT, node, 0);
+            return null;
+        }
+
+        public Object visit(BlockStmt node) {
+            child(node(Kind.BLOCK_STMT, node, 1), 0, node.getStmtList());
+            return null;
+        }
+
+        public Object visit(ReturnStmt node) {
+            child(node(Kind.RETURN_STMT, node, 1), 0, node.getExpr());
+            return null;
+        }
+
+        public Object visit(ErrorStmt node) {
+            node(Kind.ERROR_STMT, node, 0);
+            return null;
+        }
+
+        public Object visit(ExprList node) {
+            return list(Kind.EXPR_LIST, node);
+        }
+
+        public Object visit(DispatchExpr node) {
+            int n = node(Kind.DISPATCH_EXPR, node, 2);
+            names[n] = symbolId(node.getMethodNameSymbol());
+            child(n, 0, node.getRefExpr());
+            child(n, 1, node.getActualList());
+            return null;
+        }
+
+        public Object visit(NewExpr node) {
+            int n = node(Kind.NEW_EXPR, node, 0);
+            types[n] = symbolId(node.getType());
+            return null;
+        }
+
+        public Object visit(NewArrayExpr node) {
+            int n = node(Kind.NEW_ARRAY_EXPR, node, 1);
+            types[n] = symbolId(node.getType());
+            child(n, 0, node.getSize());
+            return null;
+        }
+
+        public Object visit(InstanceofExpr node) {
+            int n = node(Kind.INSTANCEOF_EXPR, node, 1);
+            if (mode == ANNOTATE) {
+                node.setUpCheck((flags[n] & UPCHECK) != 0);
+            }
+            types[n] = symbolId(node.getType());
+            flags[n] = node.getUpCheck() ? UPCHECK : 0;
+            child(n, 0, node.getExpr());
+            return null;
+        }
+
+        public Object visit(CastExpr node) {
+            int n = node(Kind.CAST_EXPR, node, 1);
+            if (mode == ANNOTATE) {
+                node.setUpCast((flags[n] & UPCAST) != 0);
+            }
+            types[n] = symbolId(node.getType());
+            flags[n] = node.getUpCast() ? UPCAST : 0;
+            child(n, 0, node.getExpr());
+            return null;
+        }
+
+        public Object visit(AssignExpr node) {
+            int n = node(Kind.ASSIGN_EXPR, node, 1);
+            names[n] = symbolId(node.getNameSymbol());
+            types[n] = symbolId(node.getRefNameSymbol());
+            child(n, 0, node.getExpr());
+            return null;
+        }
+
+        public Object visit(ArrayAssignExpr node) {
+            int n = node(Kind.ARRAY_ASSIGN_EXPR, node, 2);
+            names[n] = symbolId(node.getNameSymbol());
+            types[n] = symbolId(node.getRefNameSymbol());
+            child(n, 0, node.getIndex());
+            child(n, 1, node.getExpr());
+            return null;
+        }
+
+        public Object visit(BinaryCompEqExpr node) {
+            return binary(Kind.BINARY_COMP_EQ_EXPR, node);
+        }
+
+        public Object visit(BinaryCompNeExpr node) {
+            return binary(Kind.BINARY_COMP_NE_EXPR, node);
+        }
+
+        public Object visit(BinaryCompLtExpr node) {
+            return binary(Kind.BINARY_COMP_LT_EXPR, node);
+        }
+
+        public Object visit(BinaryCompLeqExpr node) {
+            return binary(Kind.BINARY_COMP_LEQ_EXPR, node);
+        }
+
+        public Object visit(BinaryCompGtExpr node) {
+            return binary(Kind.BINARY_COMP_GT_EXPR, node);
+        }
+
+        public Object visit(BinaryCompGeqExpr node) {
+            return binary(Kind.BINARY_COMP_GEQ_EXPR, node);
+        }
+
+        public Object visit(BinaryArithPlusExpr node) {
+            return binary(Kind.BINARY_ARITH_PLUS_EXPR, node);
+        }
+
+        public Object visit(BinaryArithMinusExpr node) {
+            return binary(Kind.BINARY_ARITH_MINUS_EXPR, node);
+        }
+
+        public Object visit(BinaryArithTimesExpr node) {
+            return binary(Kind.BINARY_ARITH_TIMES_EXPR, node);
+        }
+
+        public Object visit(BinaryArithDivideExpr node) {
+            return binary(Kind.BINARY_ARITH_DIVIDE_EXPR, node);
+        }
+
+        public Object visit(BinaryArithModulusExpr node) {
+            return binary(Kind.BINARY_ARITH_MODULUS_EXPR, node);
+        }
+
+        public Object visit(BinaryLogicAndExpr node) {
+            return binary(Kind.BINARY_LOGIC_AND_EXPR, node);
+        }
+
+        public Object visit(BinaryLogicOrExpr node) {
+            return binary(Kind.BINARY_LOGIC_OR_EXPR, node);
+        }
+
+        public Object visit(UnaryNegExpr node) {
+            return unary(Kind.UNARY_NEG_EXPR, node);
+        }
+
+        public Object visit(UnaryNotExpr node) {
+            return unary(Kind.UNARY_NOT_EXPR, node);
+        }
+
+        public Object visit(UnaryIncrExpr node) {
+            return unary(Kind.UNARY_INCR_EXPR, node);
+        }
+
+        public Object visit(UnaryDecrExpr node) {
+            return unary(Kind.UNARY_DECR_EXPR, node);
+        }
+
+        public Object visit(VarExpr node) {
+            int n = node(Kind.VAR_EXPR, node, 1);
+            names[n] = symbolId(node.getNameSymbol());
+            child(n, 0, node.getRef());
+            return null;
+        }
+
+        public Object visit(ArrayExpr node) {
+            int n = node(Kind.ARRAY_EXPR, node, 2);
+            names[n] = symbolId(node.getNameSymbol());
+            child(n, 0, node.getRef());
+            child(n, 1, node.getIndex());
+            return null;
+        }
+
+        public Object visit(ConstIntExpr node) {
+            return constant(Kind.CONST_INT_EXPR, node);
+        }
+
+        public Object visit(ConstBooleanExpr node) {
+            return constant(Kind.CONST_BOOLEAN_EXPR, node);
+        }
+
+        public Object visit(ConstStringExpr node) {
+            return constant(Kind.CONST_STRING_EXPR, node);
+        }
+    }
+}
@@ -34,22 +34,30 @@ package proj12ZhangZhao.bantam.ast;
 
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Vector;
+import java.util.NoSuchElementException;
 
 /**
  * The abstract <tt>ListNode</tt> class represents a generic list of AST
  * nodes.  It contains a line number (<tt>lineNum</tt>) and a list
  * (<tt>listElements</tt>).
  *
+ * The elements are kept in a plain array, without the locking of a Vector.
+ * The array grows as elements are added; <tt>trimToSize</tt> or a bulk
+ * <tt>addElements</tt> on an empty list leaves it exactly as long as the list.
+ *
  * @see ASTNode
  */
 public abstract class ListNode extends ASTNode
     implements Iterable<ASTNode> {
+    private static final ASTNode[] NO_ELEMENTS = new ASTNode[0];
+
     /**
-     * List of ASTNode elements
+     * List of ASTNode elements; the first <tt>size</tt> are in use
      */
-    private Vector<ASTNode> listElements;
+    private ASTNode[] listElements;
+    private int size;
 
     /**
      * ListNode constructor
@@ -58,7 +66,7 @@ public abstract class ListNode extends ASTNode
      */
     protected ListNode(int lineNum) {
         super(lineNum);
-        listElements = new Vector<ASTNode>();
+        listElements = NO_ELEMENTS;
     }
 
     /**
@@ -68,17 +76,60 @@ public abstract class ListNode extends ASTNode
      * @return the updated list
      */
     public ListNode addElement(ASTNode node) {
-        listElements.add(node);
+        if (size == listElements.length) {
+            listElements = Arrays.copyOf(listElements, Math.max(4, size * 2));
+        }
+        listElements[size++] = node;
         return this;
     }
 
+    /**
+     * Add a run of elements to this list node at once, growing it to fit them exactly
+     *
+     * @param nodes array holding the elements to add
+     * @param from  index in nodes of the first element to add
+     * @param count number of elements to add
+     * @return the updated list
+     */
+    public ListNode addElements(ASTNode[] nodes, int from, int count) {
+        if (size + count > listElements.length) {
+            listElements = Arrays.copyOf(listElements, size + count);
+        }
+        System.arraycopy(nodes, from, listElements, size, count);
+        size += count;
+        return this;
+    }
+
+    /**
+     * Shrinks the array holding the elements to the size of the list,
+     * once no more elements will be added
+     */
+    public void trimToSize() {
+        if (size < listElements.length) {
+            listElements = size == 0 ? NO_ELEMENTS : Arrays.copyOf(listElements, size);
+        }
+    }
+
     /**
      * Returns an iterator for this list
      *
      * @return iterator for this list
      */
     public Iterator<ASTNode> iterator() {
-        return listElements.iterator();
+        return new Iterator<ASTNode>() {
+            private int next = 0;
+
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            public ASTNode next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return listElements[next++];
+            }
+        };
     }
 
     /**
@@ -87,7 +138,7 @@ public abstract class ListNode extends ASTNode
      * @return list size
      */
     public int getSize() {
-        return listElements.size();
+        return size;
     }
 
     /**
@@ -98,7 +149,10 @@ public abstract class ListNode extends ASTNode
      *         too large or too small
      */
     public ASTNode get(int index) {
-        return listElements.get(index);
+        if (index >= size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return listElements[index];
     }
 
     /**
@@ -26,6 +26,7 @@
 
 package proj12ZhangZhao.bantam.ast;
 
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
 /**
@@ -48,6 +49,11 @@ public class Method extends Member {
      */
     protected String name;
 
+    /**
+     * The interned name of the method
+     */
+    protected Symbol nameSymbol;
+
     /**
      * A list of formal parameters
      */
@@ -69,9 +75,24 @@ public class Method extends Member {
      */
     public Method(int lineNum, String returnType, String name,
                   FormalList formalList, StmtList stmtList) {
+        this(lineNum, returnType, Symbol.intern(name), formalList, stmtList);
+    }
+
+    /**
+     * Method constructor
+     *
+     * @param lineNum    source line number corresponding to this AST node
+     * @param returnType the return type of this method
+     * @param name       the interned name of this method
+     * @param formalList a list of formal parameters
+     * @param stmtList   a list of statements appearing in the method body
+     */
+    public Method(int lineNum, String returnType, Symbol name,
+                  FormalList formalList, StmtList stmtList) {
         super(lineNum);
         this.returnType = returnType;
-        this.name = name;
+        this.name = name.getName();
+        this.nameSymbol = name;
         this.formalList = formalList;
         this.stmtList = stmtList;
     }
@@ -94,6 +115,15 @@ public class Method extends Member {
         return name;
     }
 
+    /**
+     * Get the interned name of this method
+     *
+     * @return method name symbol
+     */
+    public Symbol getNameSymbol() {
+        return nameSymbol;
+    }
+
     /**
      * Get list of formal parameters
      *
@@ -26,6 +26,7 @@
 
 package proj12ZhangZhao.bantam.ast;
 
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 
 
@@ -52,6 +53,11 @@ public class VarExpr extends Expr {
      */
     protected String name;
 
+    /**
+     * The interned name of the variable
+     */
+    protected Symbol nameSymbol;
+
     /**
      * VarExpr constructor
      *
@@ -61,9 +67,22 @@ public class VarExpr extends Expr {
      * @param name    the name of the variable
      */
     public VarExpr(int lineNum, Expr ref, String name) {
+        this(lineNum, ref, Symbol.intern(name));
+    }
+
+    /**
+     * VarExpr constructor
+     *
+     * @param lineNum source line number corresponding to this AST node
+     * @param ref     the optional reference object expression
+     *                (must be 'this' or 'super' for non-arrays)
+     * @param name    the interned name of the variable
+     */
+    public VarExpr(int lineNum, Expr ref, Symbol name) {
         super(lineNum);
         this.ref = ref;
-        this.name = name;
+        this.name = name.getName();
+        this.nameSymbol = name;
     }
 
     /**
@@ -85,6 +104,15 @@ public class VarExpr extends Expr {
         return name;
     }
 
+    /**
+     * Get the interned name of the variable
+     *
+     * @return name symbol
+     */
+    public Symbol getNameSymbol() {
+        return nameSymbol;
+    }
+
     /**
      * Visitor method
      *
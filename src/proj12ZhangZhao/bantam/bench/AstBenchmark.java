@@ -0,0 +1,63 @@
+/*
+ * File: AstBenchmark.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import proj12ZhangZhao.bantam.ast.Program;
+import proj12ZhangZhao.bantam.lexer.Scanner;
+import proj12ZhangZhao.bantam.lexer.TokenBuffer;
+import proj12ZhangZhao.bantam.parser.Parser;
+import proj12ZhangZhao.bantam.util.ErrorHandler;
+import proj12ZhangZhao.proj12.SemanticAnalyzer;
+
+/**
+ * Measures how long it takes to parse a scanned program, how much heap its
+ * AST keeps alive, and how long the semantic analyzer takes to check it,
+ * one class at a time and on a thread per processor.
+ * Usage: AstBenchmark [file.btm ...]  (a large program is generated if no file is given)
+ */
+public class AstBenchmark
+{
+    public static void main(String[] argv) {
+        String[] filenames = argv;
+        if (filenames.length == 0) {
+            filenames = new String[] { SyntheticProgram.writeTempFile(5000, 10) };
+        }
+
+        Benchmark benchmark = new Benchmark(5, 10);
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (String filename : filenames) {
+            System.out.println(filename);
+            TokenBuffer tokens = new Scanner(filename, new ErrorHandler()).tokenizeAll();
+            benchmark.run("parse(TokenBuffer)", () ->
+                    new Parser(new ErrorHandler()).parse(tokens, filename));
+
+            long before = usedHeap();
+            Program program = new Parser(new ErrorHandler()).parse(tokens, filename);
+            long after = usedHeap();
+            System.out.printf("%-40s %10.1f KB%n", "retained by the AST", (after - before) / 1024.0);
+            benchmark.run("analyze(Program)", () ->
+                    new SemanticAnalyzer(new ErrorHandler()).analyze(program));
+            benchmark.run("analyze(Program) on " + threads + " threads", () -> {
+                SemanticAnalyzer analyzer = new SemanticAnalyzer(new ErrorHandler());
+                analyzer.setParallelism(threads);
+                return analyzer.analyze(program);
+            });
+        }
+    }
+
+    /**
+     * @return the bytes of heap in use after collecting garbage
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * File: Benchmark.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A small timing harness in the style of JMH (warmup iterations followed by
+ * measured iterations, average time per operation).  The results of each run
+ * are folded into a sink so the JIT cannot drop the work being measured.
+ */
+public class Benchmark
+{
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private long sink;
+
+    /**
+     * @param warmupIterations number of untimed runs before measuring
+     * @param measuredIterations number of timed runs
+     */
+    public Benchmark(int warmupIterations, int measuredIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+    }
+
+    /**
+     * Runs and times an operation, then prints the average time per run
+     * @param name the label to print
+     * @param operation the work to time; its result is consumed by the sink
+     * @return the average milliseconds per run
+     */
+    public double run(String name, Callable<?> operation) {
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                consume(operation.call());
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < measuredIterations; i++) {
+                consume(operation.call());
+            }
+            double avgMillis = (System.nanoTime() - start) / 1e6 / measuredIterations;
+            System.out.printf("%-40s %10.3f ms/op%n", name, avgMillis);
+            return avgMillis;
+        } catch (Exception e) {
+            throw new RuntimeException("Benchmark " + name + " failed", e);
+        }
+    }
+
+    /**
+     * @return the value the measured results were folded into
+     */
+    public long getSink() {
+        return sink;
+    }
+
+    private void consume(Object result) {
+        sink += (result == null) ? 0 : result.hashCode();
+    }
+}
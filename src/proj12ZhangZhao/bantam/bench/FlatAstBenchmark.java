@@ -0,0 +1,86 @@
+/*
+ * File: FlatAstBenchmark.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import proj12ZhangZhao.bantam.ast.FlatAst;
+import proj12ZhangZhao.bantam.ast.Program;
+import proj12ZhangZhao.bantam.parser.Parser;
+import proj12ZhangZhao.bantam.util.Error;
+import proj12ZhangZhao.bantam.util.ErrorHandler;
+import proj12ZhangZhao.proj12.SemanticAnalyzer;
+
+import java.util.List;
+
+/**
+ * Compares the heap kept alive by an ordinary AST and by its FlatAst, how
+ * long it takes to flatten an AST and build ordinary nodes back from it, and
+ * how long the semantic analyzer takes on each.  Also checks that both report
+ * the same errors.
+ * Usage: FlatAstBenchmark [file.btm ...]  (a large program is generated if no file is given)
+ */
+public class FlatAstBenchmark
+{
+    public static void main(String[] argv) {
+        String[] filenames = argv;
+        if (filenames.length == 0) {
+            filenames = new String[] { SyntheticProgram.writeTempFile(5000, 10) };
+        }
+
+        Benchmark benchmark = new Benchmark(5, 10);
+        for (String filename : filenames) {
+            System.out.println(filename);
+            long before = usedHeap();
+            Program program = new Parser(new ErrorHandler()).parse(filename);
+            long after = usedHeap();
+            System.out.printf("%-40s %10.1f KB%n", "retained by the AST", (after - before) / 1024.0);
+
+            before = usedHeap();
+            FlatAst ast = FlatAst.of(program);
+            after = usedHeap();
+            System.out.printf("%-40s %10.1f KB (%d nodes, %d symbols)%n", "retained by the FlatAst",
+                    (after - before) / 1024.0, ast.getNumNodes(), ast.getNumSymbols());
+
+            benchmark.run("FlatAst.of(Program)", () -> FlatAst.of(program));
+            benchmark.run("toNode(0)", () -> ast.toNode(0));
+            benchmark.run("analyze(Program)", () ->
+                    new SemanticAnalyzer(new ErrorHandler()).analyze(program));
+            benchmark.run("analyze(FlatAst)", () ->
+                    new SemanticAnalyzer(new ErrorHandler()).analyze(ast));
+
+            ErrorHandler programErrors = new ErrorHandler();
+            new SemanticAnalyzer(programErrors).analyze(program);
+            ErrorHandler flatErrors = new ErrorHandler();
+            new SemanticAnalyzer(flatErrors).analyze(ast);
+            System.out.println(sameErrors(programErrors.getErrorList(), flatErrors.getErrorList())
+                    ? "same errors" : "DIFFERENT ERRORS");
+        }
+    }
+
+    private static boolean sameErrors(List<Error> expected, List<Error> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).toString().equals(actual.get(i).toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the bytes of heap in use after collecting garbage
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
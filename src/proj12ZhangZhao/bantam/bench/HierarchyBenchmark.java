@@ -0,0 +1,129 @@
+/*
+ * File: HierarchyBenchmark.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import proj12ZhangZhao.bantam.ast.Program;
+import proj12ZhangZhao.bantam.parser.Parser;
+import proj12ZhangZhao.bantam.util.ClassTreeNode;
+import proj12ZhangZhao.bantam.util.ErrorHandler;
+import proj12ZhangZhao.proj12.SemanticAnalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the semantic analyzer on programs with deep inheritance chains,
+ * where every class assigns an object of its own type to a field whose type
+ * is the root of its chain, and on the same programs with the first class of
+ * every chain extending the last, so each chain is an inheritance cycle.
+ * Also compares subclass tests on the numbered class tree with walking up
+ * the tree.
+ * Usage: HierarchyBenchmark [numClasses chainDepth]  (10000 classes in chains of 1000 by default)
+ */
+public class HierarchyBenchmark
+{
+    public static void main(String[] argv) {
+        int numClasses = argv.length >= 2 ? Integer.parseInt(argv[0]) : 10000;
+        int chainDepth = argv.length >= 2 ? Integer.parseInt(argv[1]) : 1000;
+        System.out.println(numClasses + " classes in chains of " + chainDepth);
+        Benchmark benchmark = new Benchmark(3, 5);
+        Program cyclic = new Parser(new ErrorHandler()).parse(writeTempFile(numClasses, chainDepth, true));
+        benchmark.run("analyze(Program) with cycles", () ->
+                new SemanticAnalyzer(new ErrorHandler()).analyze(cyclic));
+        ErrorHandler cycleErrors = new ErrorHandler();
+        new SemanticAnalyzer(cycleErrors).analyze(cyclic);
+        System.out.println(cycleErrors.getErrorList().size() + " errors with cycles");
+
+        Program program = new Parser(new ErrorHandler()).parse(writeTempFile(numClasses, chainDepth, false));
+        benchmark.run("analyze(Program)", () ->
+                new SemanticAnalyzer(new ErrorHandler()).analyze(program));
+
+        SemanticAnalyzer analyzer = new SemanticAnalyzer(new ErrorHandler());
+        analyzer.analyze(program);
+        List<ClassTreeNode> classes = new ArrayList<>(analyzer.getClassMap().values());
+        Random random = new Random(461);
+        int numPairs = 100000;
+        ClassTreeNode[] subs = new ClassTreeNode[numPairs];
+        ClassTreeNode[] ancestors = new ClassTreeNode[numPairs];
+        for (int i = 0; i < numPairs; i++) {
+            subs[i] = classes.get(random.nextInt(classes.size()));
+            ancestors[i] = classes.get(random.nextInt(classes.size()));
+        }
+        benchmark.run(numPairs + " isSubClassOf", () -> {
+            int count = 0;
+            for (int i = 0; i < numPairs; i++) {
+                count += subs[i].isSubClassOf(ancestors[i]) ? 1 : 0;
+            }
+            return count;
+        });
+        benchmark.run(numPairs + " walks up the tree", () -> {
+            int count = 0;
+            for (int i = 0; i < numPairs; i++) {
+                for (ClassTreeNode ctn = subs[i]; ctn != null; ctn = ctn.getParent()) {
+                    if (ctn.getName().equals(ancestors[i].getName())) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Builds the text of a program of chains of classes, each class extending
+     * the one before it and assigning a new object of its own class to a field
+     * typed as the first class of its chain
+     * @param numClasses the number of classes besides Main
+     * @param chainDepth the length of each inheritance chain before restarting at Object
+     * @param cyclic whether the first class of each chain extends the last one
+     * @return the program text
+     */
+    public static String generate(int numClasses, int chainDepth, boolean cyclic) {
+        StringBuilder text = new StringBuilder();
+        text.append("class Main {\n    void main() {\n        var x = 1;\n    }\n}\n\n");
+        for (int k = 0; k < numClasses; k++) {
+            int chainStart = k - k % chainDepth;
+            text.append("class C").append(k);
+            if (k != chainStart) {
+                text.append(" extends C").append(k - 1);
+            }
+            else if (cyclic) {
+                text.append(" extends C").append(Math.min(k + chainDepth, numClasses) - 1);
+            }
+            text.append(" {\n");
+            text.append("    C").append(chainStart).append(" base").append(k).append(";\n");
+            text.append("    boolean link").append(k).append("() {\n");
+            text.append("        base").append(k).append(" = new C").append(k).append("();\n");
+            text.append("        return base").append(k).append(" == new C").append(k).append("();\n");
+            text.append("    }\n");
+            text.append("}\n\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes a generated program to a temporary file that is deleted on exit
+     * @see #generate(int, int, boolean)
+     */
+    private static String writeTempFile(int numClasses, int chainDepth, boolean cyclic) {
+        try {
+            File file = File.createTempFile("hierarchy", ".btm");
+            file.deleteOnExit();
+            Files.write(file.toPath(), generate(numClasses, chainDepth, cyclic).getBytes(Charset.defaultCharset()));
+            return file.getPath();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write the hierarchy program", e);
+        }
+    }
+}
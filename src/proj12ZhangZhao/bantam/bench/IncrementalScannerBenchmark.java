@@ -0,0 +1,61 @@
+/*
+ * File: IncrementalScannerBenchmark.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import proj12ZhangZhao.bantam.lexer.IncrementalScanner;
+
+/**
+ * Compares re-lexing a whole program after every keystroke with re-lexing
+ * only the region around the edit.  Each operation types and then deletes
+ * one character at a number of positions spread over the program.
+ * Usage: IncrementalScannerBenchmark [numClasses]  (default 2000)
+ */
+public class IncrementalScannerBenchmark
+{
+    private static final int EDITS = 100;
+
+    public static void main(String[] argv) {
+        int numClasses = argv.length > 0 ? Integer.parseInt(argv[0]) : 2000;
+        String program = SyntheticProgram.generate(numClasses, 10);
+        System.out.println(program.length() + " chars");
+
+        IncrementalScanner scanner = new IncrementalScanner();
+        scanner.setText(program);
+        System.out.println(scanner.size() + " tokens");
+
+        Benchmark benchmark = new Benchmark(3, 5);
+        benchmark.run(EDITS + " edits, full re-scan", () -> {
+            int scanned = 0;
+            StringBuilder text = new StringBuilder(program);
+            for (int i = 0; i < EDITS; i++) {
+                int position = position(i, program.length());
+                text.insert(position, 'x');
+                scanned += scanner.setText(text.toString());
+                text.deleteCharAt(position);
+                scanned += scanner.setText(text.toString());
+            }
+            return scanned;
+        });
+        benchmark.run(EDITS + " edits, incremental", () -> {
+            int scanned = 0;
+            for (int i = 0; i < EDITS; i++) {
+                int position = position(i, program.length());
+                scanned += scanner.replace(position, 0, "x");
+                scanned += scanner.replace(position, 1, "");
+            }
+            return scanned;
+        });
+    }
+
+    /**
+     * @return the position of the i-th edit, spread evenly over the text
+     */
+    private static int position(int i, int length) {
+        return (int) ((long) length * (2 * i + 1) / (2 * EDITS));
+    }
+}
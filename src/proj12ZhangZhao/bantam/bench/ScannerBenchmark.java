@@ -0,0 +1,65 @@
+/*
+ * File: ScannerBenchmark.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import proj12ZhangZhao.bantam.lexer.Scanner;
+import proj12ZhangZhao.bantam.lexer.Token;
+import proj12ZhangZhao.bantam.util.ErrorHandler;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Compares scanning a file through a Reader, one read() call per character,
+ * with scanning the same file after loading it into memory at once, and
+ * the map-based scanner engine with the table-driven one.
+ * Usage: ScannerBenchmark [file.btm ...]  (a large program is generated if no file is given)
+ */
+public class ScannerBenchmark
+{
+    public static void main(String[] argv) {
+        String[] filenames = argv;
+        if (filenames.length == 0) {
+            filenames = new String[] { SyntheticProgram.writeTempFile(5000, 10) };
+        }
+
+        Benchmark benchmark = new Benchmark(5, 10);
+        for (String filename : filenames) {
+            System.out.println(filename);
+            benchmark.run("reader path (FileReader)", () -> {
+                try (Reader reader = new FileReader(filename)) {
+                    return scanAll(new Scanner(reader, new ErrorHandler()));
+                }
+            });
+            benchmark.run("buffered path (char[])", () ->
+                    scanAll(new Scanner(filename, new ErrorHandler())));
+            for (Scanner.Engine engine : Scanner.Engine.values()) {
+                benchmark.run("buffered path, " + engine + " engine", () -> {
+                    Scanner scanner = new Scanner(filename, new ErrorHandler());
+                    scanner.setEngine(engine);
+                    return scanAll(scanner);
+                });
+            }
+        }
+    }
+
+    /**
+     * Scans until EOF
+     * @return the number of tokens seen
+     */
+    private static int scanAll(Scanner scanner) {
+        int count = 0;
+        Token token = scanner.scan();
+        while (token.kind != Token.Kind.EOF) {
+            count++;
+            token = scanner.scan();
+        }
+        return count;
+    }
+}
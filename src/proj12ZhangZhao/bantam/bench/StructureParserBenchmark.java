@@ -0,0 +1,98 @@
+/*
+ * File: StructureParserBenchmark.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import proj12ZhangZhao.JavaOutlineScanner;
+import proj12ZhangZhao.JavaStructureParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long the structure view takes to parse a corpus of Java
+ * files with full LL prediction only, as before, and with SLL prediction
+ * first, falling back to LL when SLL fails, and how long the outline scanner
+ * takes on the same files.  Then the same is measured on one file of at least
+ * 5000 lines, made by joining the files of the corpus without their package
+ * and import declarations.
+ * Usage: StructureParserBenchmark [file.java or directory ...]  (default src/proj12ZhangZhao)
+ */
+public class StructureParserBenchmark
+{
+    public static void main(String[] argv) throws IOException {
+        String[] roots = argv.length > 0 ? argv : new String[] { "src/proj12ZhangZhao" };
+        List<String> corpus = new ArrayList<>();
+        long chars = 0;
+        for (String root : roots) {
+            try (Stream<Path> paths = Files.walk(Paths.get(root))) {
+                for (Path path : paths.filter(p -> p.toString().endsWith(".java"))
+                        .collect(Collectors.toList())) {
+                    String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+                    corpus.add(text);
+                    chars += text.length();
+                }
+            }
+        }
+        System.out.println(corpus.size() + " files, " + chars + " chars");
+
+        Benchmark benchmark = new Benchmark(2, 3);
+        for (boolean twoStage : new boolean[] { false, true }) {
+            JavaStructureParser parser = new JavaStructureParser();
+            parser.setTwoStage(twoStage);
+            double millis = benchmark.run(twoStage ? "SLL, then LL on failure" : "LL only", () -> {
+                int count = 0;
+                for (String text : corpus) {
+                    count += parser.parse(text).getChildCount();
+                }
+                return count;
+            });
+            System.out.printf("  %.3f ms per file; %s%n", millis / corpus.size(), parser.getStatistics());
+        }
+
+        JavaOutlineScanner scanner = new JavaOutlineScanner();
+        double millis = benchmark.run("outline scan", () -> {
+            int count = 0;
+            for (String text : corpus) {
+                List<JavaOutlineScanner.Item> outline = scanner.scan(text);
+                count += outline == null ? 0 : outline.size();
+            }
+            return count;
+        });
+        System.out.printf("  %.3f ms per file; unsure of %d of %d scans%n",
+                millis / corpus.size(), scanner.getUnsure(), scanner.getScans());
+
+        StringBuilder joined = new StringBuilder();
+        int lines = 0;
+        for (int i = 0; lines < 5000; i = (i + 1) % corpus.size()) {
+            for (String line : corpus.get(i).split("\n")) {
+                if (!line.startsWith("package ") && !line.startsWith("import ")) {
+                    joined.append(line).append('\n');
+                    lines++;
+                }
+            }
+        }
+        String bigFile = joined.toString();
+        System.out.println("one file of " + lines + " lines, " + bigFile.length() + " chars");
+        Benchmark bigBenchmark = new Benchmark(20, 50);
+        JavaOutlineScanner bigScanner = new JavaOutlineScanner();
+        bigBenchmark.run("outline scan", () -> {
+            List<JavaOutlineScanner.Item> outline = bigScanner.scan(bigFile);
+            return outline == null ? 0 : outline.size();
+        });
+        System.out.println("  unsure of " + bigScanner.getUnsure() + " of " + bigScanner.getScans() + " scans");
+        JavaStructureParser bigParser = new JavaStructureParser();
+        benchmark.run("SLL, then LL on failure", () -> bigParser.parse(bigFile).getChildCount());
+    }
+}
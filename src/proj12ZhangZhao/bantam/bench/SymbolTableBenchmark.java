@@ -0,0 +1,138 @@
+/*
+ * File: SymbolTableBenchmark.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import proj12ZhangZhao.bantam.util.FlatSymbolTable;
+import proj12ZhangZhao.bantam.util.Symbol;
+import proj12ZhangZhao.bantam.util.SymbolTable;
+
+/**
+ * Compares SymbolTable and FlatSymbolTable on what the type checker does with
+ * the variable table of a class deep in an inheritance chain: entering nested
+ * scopes, declaring locals, looking up locals, inherited fields and names
+ * that are not declared, and exiting the scopes again.
+ * Usage: SymbolTableBenchmark [chainDepth nesting]  (a chain of 100 classes and 50 nested scopes by default)
+ */
+public class SymbolTableBenchmark
+{
+    private static final int FIELDS_PER_CLASS = 5;
+    private static final int LOCALS_PER_SCOPE = 2;
+    private static final int ROUNDS = 100;
+
+    /**
+     * The operations the benchmark uses, so both tables run the same code
+     */
+    private interface Table
+    {
+        void enterScope();
+        void exitScope();
+        void add(Symbol s, Object value);
+        Object lookup(Symbol s);
+    }
+
+    public static void main(String[] argv) {
+        int chainDepth = argv.length >= 2 ? Integer.parseInt(argv[0]) : 100;
+        int nesting = argv.length >= 2 ? Integer.parseInt(argv[1]) : 50;
+        System.out.println("chain of " + chainDepth + " classes, " + nesting + " nested scopes");
+
+        Symbol[][] fields = new Symbol[chainDepth][FIELDS_PER_CLASS];
+        for (int c = 0; c < chainDepth; c++) {
+            for (int f = 0; f < FIELDS_PER_CLASS; f++) {
+                fields[c][f] = Symbol.intern("field" + c + "_" + f);
+            }
+        }
+        Symbol[][] locals = new Symbol[nesting][LOCALS_PER_SCOPE];
+        for (int d = 0; d < nesting; d++) {
+            for (int l = 0; l < LOCALS_PER_SCOPE; l++) {
+                // the same names at every depth, so inner locals shadow outer ones
+                locals[d][l] = Symbol.intern("local" + (d % 10) + "_" + l);
+            }
+        }
+        Symbol missing = Symbol.intern("notDeclared");
+
+        Table hashtables = hashtableChain(fields);
+        Table flat = flatChain(fields);
+        Benchmark benchmark = new Benchmark(5, 10);
+        benchmark.run("SymbolTable", () -> work(hashtables, fields, locals, missing));
+        benchmark.run("FlatSymbolTable", () -> work(flat, fields, locals, missing));
+    }
+
+    /**
+     * Enters the nested scopes, declaring locals in each and looking up names
+     * at each depth, then exits them, a number of times
+     */
+    private static long work(Table table, Symbol[][] fields, Symbol[][] locals, Symbol missing) {
+        long found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int d = 0; d < locals.length; d++) {
+                table.enterScope();
+                for (Symbol local : locals[d]) {
+                    table.add(local, "int");
+                }
+                for (int l = 0; l <= d; l++) {
+                    found += table.lookup(locals[l][0]) != null ? 1 : 0;
+                }
+                found += table.lookup(fields[d % fields.length][0]) != null ? 1 : 0;
+                found += table.lookup(fields[0][1]) != null ? 1 : 0;
+                found += table.lookup(missing) != null ? 1 : 0;
+            }
+            for (int d = 0; d < locals.length; d++) {
+                table.exitScope();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the table of the last class of a chain of SymbolTables, one per class
+     */
+    private static Table hashtableChain(Symbol[][] fields) {
+        SymbolTable table = null;
+        for (Symbol[] classFields : fields) {
+            SymbolTable classTable = new SymbolTable();
+            classTable.setParent(table);
+            classTable.enterScope();
+            for (Symbol field : classFields) {
+                classTable.add(field, "int");
+            }
+            table = classTable;
+        }
+        SymbolTable leaf = table;
+        return new Table()
+        {
+            public void enterScope() { leaf.enterScope(); }
+            public void exitScope() { leaf.exitScope(); }
+            public void add(Symbol s, Object value) { leaf.add(s, value); }
+            public Object lookup(Symbol s) { return leaf.lookup(s); }
+        };
+    }
+
+    /**
+     * @return the table of the last class of a chain of FlatSymbolTables, one per class
+     */
+    private static Table flatChain(Symbol[][] fields) {
+        FlatSymbolTable table = null;
+        for (Symbol[] classFields : fields) {
+            FlatSymbolTable classTable = new FlatSymbolTable();
+            classTable.setParent(table);
+            classTable.enterScope();
+            for (Symbol field : classFields) {
+                classTable.add(field, "int");
+            }
+            table = classTable;
+        }
+        FlatSymbolTable leaf = table;
+        return new Table()
+        {
+            public void enterScope() { leaf.enterScope(); }
+            public void exitScope() { leaf.exitScope(); }
+            public void add(Symbol s, Object value) { leaf.add(s, value); }
+            public Object lookup(Symbol s) { return leaf.lookup(s); }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * File: SyntheticProgram.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+/**
+ * Generates large, semantically valid Bantam Java programs for the benchmarks.
+ * Every class extends the one before it, in chains of a fixed depth, and has a
+ * field and a few methods with loops, conditionals, locals and dispatches.
+ */
+public class SyntheticProgram
+{
+    /**
+     * Builds the text of a program
+     * @param numClasses the number of classes besides Main
+     * @param chainDepth the length of each inheritance chain before restarting at Object
+     * @return the program text
+     */
+    public static String generate(int numClasses, int chainDepth) {
+        StringBuilder text = new StringBuilder();
+        text.append("class Main {\n    void main() {\n        var x = 1;\n    }\n}\n\n");
+        for (int k = 0; k < numClasses; k++) {
+            text.append("// generated class number ").append(k).append('\n');
+            text.append("class C").append(k);
+            if (k % chainDepth != 0) {
+                text.append(" extends C").append(k - 1);
+            }
+            text.append(" {\n");
+            text.append("    int f").append(k).append(" = ").append(k).append(";\n");
+            text.append("    String s").append(k).append(" = \"class ").append(k).append("\";\n");
+            text.append("    int m").append(k).append("(int a, int b) {\n");
+            text.append("        var x = a + b * 2;\n");
+            text.append("        var i = 0;\n");
+            text.append("        for (; i < 10; i++) {\n");
+            text.append("            x = x + i;\n");
+            text.append("        }\n");
+            text.append("        while (x > 100) {\n");
+            text.append("            x = x - 1;\n");
+            text.append("        }\n");
+            text.append("        if (x == 3) {\n");
+            text.append("            x = x + 1;\n");
+            text.append("        }\n");
+            text.append("        else {\n");
+            text.append("            x = x - 1;\n");
+            text.append("        }\n");
+            text.append("        return x;\n");
+            text.append("    }\n");
+            text.append("    boolean p").append(k).append("(int a) {\n");
+            text.append("        return a < 5 && true;\n");
+            text.append("    }\n");
+            text.append("    /* calls back into this class */\n");
+            text.append("    int call").append(k).append("() {\n");
+            text.append("        var inst = new C").append(k).append("();\n");
+            text.append("        return m").append(k).append("(1, 2);\n");
+            text.append("    }\n");
+            text.append("}\n\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes a generated program to a temporary file that is deleted on exit
+     * @param numClasses the number of classes besides Main
+     * @param chainDepth the length of each inheritance chain
+     * @return the name of the file written
+     */
+    public static String writeTempFile(int numClasses, int chainDepth) {
+        try {
+            File file = File.createTempFile("synthetic", ".btm");
+            file.deleteOnExit();
+            Files.write(file.toPath(), generate(numClasses, chainDepth).getBytes(Charset.defaultCharset()));
+            return file.getPath();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write the synthetic program", e);
+        }
+    }
+}
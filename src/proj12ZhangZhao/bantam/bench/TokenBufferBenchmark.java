@@ -0,0 +1,53 @@
+/*
+ * File: TokenBufferBenchmark.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.bench;
+
+import proj12ZhangZhao.bantam.lexer.Scanner;
+import proj12ZhangZhao.bantam.lexer.Token;
+import proj12ZhangZhao.bantam.lexer.TokenBuffer;
+import proj12ZhangZhao.bantam.parser.Parser;
+import proj12ZhangZhao.bantam.util.ErrorHandler;
+
+/**
+ * Compares scanning into one Token object per token with scanning into a
+ * TokenBuffer, and parsing from the scanner with parsing a scanned buffer.
+ * Usage: TokenBufferBenchmark [file.btm ...]  (a large program is generated if no file is given)
+ */
+public class TokenBufferBenchmark
+{
+    public static void main(String[] argv) {
+        String[] filenames = argv;
+        if (filenames.length == 0) {
+            filenames = new String[] { SyntheticProgram.writeTempFile(5000, 10) };
+        }
+
+        Benchmark benchmark = new Benchmark(5, 10);
+        for (String filename : filenames) {
+            System.out.println(filename);
+            benchmark.run("scan() into Token objects", () -> {
+                Scanner scanner = new Scanner(filename, new ErrorHandler());
+                int count = 0;
+                Token token = scanner.scan();
+                while (token.kind != Token.Kind.EOF) {
+                    count++;
+                    token = scanner.scan();
+                }
+                return count;
+            });
+            benchmark.run("tokenizeAll() into a TokenBuffer", () ->
+                    new Scanner(filename, new ErrorHandler()).tokenizeAll().size());
+            benchmark.run("parse(filename)", () ->
+                    new Parser(new ErrorHandler()).parse(filename));
+            benchmark.run("tokenizeAll() then parse(TokenBuffer)", () -> {
+                ErrorHandler errorHandler = new ErrorHandler();
+                TokenBuffer tokens = new Scanner(filename, errorHandler).tokenizeAll();
+                return new Parser(errorHandler).parse(tokens, filename);
+            });
+        }
+    }
+}
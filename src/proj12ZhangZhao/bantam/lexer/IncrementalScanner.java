@@ -0,0 +1,398 @@
+/*
+ * File: IncrementalScanner.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.lexer;
+
+import proj12ZhangZhao.bantam.util.Error;
+import proj12ZhangZhao.bantam.util.ErrorHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the tokens of a text that is being edited, such as the contents of an
+ * editor tab, and re-scans only the part of the text around each edit.
+ *
+ * Besides its kind, extent and line, every token records the scanner's state
+ * right after it was scanned: the offset of the lookahead character and the
+ * line number.  Comments and strings are always single tokens, so the scanner
+ * is never stopped "inside a comment" or "inside a string"; the state between
+ * two tokens is all it needs to go on, and every token boundary is a safe
+ * place to restart.  A token only depends on the text up to and including
+ * the lookahead character after it.
+ *
+ * On an edit the tokens whose lookahead lies before the edit are kept, the
+ * scanner restarts from the state after the last of them, and it stops as
+ * soon as it reaches a state past the edit that matches an old state shifted
+ * by the edit.  From there on the old tokens are reused, with their offsets
+ * and lines shifted.  The tokens and errors are always the same as those of a
+ * full scan of the current text, but only the tokens around the edit are
+ * scanned again.
+ */
+public class IncrementalScanner
+{
+    private static final Token.Kind[] KINDS = Token.Kind.values();
+    private static final int INITIAL_CAPACITY = 256;
+
+    private char[] text;        // never changed in place, so copies can share it
+    private int size;           // the number of tokens, including the final EOF token
+    private int[] kinds;        // ordinal of each token's kind
+    private int[] starts;       // offset of the first char of each spelling
+    private int[] lengths;      // length of each spelling
+    private int[] lines;        // line number of each token
+    private int[] resumes;      // offset of the lookahead char after each token
+    private int[] resumeLines;  // line number after reading that lookahead char
+    private Error[][] errors;   // lexical errors found while scanning each token (null if none)
+
+    /**
+     * creates an incremental scanner for an empty text
+     */
+    public IncrementalScanner() {
+        this(INITIAL_CAPACITY);
+        setText("");
+    }
+
+    /**
+     * creates an empty token list with no text, used to collect re-scanned tokens
+     */
+    private IncrementalScanner(int capacity) {
+        kinds = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        resumes = new int[capacity];
+        resumeLines = new int[capacity];
+        errors = new Error[capacity][];
+    }
+
+    /**
+     * creates an independent copy, e.g. to hand the current tokens to another thread
+     */
+    private IncrementalScanner(IncrementalScanner other) {
+        text = other.text;
+        size = other.size;
+        kinds = other.kinds.clone();
+        starts = other.starts.clone();
+        lengths = other.lengths.clone();
+        lines = other.lines.clone();
+        resumes = other.resumes.clone();
+        resumeLines = other.resumeLines.clone();
+        errors = other.errors.clone();
+    }
+
+    /**
+     * @return a copy of this scanner that later edits of this one do not affect
+     */
+    public IncrementalScanner copy() {
+        return new IncrementalScanner(this);
+    }
+
+    /**
+     * Replaces the whole text and scans all of it
+     * @param newText the new text
+     * @return the number of tokens scanned
+     */
+    public int setText(String newText) {
+        text = newText.toCharArray();
+        size = 0;
+        return rescan(0, 0, 0, text.length);
+    }
+
+    /**
+     * Replaces part of the text and re-scans the tokens the change can affect
+     * @param position the offset where the change starts
+     * @param removedLength the number of chars removed at that offset
+     * @param inserted the text inserted in their place
+     * @return the number of tokens scanned
+     */
+    public int replace(int position, int removedLength, String inserted) {
+        if (position < 0 || removedLength < 0 || position + removedLength > text.length) {
+            throw new IndexOutOfBoundsException("Cannot replace " + removedLength +
+                    " chars at " + position + " in a text of length " + text.length);
+        }
+        int insertedLength = inserted.length();
+        char[] newText = new char[text.length - removedLength + insertedLength];
+        System.arraycopy(text, 0, newText, 0, position);
+        inserted.getChars(0, insertedLength, newText, position);
+        System.arraycopy(text, position + removedLength, newText, position + insertedLength,
+                text.length - position - removedLength);
+        text = newText;
+
+        // keep the tokens whose lookahead char comes before the change
+        int keep = 0;
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (resumes[middle] < position) {
+                keep = middle + 1;
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return rescan(keep, position + removedLength, insertedLength - removedLength,
+                position + insertedLength);
+    }
+
+    /**
+     * Scans from the state after the first keep tokens until the end of the
+     * text, or until the state matches that after an old token past the change
+     * @param keep the number of tokens at the start that stay as they are
+     * @param oldChangeEnd offset just past the changed chars in the old text
+     * @param delta the change in the length of the text
+     * @param newChangeEnd offset just past the changed chars in the new text
+     * @return the number of tokens scanned
+     */
+    private int rescan(int keep, int oldChangeEnd, int delta, int newChangeEnd) {
+        TokenErrors tokenErrors = new TokenErrors();
+        Scanner scanner = new Scanner(text, null, tokenErrors);
+        if (keep > 0) {
+            scanner.restart(resumes[keep - 1], resumeLines[keep - 1]);
+        }
+
+        IncrementalScanner scanned = new IncrementalScanner(0);
+        int old = keep;          // the first old token that might still match
+        int reuseFrom = size;    // the first old token to keep after the scanned ones
+        int lineShift = 0;
+        while (true) {
+            Token.Kind kind = scanner.scanKind();
+            int resume = scanner.getResumeOffset();
+            int resumeLine = scanner.getResumeLine();
+            Error[] foundErrors = tokenErrors.take();
+            scanned.add(kind, scanner.getTokenStart(), scanner.getTokenEnd() - scanner.getTokenStart(),
+                    scanner.getTokenLine(), resume, resumeLine, foundErrors);
+            if (kind == Token.Kind.EOF) {
+                break;
+            }
+            if (resume >= newChangeEnd) {
+                // past the change, see whether an old token left the scanner in the same state
+                // (not counting the EOF token, which leaves the state as it found it)
+                int oldResume = resume - delta;
+                while (old < size - 1 && resumes[old] < oldResume) {
+                    old++;
+                }
+                if (old < size - 1 && resumes[old] == oldResume && oldResume >= oldChangeEnd) {
+                    reuseFrom = old + 1;
+                    lineShift = resumeLine - resumeLines[old];
+                    break;
+                }
+            }
+        }
+        splice(keep, scanned, reuseFrom, delta, lineShift);
+        return scanned.size;
+    }
+
+    /**
+     * Replaces the old tokens from keep up to reuseFrom with the scanned ones,
+     * and shifts the old tokens after them
+     */
+    private void splice(int keep, IncrementalScanner scanned, int reuseFrom, int delta, int lineShift) {
+        int tail = size - reuseFrom;
+        int newSize = keep + scanned.size + tail;
+        ensureCapacity(newSize);
+        int tailStart = keep + scanned.size;
+        if (tailStart != reuseFrom) {
+            System.arraycopy(kinds, reuseFrom, kinds, tailStart, tail);
+            System.arraycopy(starts, reuseFrom, starts, tailStart, tail);
+            System.arraycopy(lengths, reuseFrom, lengths, tailStart, tail);
+            System.arraycopy(lines, reuseFrom, lines, tailStart, tail);
+            System.arraycopy(resumes, reuseFrom, resumes, tailStart, tail);
+            System.arraycopy(resumeLines, reuseFrom, resumeLines, tailStart, tail);
+            System.arraycopy(errors, reuseFrom, errors, tailStart, tail);
+        }
+        System.arraycopy(scanned.kinds, 0, kinds, keep, scanned.size);
+        System.arraycopy(scanned.starts, 0, starts, keep, scanned.size);
+        System.arraycopy(scanned.lengths, 0, lengths, keep, scanned.size);
+        System.arraycopy(scanned.lines, 0, lines, keep, scanned.size);
+        System.arraycopy(scanned.resumes, 0, resumes, keep, scanned.size);
+        System.arraycopy(scanned.resumeLines, 0, resumeLines, keep, scanned.size);
+        System.arraycopy(scanned.errors, 0, errors, keep, scanned.size);
+        Arrays.fill(errors, newSize, Math.max(newSize, size), null);
+        size = newSize;
+
+        if (delta != 0 || lineShift != 0) {
+            for (int i = tailStart; i < newSize; i++) {
+                starts[i] += delta;
+                resumes[i] += delta;
+                lines[i] += lineShift;
+                resumeLines[i] += lineShift;
+                if (errors[i] != null && lineShift != 0) {
+                    errors[i] = shiftLines(errors[i], lineShift);
+                }
+            }
+        }
+    }
+
+    private static Error[] shiftLines(Error[] tokenErrors, int lineShift) {
+        Error[] shifted = new Error[tokenErrors.length];
+        for (int i = 0; i < tokenErrors.length; i++) {
+            Error error = tokenErrors[i];
+            shifted[i] = new Error(error.getKind(), error.getFilename(),
+                    error.getLineNum() + lineShift, error.getMessage());
+        }
+        return shifted;
+    }
+
+    private void add(Token.Kind kind, int start, int length, int line,
+                     int resume, int resumeLine, Error[] tokenErrors) {
+        ensureCapacity(size + 1);
+        kinds[size] = kind.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        resumes[size] = resume;
+        resumeLines[size] = resumeLine;
+        errors[size] = tokenErrors;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > kinds.length) {
+            int newCapacity = Math.max(capacity, Math.max(16, kinds.length * 2));
+            kinds = Arrays.copyOf(kinds, newCapacity);
+            starts = Arrays.copyOf(starts, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+            lines = Arrays.copyOf(lines, newCapacity);
+            resumes = Arrays.copyOf(resumes, newCapacity);
+            resumeLines = Arrays.copyOf(resumeLines, newCapacity);
+            errors = Arrays.copyOf(errors, newCapacity);
+        }
+    }
+
+    /**
+     * @return the number of tokens, including the final EOF token
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the length of the current text
+     */
+    public int getTextLength() {
+        return text.length;
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the kind of the token
+     */
+    public Token.Kind getKind(int index) {
+        return KINDS[kinds[index]];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the offset of the token's first character in the text
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the number of characters in the token's spelling
+     */
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the line number where the token was found
+     */
+    public int getLine(int index) {
+        return lines[index];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the actual sequence of chars in the token
+     */
+    public String getSpelling(int index) {
+        return new String(text, starts[index], lengths[index]);
+    }
+
+    /**
+     * @param index the index of a token
+     * @return a Token object for the token
+     */
+    public Token getToken(int index) {
+        return new Token(getKind(index), getSpelling(index), lines[index]);
+    }
+
+    /**
+     * Finds the token containing an offset, or the first one after it if the
+     * offset is in whitespace
+     * @param offset an offset in the text
+     * @return the index of the token
+     */
+    public int indexAt(int offset) {
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] + lengths[middle] <= offset) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Collects the lexical errors of the whole text, in the order a full scan
+     * reports them
+     * @param filename the file name to report the errors against
+     * @return the list of errors
+     */
+    public List<Error> getErrors(String filename) {
+        ErrorHandler errorHandler = new ErrorHandler();
+        errorHandler.setMaxErrors(Integer.MAX_VALUE);  // the cap is applied by the caller's handler
+        for (int i = 0; i < size; i++) {
+            if (errors[i] != null) {
+                for (Error error : errors[i]) {
+                    // the tokens are scanned without a file name
+                    String errorFilename = error.getFilename() == null ? filename : error.getFilename();
+                    errorHandler.register(error.getKind(), errorFilename, error.getLineNum(), error.getMessage());
+                }
+            }
+        }
+        return errorHandler.getErrorList();
+    }
+
+    /**
+     * Collects the errors of one token in the order they are registered.  (An
+     * ErrorHandler would sort them, and errors without a file name go first.)
+     */
+    private static class TokenErrors extends ErrorHandler
+    {
+        private final List<Error> found = new ArrayList<>();
+
+        @Override
+        public void register(Error.Kind kind, String filename, int lineNum, String errorMessage) {
+            found.add(new Error(kind, filename, lineNum, errorMessage));
+        }
+
+        /**
+         * @return the errors registered since the last call, or null if there are none
+         */
+        Error[] take() {
+            if (found.isEmpty()) {
+                return null;
+            }
+            Error[] tokenErrors = found.toArray(new Error[found.size()]);
+            found.clear();
+            return tokenErrors;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import java.util.Map;
 import proj12ZhangZhao.bantam.util.ErrorHandler;
 import proj12ZhangZhao.bantam.util.Error;
 import proj12ZhangZhao.bantam.util.CompilationException;
+import proj12ZhangZhao.bantam.util.Symbol;
 
 
 public class Scanner
@@ -21,8 +22,51 @@ public class Scanner
     private ErrorHandler errorHandler;
     private char currentChar;
     private char prevChar;
+    private int currentOffset; // offset of currentChar in the source file
+    private int prevOffset;    // offset of prevChar in the source file
+    private int tokenStart;    // offset of the first char of the last token scanned
+    private int tokenEnd;      // offset just past the last char of its spelling
+    private int tokenLine;     // line number of the last token scanned
+    private TokenBuffer tokenBuffer;
+    private Engine engine = Engine.TABLE;
     private Map<Character,Token.Kind> singleOperatorMap;
     private Map<String,Token.Kind> doubleOperatorMap;
+    private static final Map<Character,Token.Kind> SINGLE_OPERATORS = Map.ofEntries(
+            Map.entry('+',Token.Kind.PLUSMINUS),
+            Map.entry('-',Token.Kind.PLUSMINUS),
+            Map.entry('/',Token.Kind.MULDIV),
+            Map.entry('*',Token.Kind.MULDIV),
+            Map.entry('=',Token.Kind.ASSIGN),
+            Map.entry('%',Token.Kind.MULDIV),
+            Map.entry('<',Token.Kind.COMPARE),
+            Map.entry('>',Token.Kind.COMPARE),
+            Map.entry('!',Token.Kind.UNARYNOT),
+            Map.entry('[',Token.Kind.LBRACKET),
+            Map.entry(']',Token.Kind.RBRACKET),
+            Map.entry('{',Token.Kind.LCURLY),
+            Map.entry('}',Token.Kind.RCURLY),
+            Map.entry('(',Token.Kind.LPAREN),
+            Map.entry(')',Token.Kind.RPAREN),
+            Map.entry('.',Token.Kind.DOT),
+            Map.entry(';',Token.Kind.SEMICOLON),
+            Map.entry(':',Token.Kind.COLON),
+            Map.entry(',',Token.Kind.COMMA)
+    );
+    private static final Map<String,Token.Kind> DOUBLE_OPERATORS = Map.ofEntries(
+            Map.entry("==",Token.Kind.COMPARE),
+            Map.entry("!=",Token.Kind.COMPARE),
+            Map.entry("<=",Token.Kind.COMPARE),
+            Map.entry(">=",Token.Kind.COMPARE),
+            Map.entry("++",Token.Kind.UNARYINCR),
+            Map.entry("--",Token.Kind.UNARYDECR),
+            Map.entry("&&",Token.Kind.BINARYLOGIC),
+            Map.entry("||",Token.Kind.BINARYLOGIC)
+    );
+    private static final ScannerTables TABLES = new ScannerTables(SINGLE_OPERATORS, DOUBLE_OPERATORS);
+    //the two-character operators, split up so they can be matched without building a String
+    private char[] doubleOperatorFirsts;
+    private char[] doubleOperatorSeconds;
+    private Token.Kind[] doubleOperatorKinds;
 
     /**
      * constructor for the scanner when fed into an errorhandler
@@ -63,6 +107,20 @@ public class Scanner
 
     }
 
+    /**
+     * constructor for the scanner when fed text that is already in memory
+     * @param text the characters to scan (used directly, not copied)
+     * @param filename the file name to report errors against
+     * @param handler the error handler to be fed in
+     */
+    public Scanner(char[] text, String filename, ErrorHandler handler) {
+        errorHandler = handler;
+        sourceFile = new SourceFile(text, filename);
+        currentChar = ' ';
+        prevChar = ' ';
+        this.createOperatorMaps();
+    }
+
     /**
      * setter for the source file
      */
@@ -75,27 +133,218 @@ public class Scanner
      * @return the first complete token object
      */
     public Token scan() {
+        Token.Kind kind = scanToken();
+        String spelling;
+        if(kind == Token.Kind.IDENTIFIER){
+            //identifiers share the one interned String of their symbol
+            spelling = Symbol.intern(sourceFile.getChars(), tokenStart, tokenEnd - tokenStart).getName();
+        }
+        else{
+            spelling = sourceFile.getSpelling(tokenStart, tokenEnd);
+        }
+        return new Token(kind, spelling, tokenLine);
+    }
+
+    /**
+     * scan the next token and append it to this scanner's token buffer
+     * instead of creating a Token object for it
+     * @return the index of the new token in the buffer
+     */
+    public int scanIntoBuffer() {
+        Token.Kind kind = scanToken();
+        return getTokenBuffer().add(kind, tokenStart, tokenEnd - tokenStart, tokenLine);
+    }
+
+    /**
+     * scan the rest of the file into this scanner's token buffer.
+     * The last token in the buffer is the EOF token.
+     * @return the token buffer holding every token of the file
+     */
+    public TokenBuffer tokenizeAll() {
+        TokenBuffer buffer = getTokenBuffer();
+        if (buffer.size() > 0 && buffer.getKind(buffer.size() - 1) == Token.Kind.EOF) {
+            return buffer;
+        }
+        while (buffer.getKind(scanIntoBuffer()) != Token.Kind.EOF);
+        return buffer;
+    }
+
+    /**
+     * getter for the buffer that scanIntoBuffer() and tokenizeAll() fill
+     * @return the token buffer of this scanner
+     */
+    public TokenBuffer getTokenBuffer() {
+        if (tokenBuffer == null) {
+            tokenBuffer = new TokenBuffer(sourceFile);
+        }
+        return tokenBuffer;
+    }
+
+    /**
+     * Continues scanning from a point between two tokens of an earlier scan of
+     * the same text (see getResumeOffset() and getResumeLine()).  Everything the
+     * scanner needs to go on from there is the lookahead character and the
+     * line number.
+     * @param offset the offset of the lookahead character at that point
+     * @param lineNumber the line number at that point
+     */
+    void restart(int offset, int lineNumber) {
+        currentChar = sourceFile.restartAfter(offset, lineNumber);
+        currentOffset = offset;
+    }
+
+    /**
+     * scan the next token without creating a Token or adding it to the token buffer.
+     * Its extent and line are then given by getTokenStart(), getTokenEnd() and getTokenLine().
+     * @return the kind of the token
+     */
+    Token.Kind scanKind() {
+        return scanToken();
+    }
+
+    int getTokenStart() {
+        return tokenStart;
+    }
+
+    int getTokenEnd() {
+        return tokenEnd;
+    }
+
+    int getTokenLine() {
+        return tokenLine;
+    }
+
+    /**
+     * @return the offset of the lookahead character: scanning the last token read
+     * everything up to and including it
+     */
+    int getResumeOffset() {
+        return currentOffset;
+    }
+
+    /**
+     * @return the line number after reading the lookahead character
+     */
+    int getResumeLine() {
+        return sourceFile.getCurrentLineNumber();
+    }
+
+    /**
+     * The two ways the scanner can decide what kind of token starts at a character.
+     * Both produce exactly the same tokens.
+     */
+    public enum Engine
+    {
+        /** looks the characters up in the operator maps and tests them with Character methods */
+        MAP,
+        /** runs the precomputed character class and transition tables of ScannerTables */
+        TABLE
+    }
+
+    /**
+     * setter for the engine used to recognize tokens (TABLE by default)
+     * @param engine the engine to use from the next token on
+     */
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * scan the next token, leaving its extent and line number in tokenStart,
+     * tokenEnd and tokenLine
+     * @return the kind of the token
+     */
+    private Token.Kind scanToken() {
+        if(engine == Engine.TABLE){
+            return scanTokenWithTables();
+        }
+        return scanTokenWithMaps();
+    }
+
+    /**
+     * scanToken() driven by the character class and transition tables
+     * @return the kind of the token
+     */
+    private Token.Kind scanTokenWithTables() {
+        updateChars();
+        int action = TABLES.transition(ScannerTables.START, TABLES.classOf(prevChar));
+        //read through whitespace until reach valid token character
+        while(action == ScannerTables.SKIP){
+            updateChars();
+            action = TABLES.transition(ScannerTables.START, TABLES.classOf(prevChar));
+        }
+        int lineNumber = sourceFile.getCurrentLineNumber();
+        //fixes bug where line number gets incremented too early on WindowsOS
+        if(currentChar == '\r' || currentChar == '\n'){
+            lineNumber--;
+        }
+        tokenLine = lineNumber;
+        tokenStart = prevOffset;
+        tokenEnd = prevOffset + 1;
+
+        switch(action){
+            case ScannerTables.READ_IDENTIFIER:
+                return readIdentifier();
+            case ScannerTables.READ_INTEGER:
+                return readIntConst();
+            case ScannerTables.READ_STRING:
+                return readString();
+            case ScannerTables.END_OF_FILE:
+                tokenEnd = tokenStart;
+                return Token.Kind.EOF;
+            case ScannerTables.ILLEGAL:
+                break;
+            default:
+                //an operator state; see whether the next char extends it
+                int next = TABLES.transition(action, TABLES.classOf(currentChar));
+                if(next == ScannerTables.READ_COMMENT){
+                    return readComment();
+                }
+                else if(next > 0){
+                    tokenEnd = currentOffset + 1;
+                    updateChars();
+                    return TABLES.acceptingKind(next);
+                }
+                else if(TABLES.acceptingKind(action) != null){
+                    return TABLES.acceptingKind(action);
+                }
+        }
+        //If not one of the above characters, is not a legal character in Bantam Java, throw error
+        errorHandler.register(Error.Kind.LEX_ERROR,sourceFile.getFilename(),
+                lineNumber,"Illegal Character.");
+        return Token.Kind.ERROR;
+    }
+
+    /**
+     * scanToken() driven by the operator maps
+     * @return the kind of the token
+     */
+    private Token.Kind scanTokenWithMaps() {
         updateChars();
         //read through whitespace until reach valid token character
         while(Character.isSpaceChar(prevChar)||prevChar == '\n'||prevChar == '\r'|| prevChar == '\t'){
             updateChars();
         }
         int lineNumber = sourceFile.getCurrentLineNumber();
-        String lastTwoChars = Character.toString(prevChar)+Character.toString(currentChar);
         //fixes bug where line number gets incremented too early on WindowsOS
         if(currentChar == '\r' || currentChar == '\n'){
             lineNumber--;
         }
+        tokenLine = lineNumber;
+        tokenStart = prevOffset;
+        tokenEnd = prevOffset + 1;
 
         if(prevChar=='/'&&(currentChar=='/'||currentChar=='*')){
             return readComment();
         }
-        else if(doubleOperatorMap.containsKey(lastTwoChars)){
+        else if(doubleOperatorKind(prevChar, currentChar) != null){
+            Token.Kind kind = doubleOperatorKind(prevChar, currentChar);
+            tokenEnd = currentOffset + 1;
             updateChars();
-            return new Token(doubleOperatorMap.get(lastTwoChars), lastTwoChars, lineNumber);
+            return kind;
         }
         else if(singleOperatorMap.containsKey(prevChar)){
-            return new Token(singleOperatorMap.get(prevChar),Character.toString(prevChar),lineNumber);
+            return singleOperatorMap.get(prevChar);
         }
         else if(Character.isDigit(prevChar)){
             return readIntConst();
@@ -107,69 +356,69 @@ public class Scanner
             return readIdentifier();
         }
         else if(prevChar == SourceFile.eof){
-            return new Token(Token.Kind.EOF,"",lineNumber);
+            tokenEnd = tokenStart;
+            return Token.Kind.EOF;
         }
         //If not one of the above characters, is not a legal character in Bantam Java, throw error
         errorHandler.register(Error.Kind.LEX_ERROR,sourceFile.getFilename(),
                 lineNumber,"Illegal Character.");
-        return new Token(Token.Kind.ERROR, Character.toString(prevChar),lineNumber);
+        return Token.Kind.ERROR;
     }
 
     /**
      * Reached a character that could be in an identifier, reads until character that could not be in an identifier
-     * @return Identifier Token
+     * @return Identifier Token kind (or the kind of the reserved word or boolean constant)
      */
-    private Token readIdentifier(){
-        StringBuilder result = new StringBuilder().append(prevChar);
+    private Token.Kind readIdentifier(){
+        int start = prevOffset;
         int lineNumber = sourceFile.getCurrentLineNumber();
 
         //read while character is valid identifier character
-        while(Character.isLetter(currentChar)||currentChar == '_'||Character.isDigit(currentChar)){
-            result.append(currentChar);
+        while(TABLES.isIdentifierPart(currentChar)){
             updateChars();
         }
 
-        String resultString = result.toString();
-        if(resultString.startsWith("_")){
+        setTokenExtent(start, currentOffset, lineNumber);
+        if(prevCharAt(start) == '_'){
             //Identifiers cannot just be the "_" character in Bantam
             errorHandler.register(Error.Kind.LEX_ERROR,sourceFile.getFilename(),
                     lineNumber,"Invalid Identifier Name.");
-            return new Token(Token.Kind.ERROR,resultString,lineNumber);
+            return Token.Kind.ERROR;
         }
-        return new Token(Token.Kind.IDENTIFIER,resultString,lineNumber);
+        return Token.identifierKind(sourceFile.getChars(), start, currentOffset - start);
     }
 
     /**
      * Reached an integer, reads until reaches character that is not an int and then returns
-     * @return Integer Token
+     * @return Integer Token kind
      */
-    private Token readIntConst(){
-        StringBuilder result = new StringBuilder().append(prevChar);
+    private Token.Kind readIntConst(){
+        int start = prevOffset;
         int lineNumber = sourceFile.getCurrentLineNumber();
 
         //read while character is a digit
-        while(Character.isDigit(currentChar)){
-            result.append(currentChar);
+        while(TABLES.isDigit(currentChar)){
             updateChars();
         }
-        String resultString = result.toString();
+        setTokenExtent(start, currentOffset, lineNumber);
 
         //case where integer is too large
-        if(resultString.length()>11||Long.parseLong(resultString) > Integer.MAX_VALUE){
+        if(currentOffset - start>11||parseLong(start, currentOffset) > Integer.MAX_VALUE){
             errorHandler.register(Error.Kind.LEX_ERROR,sourceFile.getFilename(),
                     lineNumber,"Integer Value Too Large");
-            return new Token(Token.Kind.ERROR,resultString,lineNumber);
+            return Token.Kind.ERROR;
         }
-        return new Token(Token.Kind.INTCONST,resultString,lineNumber);
+        return Token.Kind.INTCONST;
     }
 
     /**
      * Entered a string, now continues scanning until scan reaches closing string character.
-     * @return Token with string inside
+     * @return String Token kind, or ERROR if the string was illegal
      */
-    private Token readString(){
+    private Token.Kind readString(){
         List<Character> legalEscapeChars = Arrays.asList('t','n','"','f');
-        StringBuilder result = new StringBuilder().append('"');
+        int start = prevOffset;
+        int end = start + 1; //the spelling always includes the opening quote
         int lineNumber = sourceFile.getCurrentLineNumber();
         boolean hasError = false;
         boolean inBackslash = false;
@@ -181,10 +430,10 @@ public class Scanner
                 prevChar = ' ';
                 inBackslash = false;
             }
-            result.append(currentChar);
+            end = currentOffset + 1;
 
             //string too long
-            if(result.length()>5000){
+            if(end - start>5000){
                 updateChars();
                 errorHandler.register(Error.Kind.LEX_ERROR,sourceFile.getFilename(),
                         lineNumber,"String Literal Too Long");
@@ -227,58 +476,87 @@ public class Scanner
             hasError = true;
         }
         //we read all the way through so that we can report all errors in the string to the errorHandler
+        setTokenExtent(start, end, lineNumber);
         if(hasError) {
-            return new Token(Token.Kind.ERROR, result.toString(), lineNumber);
+            return Token.Kind.ERROR;
         }
         else{
-            return new Token(Token.Kind.STRCONST,result.toString(),lineNumber);
+            return Token.Kind.STRCONST;
         }
     }
 
     /**
      * Entered comment, now reads all characters into the token until reaches the closing comment characters
-     * @return Full comment token, either block comment or line comment.
+     * @return Comment Token kind, for either a block comment or a line comment.
      */
-    private Token readComment(){
+    private Token.Kind readComment(){
         boolean inLineComment = false;
-        StringBuilder result = new StringBuilder().append('/');
+        int start = prevOffset;
         int lineNumber = sourceFile.getCurrentLineNumber();
         //first character always '/', now check second character to know what closing characters should be
         if (currentChar   == '/'){
             inLineComment = true;
         }
 
-        result.append(currentChar);
         updateChars();
         while(currentChar!=SourceFile.eof){
-            result.append(currentChar);
-
             if(inLineComment){
-                //closing chracter \n
+                //closing chracter \n, which is not part of the spelling
                 if(currentChar == '\n'){
+                    setTokenExtent(start, currentOffset, lineNumber);
                     updateChars();
-                    String resultString = result.toString().substring(0,result.length()-1);
-                    return new Token(Token.Kind.COMMENT,resultString,lineNumber);
+                    return Token.Kind.COMMENT;
                 }
             }
             else{
                 //closing character */
                 if(currentChar == '/'&&prevChar=='*'){
+                    setTokenExtent(start, currentOffset + 1, lineNumber);
                     updateChars();
-                    return new Token(Token.Kind.COMMENT, result.toString(),lineNumber);
+                    return Token.Kind.COMMENT;
                 }
             }
             updateChars();
         }
+        setTokenExtent(start, currentOffset, lineNumber);
         //handles line comment on last line of file, no new line char afterward.
         if(inLineComment){
-            return new Token(Token.Kind.COMMENT,result.toString(),lineNumber);
+            return Token.Kind.COMMENT;
         }
 
         //unclosed comment error
-        errorHandler.register(Error.Kind.LEX_ERROR,result.toString(),
+        errorHandler.register(Error.Kind.LEX_ERROR,sourceFile.getSpelling(start, currentOffset),
                 sourceFile.getCurrentLineNumber(),"Unclosed Comment");
-        return new Token(Token.Kind.ERROR, result.toString(),lineNumber);
+        return Token.Kind.ERROR;
+    }
+
+    /**
+     * Records where the last token's spelling lies in the source and its line number
+     */
+    private void setTokenExtent(int start, int end, int lineNumber){
+        tokenStart = start;
+        tokenEnd = end;
+        tokenLine = lineNumber;
+    }
+
+    /**
+     * @return the source character at an offset that has already been read
+     */
+    private char prevCharAt(int offset){
+        return sourceFile.getChars()[offset];
+    }
+
+    /**
+     * Parses the digits between two offsets without creating a String
+     * (at most 11 digits are ever parsed, so a long cannot overflow)
+     */
+    private long parseLong(int start, int end){
+        char[] chars = sourceFile.getChars();
+        long value = 0;
+        for(int i = start; i < end; i++){
+            value = value*10 + Character.digit(chars[i], 10);
+        }
+        return value;
     }
 
     /**
@@ -286,6 +564,8 @@ public class Scanner
      */
     private void updateChars(){
         prevChar = currentChar;
+        prevOffset = currentOffset;
+        currentOffset = sourceFile.getOffset();
         currentChar = sourceFile.getNextChar();
     }
 
@@ -293,38 +573,33 @@ public class Scanner
      * Creates single and double character operator maps to check when scanning
      */
     private void createOperatorMaps(){
-        this.singleOperatorMap = Map.ofEntries(
-                Map.entry('+',Token.Kind.PLUSMINUS),
-                Map.entry('-',Token.Kind.PLUSMINUS),
-                Map.entry('/',Token.Kind.MULDIV),
-                Map.entry('*',Token.Kind.MULDIV),
-                Map.entry('=',Token.Kind.ASSIGN),
-                Map.entry('%',Token.Kind.MULDIV),
-                Map.entry('<',Token.Kind.COMPARE),
-                Map.entry('>',Token.Kind.COMPARE),
-                Map.entry('!',Token.Kind.UNARYNOT),
-                Map.entry('[',Token.Kind.LBRACKET),
-                Map.entry(']',Token.Kind.RBRACKET),
-                Map.entry('{',Token.Kind.LCURLY),
-                Map.entry('}',Token.Kind.RCURLY),
-                Map.entry('(',Token.Kind.LPAREN),
-                Map.entry(')',Token.Kind.RPAREN),
-                Map.entry('.',Token.Kind.DOT),
-                Map.entry(';',Token.Kind.SEMICOLON),
-                Map.entry(':',Token.Kind.COLON),
-                Map.entry(',',Token.Kind.COMMA)
-        );
-
-        this.doubleOperatorMap = Map.ofEntries(
-                Map.entry("==",Token.Kind.COMPARE),
-                Map.entry("!=",Token.Kind.COMPARE),
-                Map.entry("<=",Token.Kind.COMPARE),
-                Map.entry(">=",Token.Kind.COMPARE),
-                Map.entry("++",Token.Kind.UNARYINCR),
-                Map.entry("--",Token.Kind.UNARYDECR),
-                Map.entry("&&",Token.Kind.BINARYLOGIC),
-                Map.entry("||",Token.Kind.BINARYLOGIC)
-        );
+        this.singleOperatorMap = SINGLE_OPERATORS;
+        this.doubleOperatorMap = DOUBLE_OPERATORS;
+
+        int numDoubleOperators = this.doubleOperatorMap.size();
+        this.doubleOperatorFirsts = new char[numDoubleOperators];
+        this.doubleOperatorSeconds = new char[numDoubleOperators];
+        this.doubleOperatorKinds = new Token.Kind[numDoubleOperators];
+        int i = 0;
+        for(Map.Entry<String,Token.Kind> entry: this.doubleOperatorMap.entrySet()){
+            this.doubleOperatorFirsts[i] = entry.getKey().charAt(0);
+            this.doubleOperatorSeconds[i] = entry.getKey().charAt(1);
+            this.doubleOperatorKinds[i] = entry.getValue();
+            i++;
+        }
+    }
+
+    /**
+     * Looks up a two-character operator
+     * @return the kind of the operator spelled by the two chars, or null if they are not one
+     */
+    private Token.Kind doubleOperatorKind(char first, char second){
+        for(int i = 0; i < doubleOperatorKinds.length; i++){
+            if(doubleOperatorFirsts[i] == first && doubleOperatorSeconds[i] == second){
+                return doubleOperatorKinds[i];
+            }
+        }
+        return null;
     }
     public static void main(String[] argv){
         if(argv.length == 0){
@@ -0,0 +1,179 @@
+/*
+ * File: ScannerTables.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.lexer;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The precomputed tables used by the table-driven scanner engine.
+ *
+ * Every ASCII character is mapped to a character class, and a transition
+ * table indexed by [state][character class] drives the scanner.  From the
+ * start state a class either moves to an operator state, or maps to one of
+ * the negative action codes telling the scanner which kind of token to read
+ * (identifiers, integers, strings and comments are read by loops rather than
+ * by one state per character).  Operators are at most two characters long,
+ * so an operator state either accepts, moves to a two-character operator
+ * state, or starts a comment.
+ */
+class ScannerTables
+{
+    // character classes shared by many characters; every operator character gets its own class
+    static final int OTHER = 0;
+    static final int WHITESPACE = 1;
+    static final int LETTER = 2;
+    static final int DIGIT = 3;
+    static final int UNDERSCORE = 4;
+    static final int QUOTE = 5;
+    static final int EOF = 6;
+    private static final int FIRST_OPERATOR_CLASS = 7;
+
+    // actions found in the transition table instead of a next state
+    static final int ILLEGAL = 0;
+    static final int SKIP = -1;
+    static final int READ_IDENTIFIER = -2;
+    static final int READ_INTEGER = -3;
+    static final int READ_STRING = -4;
+    static final int READ_COMMENT = -5;
+    static final int END_OF_FILE = -6;
+
+    static final int START = 0;
+
+    private final byte[] charClasses = new byte[128];
+    private final int numClasses;
+    private final int[][] transitions;
+    private final Token.Kind[] acceptingKinds;
+
+    /**
+     * Builds the tables for the given operators
+     * @param singleOperators the one-character operators and punctuation
+     * @param doubleOperators the two-character operators
+     */
+    ScannerTables(Map<Character,Token.Kind> singleOperators, Map<String,Token.Kind> doubleOperators) {
+        charClasses[' '] = WHITESPACE;
+        charClasses['\n'] = WHITESPACE;
+        charClasses['\r'] = WHITESPACE;
+        charClasses['\t'] = WHITESPACE;
+        for (char c = 'a'; c <= 'z'; c++) {
+            charClasses[c] = LETTER;
+            charClasses[Character.toUpperCase(c)] = LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            charClasses[c] = DIGIT;
+        }
+        charClasses['_'] = UNDERSCORE;
+        charClasses['"'] = QUOTE;
+        charClasses[SourceFile.eof] = EOF;
+
+        // every character that can begin or continue an operator, and '/' and '*' for comments
+        int nextClass = FIRST_OPERATOR_CLASS;
+        StringBuilder operatorChars = new StringBuilder("/*");
+        for (char c : singleOperators.keySet()) {
+            operatorChars.append(c);
+        }
+        for (String operator : doubleOperators.keySet()) {
+            operatorChars.append(operator);
+        }
+        for (int i = 0; i < operatorChars.length(); i++) {
+            char c = operatorChars.charAt(i);
+            if (charClasses[c] == OTHER) {
+                charClasses[c] = (byte) nextClass++;
+            }
+        }
+        numClasses = nextClass;
+
+        // one start state, at most one state per operator character, one per two-character operator
+        int maxStates = 1 + numClasses + doubleOperators.size();
+        int[][] table = new int[maxStates][numClasses];
+        Token.Kind[] kinds = new Token.Kind[maxStates];
+        int numStates = 1;
+
+        table[START][WHITESPACE] = SKIP;
+        table[START][LETTER] = READ_IDENTIFIER;
+        table[START][UNDERSCORE] = READ_IDENTIFIER;
+        table[START][DIGIT] = READ_INTEGER;
+        table[START][QUOTE] = READ_STRING;
+        table[START][EOF] = END_OF_FILE;
+
+        for (Map.Entry<Character,Token.Kind> entry : singleOperators.entrySet()) {
+            int charClass = charClasses[entry.getKey()];
+            if (table[START][charClass] == ILLEGAL) {
+                table[START][charClass] = numStates++;
+            }
+            kinds[table[START][charClass]] = entry.getValue();
+        }
+        for (Map.Entry<String,Token.Kind> entry : doubleOperators.entrySet()) {
+            int firstClass = charClasses[entry.getKey().charAt(0)];
+            if (table[START][firstClass] == ILLEGAL) {
+                // the first char alone is not a token, so the state does not accept
+                table[START][firstClass] = numStates++;
+            }
+            int state = table[START][firstClass];
+            table[state][charClasses[entry.getKey().charAt(1)]] = numStates;
+            kinds[numStates++] = entry.getValue();
+        }
+        int slashState = table[START][charClasses['/']];
+        table[slashState][charClasses['/']] = READ_COMMENT;
+        table[slashState][charClasses['*']] = READ_COMMENT;
+
+        transitions = Arrays.copyOf(table, numStates);
+        acceptingKinds = Arrays.copyOf(kinds, numStates);
+    }
+
+    /**
+     * @param c a character
+     * @return the class of the character.  Characters outside ASCII are classified
+     * with the same Character methods the map-based engine uses.
+     */
+    int classOf(char c) {
+        if (c < 128) {
+            return charClasses[c];
+        }
+        else if (Character.isLetter(c)) {
+            return LETTER;
+        }
+        else if (Character.isDigit(c)) {
+            return DIGIT;
+        }
+        else if (Character.isSpaceChar(c)) {
+            return WHITESPACE;
+        }
+        return OTHER;
+    }
+
+    /**
+     * @return the next state or action, or ILLEGAL if the character class leads nowhere
+     */
+    int transition(int state, int charClass) {
+        return transitions[state][charClass];
+    }
+
+    /**
+     * @return the kind of token recognized when the scanner stops in the state,
+     * or null if the state does not accept
+     */
+    Token.Kind acceptingKind(int state) {
+        return acceptingKinds[state];
+    }
+
+    /**
+     * @return true if the character can continue an identifier
+     */
+    boolean isIdentifierPart(char c) {
+        int charClass = classOf(c);
+        return charClass == LETTER || charClass == DIGIT || charClass == UNDERSCORE;
+    }
+
+    /**
+     * @return true if the character is a digit
+     */
+    boolean isDigit(char c) {
+        return classOf(c) == DIGIT;
+    }
+}
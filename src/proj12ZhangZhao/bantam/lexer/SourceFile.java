@@ -19,10 +19,23 @@ package proj12ZhangZhao.bantam.lexer;
 import proj12ZhangZhao.bantam.util.CompilationException;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 
 /**
  * A class for extracting the characters, one at a time, from a text file or an
  * InputStream.
+ *
+ * A SourceFile works in one of two modes.  When created from a filename or a
+ * char array the whole text is held in a char[] up front and getNextChar()
+ * just indexes into it.  When created from a Reader the characters are read
+ * one at a time as before, but every character read is also appended to the
+ * same array so that the Scanner can take token spellings as slices of it.
  */
 class SourceFile
 {
@@ -30,32 +43,65 @@ class SourceFile
     private static final char cr = '\r';  // carriage return character
     static final char eof = '\u0000';     // end of file character
 
-    private Reader sourceReader;   // the reader of the file
+    private Reader sourceReader;   // the reader of the file (null when fully buffered)
+    private char[] buffer;         // the characters of the file read so far
+    private int length;            // the number of valid characters in buffer
+    private int position;          // the offset of the next character to return
     private int currentLineNumber; // for bantam.error messages
     private int prevChar;          // the previous character read
     private String filename;       // the file currently being scanned.
 
     /**
      * creates a new SourceFile object for the file with the given name
+     * The whole file is loaded into memory at once.
      * Note:  You should always call isValid() to check that the SourceFile
      * was set up properly before calling getNextChar().
      *
      * @param filename the name of the file to be read.
      */
     SourceFile(String filename) {
+        byte[] bytes;
         try {
-            sourceReader = new FileReader(filename);
-        } catch (FileNotFoundException e) {
+            bytes = Files.readAllBytes(Paths.get(filename));
+        } catch (NoSuchFileException | InvalidPathException e) {
             throw new CompilationException("File " + filename + " not found.");
+        } catch (IOException e) {
+            throw new CompilationException("File " + filename + " could not be read.");
         }
+        // decode with the platform charset, the same one FileReader uses
+        CharBuffer chars = Charset.defaultCharset().decode(ByteBuffer.wrap(bytes));
+        buffer = new char[chars.remaining()];
+        chars.get(buffer);
+        length = buffer.length;
         currentLineNumber = 1;
         prevChar = -1;
         this.filename = filename;
     }
 
+    /**
+     * creates a new SourceFile object for text that is already in memory
+     * (e.g. the contents of an editor tab).  The array is used as is, not copied.
+     *
+     * @param text     the characters to be scanned
+     * @param filename the name to report in error messages (may be null)
+     */
+    SourceFile(char[] text, String filename) {
+        buffer = text;
+        length = text.length;
+        currentLineNumber = 1;
+        prevChar = -1;
+        this.filename = filename;
+    }
 
+    /**
+     * creates a new SourceFile object that reads its characters from a Reader
+     * one at a time.
+     *
+     * @param in the reader to take the characters from
+     */
     SourceFile(Reader in) {
         sourceReader = in;
+        buffer = new char[1024];
         currentLineNumber = 1;
         prevChar = -1;
     }
@@ -67,6 +113,60 @@ class SourceFile
 
     String getFilename() { return filename; }
 
+    /**
+     * @return the offset of the next character getNextChar() will return
+     */
+    int getOffset() {
+        return position;
+    }
+
+    /**
+     * @return true if the whole text was loaded before scanning started
+     */
+    boolean isBuffered() {
+        return sourceReader == null;
+    }
+
+    /**
+     * Returns the characters between two offsets that have already been read.
+     *
+     * @param start offset of the first character
+     * @param end   offset just past the last character
+     * @return the text in [start, end)
+     */
+    String getSpelling(int start, int end) {
+        return new String(buffer, start, end - start);
+    }
+
+    /**
+     * Gives direct access to the characters read so far.  Only offsets below
+     * the current offset are valid, and the array may be replaced when a
+     * Reader-backed file grows, so callers should not keep it.
+     *
+     * @return the array holding the source text
+     */
+    char[] getChars() {
+        return buffer;
+    }
+
+    /**
+     * Moves to a point where the character at the given offset has just been
+     * returned by getNextChar(), as if everything before it had been read.
+     * Only for fully buffered files.
+     *
+     * @param offset     the offset of the character just read (the length of the
+     *                   text if the end of the file was just reached)
+     * @param lineNumber the line number after reading that character
+     * @return the character at the offset, or eof
+     */
+    char restartAfter(int offset, int lineNumber) {
+        char c = offset < length ? buffer[offset] : eof;
+        position = Math.min(offset + 1, length);
+        currentLineNumber = lineNumber;
+        prevChar = c;
+        return c;
+    }
+
     /**
      * Finds and returns the next character in the source file.
      * If the end of the file has been reached or an exception occurs,
@@ -77,21 +177,48 @@ class SourceFile
      * @return the next character in the source file
      */
     char getNextChar(){
+        int c;
+        if (position < length) {
+            c = buffer[position++];
+        }
+        else if (sourceReader != null) {
+            c = readFromReader();
+        }
+        else {
+            c = -1;
+        }
+
+        if (c == -1) {
+            c = eof;
+        }
+        else if (c == cr || (c == eol && prevChar != cr)) {
+            currentLineNumber++;
+        }
+        prevChar = c;
+        return (char) c;
+    }
+
+    /**
+     * Reads one more character from the reader and keeps a copy of it in the buffer
+     *
+     * @return the character read or -1 at the end of the input
+     */
+    private int readFromReader() {
         try {
             int c = sourceReader.read();
-
-            if (c == -1) {
-                c = eof;
-            }
-            else if (c == cr || (c == eol && prevChar != cr)) {
-                currentLineNumber++;
+            if (c != -1) {
+                if (length == buffer.length) {
+                    char[] bigger = new char[buffer.length * 2];
+                    System.arraycopy(buffer, 0, bigger, 0, length);
+                    buffer = bigger;
+                }
+                buffer[length++] = (char) c;
+                position++;
             }
-            prevChar = c;
-            return (char) c;
+            return c;
         } catch (IOException e) {
             throw new CompilationException("File " + filename + " could not be read.");
         }
     }
 
 }
-
@@ -15,8 +15,6 @@
 
  package proj12ZhangZhao.bantam.lexer;
 
- import java.util.Set;
-
  public class Token
  {
      //instance variables
@@ -35,11 +33,8 @@
          this.position = position;
 
          //patch the kind in the case of boolean constants and keywords
-         if (kind == Kind.IDENTIFIER && (spelling.equals("true") || spelling.equals("false"))) {
-             this.kind = Kind.BOOLEAN;
-         }
-         else if (kind == Kind.IDENTIFIER && reservedWords.contains(spelling)) {
-             this.kind = Enum.valueOf(Kind.class, spelling.toUpperCase());
+         if (kind == Kind.IDENTIFIER) {
+             this.kind = identifierKind(spelling);
          }
          else {
              this.kind = kind;
@@ -75,8 +70,79 @@
          RETURN, WHILE
      }
 
-     private static Set<String> reservedWords = Set.of("break", "cast", "class", "var",
-             "else", "extends", "for", "if", "instanceof", "new", "return", "while");
+     // the words that change the kind of an IDENTIFIER (the boolean constants and the
+     // reserved words), with the kind each one becomes
+     private static final String[] patchedWords = {"true", "false", "break", "cast", "class",
+             "var", "else", "extends", "for", "if", "instanceof", "new", "return", "while"};
+     private static final Kind[] patchedKinds = {Kind.BOOLEAN, Kind.BOOLEAN, Kind.BREAK, Kind.CAST,
+             Kind.CLASS, Kind.VAR, Kind.ELSE, Kind.EXTENDS, Kind.FOR, Kind.IF, Kind.INSTANCEOF,
+             Kind.NEW, Kind.RETURN, Kind.WHILE};
+
+     // A perfect hash of the patched words: no two of them share a slot, so a lookup
+     // is one hash and at most one comparison.  If a word is added, pick a new
+     // multiplier or table size that keeps the slots distinct (the static block checks).
+     private static final int HASH_TABLE_SIZE = 32;
+     private static final int LAST_CHAR_MULTIPLIER = 7;
+     private static final String[] hashedWords = new String[HASH_TABLE_SIZE];
+     private static final Kind[] hashedKinds = new Kind[HASH_TABLE_SIZE];
+
+     static {
+         for (int i = 0; i < patchedWords.length; i++) {
+             String word = patchedWords[i];
+             int slot = hash(word.charAt(0), word.charAt(word.length() - 1), word.length());
+             if (hashedWords[slot] != null) {
+                 throw new IllegalStateException("keyword hash collision: " + word + " and " + hashedWords[slot]);
+             }
+             hashedWords[slot] = word;
+             hashedKinds[slot] = patchedKinds[i];
+         }
+     }
+
+     private static int hash(char first, char last, int length) {
+         return (first + LAST_CHAR_MULTIPLIER * last + length) & (HASH_TABLE_SIZE - 1);
+     }
+
+     /**
+      * Finds the kind of an identifier spelled by a range of chars, the same way
+      * the constructor patches it, but without creating the spelling.
+      * @param chars the array holding the identifier
+      * @param start the offset of its first char
+      * @param length the number of chars (at least one)
+      * @return BOOLEAN, a reserved word kind, or IDENTIFIER
+      */
+     static Kind identifierKind(char[] chars, int start, int length) {
+         int slot = hash(chars[start], chars[start + length - 1], length);
+         String word = hashedWords[slot];
+         if (word != null && word.length() == length && matches(word, chars, start)) {
+             return hashedKinds[slot];
+         }
+         return Kind.IDENTIFIER;
+     }
+
+     /**
+      * @param spelling the spelling of an identifier
+      * @return BOOLEAN, a reserved word kind, or IDENTIFIER
+      */
+     static Kind identifierKind(String spelling) {
+         int length = spelling.length();
+         if (length == 0) {
+             return Kind.IDENTIFIER;
+         }
+         int slot = hash(spelling.charAt(0), spelling.charAt(length - 1), length);
+         if (spelling.equals(hashedWords[slot])) {
+             return hashedKinds[slot];
+         }
+         return Kind.IDENTIFIER;
+     }
+
+     private static boolean matches(String word, char[] chars, int start) {
+         for (int i = 0; i < word.length(); i++) {
+             if (word.charAt(i) != chars[start + i]) {
+                 return false;
+             }
+         }
+         return true;
+     }
 
  }
 
@@ -0,0 +1,179 @@
+/*
+ * File: TokenBuffer.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.lexer;
+
+import proj12ZhangZhao.bantam.util.Symbol;
+
+import java.util.Arrays;
+
+/**
+ * A compact list of scanned tokens.  Instead of one Token object per token it
+ * keeps parallel int arrays holding the kind, the start offset and length of the
+ * spelling in the source text, and the line number.  Spellings are only turned
+ * into Strings when someone asks for them.
+ */
+public class TokenBuffer
+{
+    private static final Token.Kind[] KINDS = Token.Kind.values();
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final SourceFile source; // the text the offsets refer to
+    private int[] kinds;             // ordinal of each token's kind
+    private int[] starts;            // offset of the first char of each spelling
+    private int[] lengths;           // length of each spelling
+    private int[] lines;             // line number of each token
+    private int size;
+
+    /**
+     * creates an empty buffer for tokens scanned from the given source
+     * @param source the source file the tokens' offsets refer to
+     */
+    TokenBuffer(SourceFile source) {
+        this.source = source;
+        kinds = new int[INITIAL_CAPACITY];
+        starts = new int[INITIAL_CAPACITY];
+        lengths = new int[INITIAL_CAPACITY];
+        lines = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Appends a token
+     * @return the index of the new token
+     */
+    int add(Token.Kind kind, int start, int length, int line) {
+        if (size == kinds.length) {
+            grow();
+        }
+        kinds[size] = kind.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        return size++;
+    }
+
+    /**
+     * @return the number of tokens in the buffer
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the kind of the token
+     */
+    public Token.Kind getKind(int index) {
+        return KINDS[kinds[index]];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the offset of the token's first character in the source
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the number of characters in the token's spelling
+     */
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * @param index the index of a token
+     * @return the line number where the token was found
+     */
+    public int getLine(int index) {
+        return lines[index];
+    }
+
+    /**
+     * Creates the spelling of a token.  A new String is made on every call.
+     * @param index the index of a token
+     * @return the actual sequence of chars in the token
+     */
+    public String getSpelling(int index) {
+        return source.getSpelling(starts[index], starts[index] + lengths[index]);
+    }
+
+    /**
+     * Interns the spelling of a token.  No String is created if the
+     * spelling has been interned before.
+     * @param index the index of a token
+     * @return the symbol spelled by the token
+     */
+    public Symbol getSymbol(int index) {
+        return Symbol.intern(source.getChars(), starts[index], lengths[index]);
+    }
+
+    /**
+     * Compares a token's spelling to a string without creating the spelling
+     * @param index the index of a token
+     * @param spelling the string to compare to
+     * @return true if the token is spelled exactly like the string
+     */
+    public boolean spellingEquals(int index, String spelling) {
+        int length = lengths[index];
+        if (length != spelling.length()) {
+            return false;
+        }
+        char[] chars = source.getChars();
+        int start = starts[index];
+        for (int i = 0; i < length; i++) {
+            if (chars[start + i] != spelling.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a Token object for one entry, for code that still wants Tokens
+     * @param index the index of a token
+     * @return the token at that index
+     */
+    public Token getToken(int index) {
+        return new Token(getKind(index), getSpelling(index), lines[index]);
+    }
+
+    /**
+     * Hashes a range of tokens by their kinds, spellings and lines, counting
+     * the lines from the first token's line and leaving out comments, so the
+     * same code gets the same hash wherever it is in the file
+     * @param from the index of the first token
+     * @param to the index of the last token
+     * @return the hash of the tokens
+     */
+    public long hash(int from, int to) {
+        char[] chars = source.getChars();
+        long hash = 1;
+        for (int i = from; i <= to; i++) {
+            if (KINDS[kinds[i]] == Token.Kind.COMMENT) {
+                continue;
+            }
+            hash = 31 * hash + kinds[i];
+            hash = 31 * hash + lines[i] - lines[from];
+            for (int c = starts[i]; c < starts[i] + lengths[i]; c++) {
+                hash = 31 * hash + chars[c];
+            }
+            hash = 31 * hash + lengths[i];
+        }
+        return hash;
+    }
+
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+    }
+}
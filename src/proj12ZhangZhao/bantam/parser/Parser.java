@@ -15,25 +15,42 @@ import static proj12ZhangZhao.bantam.lexer.Token.Kind.*;
 
 import proj12ZhangZhao.bantam.lexer.Scanner;
 import proj12ZhangZhao.bantam.lexer.Token;
+import proj12ZhangZhao.bantam.lexer.TokenBuffer;
 import proj12ZhangZhao.bantam.util.Error;
 import proj12ZhangZhao.bantam.util.ErrorHandler;
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.ast.*;
 import proj12ZhangZhao.bantam.util.CompilationException;
 
 import java.io.PipedOutputStream;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * This class constructs an AST from a legal Bantam Java program.  If the
  * program is illegal, then one or more error messages are displayed.
+ *
+ * By default the parser stops at the first syntax error by throwing a
+ * CompilationException.  With error recovery on, it registers the error,
+ * skips ahead to the end of the statement, member or class it was parsing,
+ * puts an ErrorStmt or ErrorMember in the AST in its place and goes on, so all
+ * the syntax errors of a file are registered in one parse.
  */
 public class Parser
 {
     // instance variables
-    private Scanner scanner;
-    private Token currentToken; // the lookahead token
+    private Scanner scanner;     // null when parsing an already scanned TokenBuffer
+    private TokenBuffer tokens;  // the tokens scanned so far
+    private int current;         // index in tokens of the lookahead token
     private ErrorHandler errorHandler;
     private String filename;
+    private boolean recovering;  // true to recover from syntax errors instead of stopping
+    private int lastErrorIndex;  // index in tokens of the last syntax error registered
+
+    // the elements of the lists being parsed, innermost list last; each list is
+    // copied out in one go when it is finished, so its array is exactly sized
+    private ASTNode[] pending = new ASTNode[64];
+    private int numPending;
 
     // constructor
     public Parser(ErrorHandler errorHandler) {
@@ -48,10 +65,41 @@ public class Parser
      */
     public Program parse(String filename) {
         this.scanner=new Scanner(filename, this.errorHandler);
+        this.tokens=scanner.getTokenBuffer();
+        this.current=-1;
         this.filename=filename;
+        this.lastErrorIndex=-1;
+        this.numPending=0;
         return this.parseProgram();
     }
 
+    /**
+     * parse tokens that have already been scanned and return the root node of the AST
+     * @param tokens all the tokens of a file, ending with the EOF token
+     *               (as returned by Scanner.tokenizeAll())
+     * @param filename The name of the Bantam Java file the tokens came from
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    public Program parse(TokenBuffer tokens, String filename) {
+        this.scanner=null;
+        this.tokens=tokens;
+        this.current=-1;
+        this.filename=filename;
+        this.lastErrorIndex=-1;
+        this.numPending=0;
+        return this.parseProgram();
+    }
+
+    /**
+     * Turns error recovery on or off.  With it on, parse returns an AST even if the
+     * program has syntax errors, and the caller should check the ErrorHandler for errors.
+     * @param recovering true to register all the syntax errors of a file instead of
+     *                   throwing a CompilationException at the first one
+     */
+    public void setErrorRecovery(boolean recovering) {
+        this.recovering = recovering;
+    }
+
     public static void main(String[] argv){
         if(argv.length == 0){
             System.out.println("Please Provide Test Files");
@@ -61,20 +109,22 @@ public class Parser
         for(String filename: argv) {
             ErrorHandler errorHandler = new ErrorHandler();
             Parser parser = new Parser(errorHandler);
+            parser.setErrorRecovery(true);
 
             try {
                 parser.parse(filename);
-                System.out.println("Parsing Successful.");
             }catch(CompilationException e){
-                if(errorHandler.errorsFound()){
-                    System.out.println(filename + ": Parsing Failed");
-                    List<Error> errorList= errorHandler.getErrorList();
-                    for(Error error:errorList ){
-                        System.out.println(error.toString() + "\n");
-                    }
-                }else{
-                    System.out.println("Invalid filename: "+filename);
+                System.out.println("Invalid filename: "+filename);
+                continue;
+            }
+            if(errorHandler.errorsFound()){
+                System.out.println(filename + ": Parsing Failed");
+                List<Error> errorList= errorHandler.getErrorList();
+                for(Error error:errorList ){
+                    System.out.println(error.toString() + "\n");
                 }
+            }else{
+                System.out.println("Parsing Successful.");
             }
         }
     }
@@ -85,15 +135,23 @@ public class Parser
      */
     private Program parseProgram(){
         updateCurrentToken();
-        int position = currentToken.position;
-        ClassList classList = new ClassList(position);
+        int position = currentPosition();
+        int listStart = numPending;
 
-        while (currentToken.kind != EOF) {
-            Class_ aClass = parseClass();
-            classList.addElement(aClass);
-            updateCurrentToken();
+        while (currentKind() != EOF) {
+            int classStart = numPending;
+            try {
+                Class_ aClass = parseClass();
+                addPending(aClass);
+                updateCurrentToken();
+            }
+            catch (SyntaxError e) {
+                //the class is left out of the AST
+                this.truncatePending(classStart);
+                this.skipToClass();
+            }
         }
-        return new Program(position, classList);
+        return new Program(position, finishList(new ClassList(position), listStart));
     }
 
 
@@ -103,27 +161,41 @@ public class Parser
      * <MemberList> ::= EMPTY | <Member> <MemberList>
      */
     private Class_ parseClass() {
-        int position = currentToken.position;
-        String parent=null;
-        MemberList memberList= new MemberList(position);
+        int position = currentPosition();
+        int first = current;
+        Symbol parent=null;
         this.checkToken(CLASS,"When parsing class, class expected." );
-        String name = parseIdentifier();
+        Symbol name = parseIdentifierSymbol();
 
-        if (currentToken.kind==EXTENDS){
+        if (currentKind()==EXTENDS){
             updateCurrentToken();
-            parent =parseIdentifier();
+            parent =parseIdentifierSymbol();
         }
 
         this.checkToken(LCURLY,"When parsing class, \"{\" expected.");
 
-        while (currentToken.kind!= RCURLY){
-            if (currentToken.kind == EOF){
+        int listStart = numPending;
+        while (currentKind()!= RCURLY){
+            // with recovery on, a class keyword also ends the class, so the next class is still parsed
+            if (currentKind() == EOF || (this.recovering && currentKind() == CLASS)){
                 this.registerError("When parsing class, \"}\" expected.",
                         "Unexpected Token");
             }
-            memberList.addElement(parseMember());
+            int memberPosition = currentPosition();
+            int memberStart = numPending;
+            try {
+                addPending(parseMember());
+            }
+            catch (SyntaxError e) {
+                this.truncatePending(memberStart);
+                this.skipToMemberEnd();
+                addPending(new ErrorMember(memberPosition));
+            }
         }
-        return new Class_(position,filename,name, parent, memberList);
+        MemberList memberList = finishList(new MemberList(position), listStart);
+        Class_ aClass = new Class_(position,filename,name, parent, memberList);
+        aClass.setSourceHash(tokens.hash(first, current));
+        return aClass;
     }
 
 
@@ -134,7 +206,7 @@ public class Parser
      * <InitialValue> ::= EMPTY | = <Expression>
      */
      private Member parseMember() {
-         int position= currentToken.position;
+         int position= currentPosition();
          FormalList formalList;
          StmtList stmtList;
          Expr expr;
@@ -143,9 +215,9 @@ public class Parser
          String type =parseType();
 
          //name
-         String identifier =parseIdentifier();
+         Symbol identifier =parseIdentifierSymbol();
 
-         if(currentToken.kind == LPAREN){
+         if(currentKind() == LPAREN){
              //Method case
             updateCurrentToken();
             formalList=parseParameters();
@@ -155,7 +227,7 @@ public class Parser
             return new Method(position,type, identifier, formalList, stmtList );
         }
 
-         else if (currentToken.kind== ASSIGN){
+         else if (currentKind()== ASSIGN){
              //non-empty field case
              updateCurrentToken();
              expr=parseExpression();
@@ -164,7 +236,7 @@ public class Parser
 
          }
 
-         else if (currentToken.kind==SEMICOLON){
+         else if (currentKind()==SEMICOLON){
              //empty field case
              updateCurrentToken();
              return new Field(position,type, identifier, null);
@@ -185,31 +257,41 @@ public class Parser
      */
      private Stmt parseStatement() {
             Stmt stmt;
+            int start = current;
+            int position = currentPosition();
+            int pendingStart = numPending;
 
-            switch (currentToken.kind) {
-                case IF:
-                    stmt = parseIf();
-                    break;
-                case LCURLY:
-                    stmt = parseBlock();
-                    break;
-                case VAR:
-                    stmt = parseDeclStmt();
-                    break;
-                case RETURN:
-                    stmt = parseReturn();
-                    break;
-                case FOR:
-                    stmt = parseFor();
-                    break;
-                case WHILE:
-                    stmt = parseWhile();
-                    break;
-                case BREAK:
-                    stmt = parseBreak();
-                    break;
-                default:
-                    stmt = parseExpressionStmt();
+            try {
+                switch (currentKind()) {
+                    case IF:
+                        stmt = parseIf();
+                        break;
+                    case LCURLY:
+                        stmt = parseBlock();
+                        break;
+                    case VAR:
+                        stmt = parseDeclStmt();
+                        break;
+                    case RETURN:
+                        stmt = parseReturn();
+                        break;
+                    case FOR:
+                        stmt = parseFor();
+                        break;
+                    case WHILE:
+                        stmt = parseWhile();
+                        break;
+                    case BREAK:
+                        stmt = parseBreak();
+                        break;
+                    default:
+                        stmt = parseExpressionStmt();
+                }
+            }
+            catch (SyntaxError e) {
+                this.truncatePending(pendingStart);
+                this.skipToStatementEnd(start);
+                stmt = new ErrorStmt(position);
             }
 
             return stmt;
@@ -220,7 +302,7 @@ public class Parser
      * <WhileStmt> ::= WHILE ( <Expression> ) <Stmt>
      */
     private Stmt parseWhile() {
-        int position = this.currentToken.position;
+        int position = currentPosition();
         updateCurrentToken();
         this.checkToken(LPAREN,"When parsing while, \"(\" expected.");
         Expr predExpr = this.parseExpression();
@@ -235,8 +317,8 @@ public class Parser
      */
 	private Stmt parseReturn() {
 	    updateCurrentToken();
-	    int position = this.currentToken.position;
-	    if(this.currentToken.kind == SEMICOLON){
+	    int position = currentPosition();
+	    if(currentKind() == SEMICOLON){
 	        updateCurrentToken();
 	        return new ReturnStmt(position, null);
         }else{
@@ -252,9 +334,9 @@ public class Parser
      */
 	private Stmt parseBreak() {
 	    updateCurrentToken();
-	    int position = this.currentToken.position;
+	    int position = currentPosition();
 	    this.checkToken(SEMICOLON,"When parsing Break, \";\" expected");
-        return new BreakStmt(this.currentToken.position);
+        return new BreakStmt(currentPosition());
     }
 
 
@@ -263,7 +345,7 @@ public class Parser
      */
 	private ExprStmt parseExpressionStmt() {
 	    Expr expr = this.parseExpression();
-	    int position = this.currentToken.position;
+	    int position = currentPosition();
 	    this.checkToken(SEMICOLON, "When parsing ExpressionStmt\";\" expected");
 	    return new ExprStmt(position,expr);
     }
@@ -275,8 +357,8 @@ public class Parser
      */
 	private Stmt parseDeclStmt() {
 	    updateCurrentToken();
-	    int position = this.currentToken.position;
-	    String name = this.parseIdentifier();
+	    int position = currentPosition();
+	    Symbol name = this.parseIdentifierSymbol();
 
 	    this.checkToken(ASSIGN, "When parsing DeclStmt, \"=\" expected");
         Expr expr = this.parseExpression();
@@ -294,12 +376,12 @@ public class Parser
      * <Increment> ::= EMPTY | <Expression>
      */
     private Stmt parseFor() {
-        int position = this.currentToken.position;
+        int position = currentPosition();
         updateCurrentToken();
 
         this.checkToken(LPAREN, "When parsing For, \"(\" expected");
         Expr initExpr;
-        if (this.currentToken.spelling.equals(";")){
+        if (currentIs(";")){
             initExpr = null;
         } else {
             initExpr = this.parseExpression();
@@ -307,7 +389,7 @@ public class Parser
 
         this.checkToken(SEMICOLON,"When parsing For, \";\" expected");
         Expr predExpr;
-        if (this.currentToken.spelling.equals(";")){
+        if (currentIs(";")){
             predExpr = null;
         } else{
             predExpr = this.parseExpression();
@@ -315,7 +397,7 @@ public class Parser
 
         this.checkToken(SEMICOLON, "When parsing For, \";\" expected");
         Expr updateExpr;
-        if (this.currentToken.spelling.equals(")")){
+        if (currentIs(")")){
             updateExpr = null;
         } else {
             updateExpr = this.parseExpression();
@@ -332,19 +414,19 @@ public class Parser
      * <Body> ::= EMPTY | <Stmt> <Body>
      */
 	private Stmt parseBlock() {
-        int position = this.currentToken.position;
-        StmtList stmtList = new StmtList(position);
+        int position = currentPosition();
         this.checkToken(LCURLY,"When parsing Block\"{\" expected" );
 
-        while(this.currentToken.kind != RCURLY){
-            if (currentToken.kind == EOF){
+        int listStart = numPending;
+        while(currentKind() != RCURLY){
+            if (currentKind() == EOF || (this.recovering && currentKind() == CLASS)){
                 this.registerError("When parsing Block\"}\" expected","Unexpected Token");
             }
-            stmtList.addElement(this.parseStatement());
+            addPending(this.parseStatement());
 
         }
         updateCurrentToken();
-	    return new BlockStmt(position, stmtList);
+	    return new BlockStmt(position, finishList(new StmtList(position), listStart));
     }
 
 
@@ -352,7 +434,7 @@ public class Parser
 	 * <IfStmt> ::= IF ( <Expr> ) <Stmt> | IF ( <Expr> ) <Stmt> ELSE <Stmt>
      */
 	private Stmt parseIf() {
-	    int position = this.currentToken.position;
+	    int position = currentPosition();
         Stmt elseStmt;
         updateCurrentToken();
 
@@ -362,7 +444,7 @@ public class Parser
         this.checkToken(RPAREN,"When parsing If, \")\" expected");
         Stmt thenStmt = this.parseStatement();
 
-        if(this.currentToken.kind == ELSE){
+        if(currentKind() == ELSE){
             updateCurrentToken();
             elseStmt = this.parseStatement();
         }
@@ -382,8 +464,8 @@ public class Parser
      * <OptionalAssignment> ::= EMPTY | = <Expression>
      */
 	private Expr parseExpression(){
-        int position = this.currentToken.position;
-        if(this.currentToken.spelling.equals(";")){
+        int position = currentPosition();
+        if(currentIs(";")){
             this.registerError("Empty expression on the left of assignment",
                     "Error in Parsing Expression");
             return null;
@@ -391,22 +473,22 @@ public class Parser
         else {
             Expr left = this.parseOrExpr();
 
-            if (this.currentToken.kind == ASSIGN) {
+            if (currentKind() == ASSIGN) {
                 if (left instanceof VarExpr) {
-                    String refName = null;
+                    Symbol refName = null;
                     if (((VarExpr) left).getRef() != null) {
-                        refName = ((VarExpr) ((VarExpr) left).getRef()).getName();
+                        refName = ((VarExpr) ((VarExpr) left).getRef()).getNameSymbol();
                     }
-                    String name = ((VarExpr) left).getName();
+                    Symbol name = ((VarExpr) left).getNameSymbol();
                     updateCurrentToken();
 
                     return new AssignExpr(position, refName, name, this.parseExpression());
                 } else if (left instanceof ArrayExpr) {
-                    String refName = null;
+                    Symbol refName = null;
                     if (((ArrayExpr) left).getRef() != null) {
-                        refName = ((ArrayExpr) ((ArrayExpr) left).getRef()).getName();
+                        refName = ((ArrayExpr) ((ArrayExpr) left).getRef()).getNameSymbol();
                     }
-                    String name = ((ArrayExpr) left).getName();
+                    Symbol name = ((ArrayExpr) left).getNameSymbol();
                     Expr index = ((ArrayExpr) left).getIndex();
                     updateCurrentToken();
                     return new ArrayAssignExpr(position, refName, name, index, this.parseExpression());
@@ -428,10 +510,10 @@ public class Parser
      * <LogicalORRest> ::= EMPTY |  || <LogicalAND> <LogicalORRest>
      */
 	private Expr parseOrExpr() {
-        int position = currentToken.position;
+        int position = currentPosition();
 
         Expr left = parseAndExpr();
-        while (this.currentToken.spelling.equals("||")) {
+        while (currentIs("||")) {
             updateCurrentToken();
             Expr right = parseAndExpr();
             left = new BinaryLogicOrExpr(position, left, right);
@@ -446,9 +528,9 @@ public class Parser
      * <LogicalANDRest> ::= EMPTY |  && <ComparisonExpr> <LogicalANDRest>
      */
 	private Expr parseAndExpr() {
-	    int position =currentToken.position;
+	    int position =currentPosition();
 	    Expr left= parseEqualityExpr();
-	    while (this.currentToken.spelling.equals("&&")){
+	    while (currentIs("&&")){
 	        updateCurrentToken();
 	        Expr right=parseEqualityExpr();
 	        left= new BinaryLogicAndExpr(position,left, right);
@@ -464,15 +546,14 @@ public class Parser
      * <equalOrNotEqual> ::=  == | !=
      */
 	private Expr parseEqualityExpr() {
-	    int position= currentToken.position;
+	    int position= currentPosition();
 	    Expr left = parseRelationalExpr();
-	    String operator = this.parseOperator();
-	    if(operator.equals("==")){
+	    if(currentIs("==")){
 	        updateCurrentToken();
 	        Expr right= parseRelationalExpr();
 	        left=new BinaryCompEqExpr(position,left,right);
         }
-        else if(operator.equals("!=")){
+        else if(currentIs("!=")){
             updateCurrentToken();
             Expr right= parseRelationalExpr();
             left=new BinaryCompNeExpr(position,left,right);
@@ -486,28 +567,29 @@ public class Parser
      * <ComparisonOp> ::=  < | > | <= | >= | INSTANCEOF
      */
 	private Expr parseRelationalExpr() {
-	    int position = this.currentToken.position;
+	    int position = currentPosition();
 	    Expr left = this.parseAddExpr();
-	    String operator = this.parseOperator();
-        switch (operator) {
-            case "<":
-                updateCurrentToken();
-                return new BinaryCompLtExpr(position, left, this.parseAddExpr());
-            case "<=":
-                updateCurrentToken();
-                return new BinaryCompLeqExpr(position, left, this.parseAddExpr());
-            case ">":
-                updateCurrentToken();
-                return new BinaryCompGtExpr(position, left, this.parseAddExpr());
-            case ">=":
-                updateCurrentToken();
-                return new BinaryCompGeqExpr(position, left, this.parseAddExpr());
-            case "instanceof":
-                updateCurrentToken();
-                return new InstanceofExpr(position, left, this.parseType());
-            default:
-                return left;
+        if (currentIs("<")) {
+            updateCurrentToken();
+            return new BinaryCompLtExpr(position, left, this.parseAddExpr());
+        }
+        else if (currentIs("<=")) {
+            updateCurrentToken();
+            return new BinaryCompLeqExpr(position, left, this.parseAddExpr());
+        }
+        else if (currentIs(">")) {
+            updateCurrentToken();
+            return new BinaryCompGtExpr(position, left, this.parseAddExpr());
         }
+        else if (currentIs(">=")) {
+            updateCurrentToken();
+            return new BinaryCompGeqExpr(position, left, this.parseAddExpr());
+        }
+        else if (currentIs("instanceof")) {
+            updateCurrentToken();
+            return new InstanceofExpr(position, left, this.parseType());
+        }
+        return left;
     }
 
     //-----------------------------------------------------------------
@@ -516,16 +598,16 @@ public class Parser
      * <MoreMultExpr> ::= EMPTY | + <MultExpr> <MoreMultExpr> | - <MultExpr> <MoreMultExpr>
      */
 	private Expr parseAddExpr() {
-        int position = this.currentToken.position;
+        int position = currentPosition();
 
         Expr left = parseMultExpr();
-        while (this.currentToken.spelling.equals("+") || this.currentToken.spelling.equals("-")) {
-            if(this.currentToken.spelling.equals("+")){
+        while (currentIs("+") || currentIs("-")) {
+            if(currentIs("+")){
                 updateCurrentToken();
                 Expr right = parseMultExpr();
                 left = new BinaryArithPlusExpr(position, left, right);
             }
-            else if(this.currentToken.spelling.equals("-")){
+            else if(currentIs("-")){
                 updateCurrentToken();
                 Expr right= parseMultExpr();
                 left = new BinaryArithMinusExpr(position, left, right);
@@ -544,28 +626,26 @@ public class Parser
      *               EMPTY
      */
 	private Expr parseMultExpr() {
-        int position = this.currentToken.position;
+        int position = currentPosition();
 
         Expr left = parseNewCastOrUnary();
         Expr right;
-        while (this.currentToken.spelling.equals("*") || this.currentToken.spelling.equals("/")
-                || this.currentToken.spelling.equals("%")) {
-            switch(this.currentToken.spelling) {
-                case "*":
-                    updateCurrentToken();
-                    right = parseNewCastOrUnary();
-                    left = new BinaryArithTimesExpr(position, left, right);
-                    break;
-                case "/":
-                    updateCurrentToken();
-                    right = parseNewCastOrUnary();
-                    left = new BinaryArithDivideExpr(position, left, right);
-                    break;
-                case "%":
-                    updateCurrentToken();
-                    right = parseNewCastOrUnary();
-                    left = new BinaryArithModulusExpr(position, left, right);
-                    break;
+        while (currentIs("*") || currentIs("/")
+                || currentIs("%")) {
+            if (currentIs("*")) {
+                updateCurrentToken();
+                right = parseNewCastOrUnary();
+                left = new BinaryArithTimesExpr(position, left, right);
+            }
+            else if (currentIs("/")) {
+                updateCurrentToken();
+                right = parseNewCastOrUnary();
+                left = new BinaryArithDivideExpr(position, left, right);
+            }
+            else {
+                updateCurrentToken();
+                right = parseNewCastOrUnary();
+                left = new BinaryArithModulusExpr(position, left, right);
             }
         }
 
@@ -578,10 +658,10 @@ public class Parser
      */
 	private Expr parseNewCastOrUnary() {
         Expr castOrUnary;
-        if(this.currentToken.kind == NEW){
+        if(currentKind() == NEW){
             castOrUnary=parseNew();
         }
-        else if(this.currentToken.kind == CAST){
+        else if(currentKind() == CAST){
             castOrUnary=parseCast();
         }
         else{
@@ -597,16 +677,16 @@ public class Parser
 	private Expr parseNew() {
 	    updateCurrentToken();
 	    String id = this.parseIdentifier();
-	    if(this.currentToken.kind == LPAREN){
+	    if(currentKind() == LPAREN){
             updateCurrentToken();
             this.checkToken(RPAREN,"When parsing New, \")\" expected");
-            return new NewExpr(this.currentToken.position,id);
-        }else if(this.currentToken.kind == LBRACKET){
+            return new NewExpr(currentPosition(),id);
+        }else if(currentKind() == LBRACKET){
             updateCurrentToken();
             Expr expr = this.parseExpression();
             this.checkToken(RBRACKET,"When parsing New, \"]\" expected");
             //System.out.println("Array type " + id);
-            return new NewArrayExpr(this.currentToken.position,id + "[]",expr);
+            return new NewArrayExpr(currentPosition(),id + "[]",expr);
         }else{
             this.registerError("When parsing New, \"(\" or \"[\" expected",
                     "Unexpected Token");
@@ -625,7 +705,7 @@ public class Parser
         this.checkToken(COMMA,"When parsing Cast, \",\" expected");
         Expr expr = this.parseExpression();
         this.checkToken(RPAREN, "When parsing Cast, \")\" expected");
-        return new CastExpr( this.currentToken.position, type, expr);
+        return new CastExpr( currentPosition(), type, expr);
     }
 
 
@@ -634,23 +714,23 @@ public class Parser
      * <PrefixOp> ::= - | ! | ++ | --
      */
 	private Expr parseUnaryPrefix() {
-	    String operator = this.parseOperator();
-	    switch (operator) {
-            case "-":
-                updateCurrentToken();
-                return new UnaryNegExpr(this.currentToken.position, this.parseUnaryPrefix());
-            case "!":
-                updateCurrentToken();
-                return new UnaryNotExpr(this.currentToken.position, this.parseUnaryPrefix());
-            case "++":
-                updateCurrentToken();
-                return new UnaryIncrExpr(this.currentToken.position, this.parseUnaryPrefix(), false);
-            case "--":
-                updateCurrentToken();
-                return new UnaryDecrExpr(this.currentToken.position, this.parseUnaryPrefix(), false);
-            default:
-                return this.parseUnaryPostfix();
-	    }
+	    if (currentIs("-")) {
+            updateCurrentToken();
+            return new UnaryNegExpr(this.currentPosition(), this.parseUnaryPrefix());
+        }
+        else if (currentIs("!")) {
+            updateCurrentToken();
+            return new UnaryNotExpr(this.currentPosition(), this.parseUnaryPrefix());
+        }
+        else if (currentIs("++")) {
+            updateCurrentToken();
+            return new UnaryIncrExpr(this.currentPosition(), this.parseUnaryPrefix(), false);
+        }
+        else if (currentIs("--")) {
+            updateCurrentToken();
+            return new UnaryDecrExpr(this.currentPosition(), this.parseUnaryPrefix(), false);
+        }
+        return this.parseUnaryPostfix();
     }
 
 
@@ -660,12 +740,12 @@ public class Parser
      */
 	private Expr parseUnaryPostfix() {
 	    Expr primary = this.parsePrimary();
-	    if(this.currentToken.spelling.equals("++")){
+	    if(currentIs("++")){
 	        updateCurrentToken();
-	        return new UnaryIncrExpr(this.currentToken.position,primary,true);
-        }else if(this.currentToken.spelling.equals("--")){
+	        return new UnaryIncrExpr(currentPosition(),primary,true);
+        }else if(currentIs("--")){
 	        updateCurrentToken();
-	        return new UnaryDecrExpr(this.currentToken.position,primary,true);
+	        return new UnaryDecrExpr(currentPosition(),primary,true);
         }
         return primary;
     }
@@ -683,20 +763,20 @@ public class Parser
      */
 
 	private Expr parsePrimary() {
-	    int position = this.currentToken.position;
+	    int position = currentPosition();
 	    Expr tempExpr = null;
         String identifier;
-        switch (this.currentToken.kind) {
+        switch (currentKind()) {
             case LPAREN: // (<Expression>)
                 updateCurrentToken();
                 Expr expr = this.parseExpression();
                 this.checkToken(RPAREN, "When parsing (Expr), \")\" expected");
                 tempExpr = expr;
-                if(currentToken.kind == LBRACKET){
+                if(currentKind() == LBRACKET){
                     updateCurrentToken();
                     Expr varExprSuffix = this.parseExpression();
                     this.checkToken(RBRACKET, "When parsing varExpr, \"]\" expected");
-                    tempExpr= new ArrayExpr(position, tempExpr, null, varExprSuffix);
+                    tempExpr= new ArrayExpr(position, tempExpr, (Symbol) null, varExprSuffix);
                 }
                 break;
             case INTCONST: // <IntegerConst>
@@ -714,7 +794,7 @@ public class Parser
         }
 
         //--------------------------------------------End of cases------------------------------------------------------
-        while(currentToken.kind == DOT ){
+        while(currentKind() == DOT ){
             updateCurrentToken();
             tempExpr = this.parseSuffix(tempExpr);
         }
@@ -723,24 +803,24 @@ public class Parser
     }
 
     private Expr parseSuffix(Expr suffix){
-        String identifier = parseIdentifier();
+        Symbol identifier = parseIdentifierSymbol();
         Expr tempExpr;
 
 
-        if(this.currentToken.kind == LBRACKET){
+        if(currentKind() == LBRACKET){
             updateCurrentToken();
             Expr varExprSuffix = this.parseExpression();
             this.checkToken(RBRACKET, "When parsing varExpr, \"]\" expected");
-            tempExpr= new ArrayExpr(this.currentToken.position, suffix, identifier, varExprSuffix);
+            tempExpr= new ArrayExpr(currentPosition(), suffix, identifier, varExprSuffix);
         }
-        else if(this.currentToken.kind==LPAREN) {
+        else if(currentKind()==LPAREN) {
             updateCurrentToken();
             ExprList argument = parseArguments();
             this.checkToken(RPAREN, "When parsing varExpr, \")\" expected");
-            tempExpr = new DispatchExpr(this.currentToken.position, suffix, identifier, argument);
+            tempExpr = new DispatchExpr(currentPosition(), suffix, identifier, argument);
         }
         else{
-            tempExpr = new VarExpr( this.currentToken.position, suffix, identifier);
+            tempExpr = new VarExpr( currentPosition(), suffix, identifier);
         }
 
         return tempExpr;
@@ -752,19 +832,19 @@ public class Parser
      * <MoreArgs>  ::= EMPTY | , <Expression> <MoreArgs>
      */
 	private ExprList parseArguments() {
-        int position = this.currentToken.position;
-	    ExprList exprList = new ExprList(position);
-	    while (this.currentToken.kind != RPAREN) {
-	        exprList.addElement(this.parseExpression());
-	        if (this.currentToken.kind != COMMA ) {
-	            if(this.currentToken.kind != RPAREN) {
+        int position = currentPosition();
+	    int listStart = numPending;
+	    while (currentKind() != RPAREN) {
+	        addPending(this.parseExpression());
+	        if (currentKind() != COMMA ) {
+	            if(currentKind() != RPAREN) {
                     this.registerError("When parsing Arguments, \",\" expected",
                             "Unexpected Token");
                 }else{ break; }
             }
             updateCurrentToken();
         }
-        return exprList;
+        return finishList(new ExprList(position), listStart);
     }
 
 
@@ -774,12 +854,12 @@ public class Parser
      * <MoreFormals> ::= EMPTY | , <Formal> <MoreFormals
      */
 	private FormalList parseParameters() {
-	    int position = this.currentToken.position;
-	    FormalList formalList = new FormalList(position);
-	    while (this.currentToken.kind != RPAREN) {
-	        formalList.addElement(this.parseFormal());
-	        if (this.currentToken.kind != COMMA) {
-	            if(this.currentToken.kind != RPAREN){
+	    int position = currentPosition();
+	    int listStart = numPending;
+	    while (currentKind() != RPAREN) {
+	        addPending(this.parseFormal());
+	        if (currentKind() != COMMA) {
+	            if(currentKind() != RPAREN){
                     this.registerError("When parsing Parameters, \\\",\\\" expected",
                             "Unexpected Token");
                 }
@@ -787,7 +867,7 @@ public class Parser
             }
             updateCurrentToken();
         }
-        return formalList;
+        return finishList(new FormalList(position), listStart);
     }
 
 
@@ -798,7 +878,7 @@ public class Parser
 	    String type = this.parseType();
 	    String id = this.parseIdentifier();
 
-        return new Formal(this.currentToken.position, type, id);
+        return new Formal(currentPosition(), type, id);
     }
 
 
@@ -810,7 +890,7 @@ public class Parser
 	private String parseType() {
 	    String id = this.parseIdentifier();
 
-	    if(this.currentToken.kind == LBRACKET){
+	    if(currentKind() == LBRACKET){
 	        updateCurrentToken();
 	        this.checkToken(RBRACKET, "When parsing Type, \\\"]\\\" expected");
 	        id = id +"[]";
@@ -822,34 +902,38 @@ public class Parser
     //----------------------------------------
     //Terminals
 
-	private String parseOperator() {
-	    return this.currentToken.spelling;
+    private String parseIdentifier() {
+        return parseIdentifierSymbol().getName();
     }
 
 
-    private String parseIdentifier() {
-        String identifier = this.currentToken.spelling;
-	    this.checkToken(IDENTIFIER,"When parsing Identifier, Identifier expected");
+    private Symbol parseIdentifierSymbol() {
+        // check the kind first, so only identifiers are added to the symbol pool
+        if(currentKind() != IDENTIFIER){
+            this.registerError("When parsing Identifier, Identifier expected", "Unexpected Token");
+        }
+        Symbol identifier = tokens.getSymbol(current);
+        updateCurrentToken();
 	    return identifier;
     }
 
 
     private ConstStringExpr parseStringConst() {
-	    ConstStringExpr constStringExpr = new ConstStringExpr(this.currentToken.position,this.currentToken.spelling);
+	    ConstStringExpr constStringExpr = new ConstStringExpr(currentPosition(),currentSpelling());
 	    updateCurrentToken();
 	    return constStringExpr;
     }
 
 
     private ConstIntExpr parseIntConst() {
-	    ConstIntExpr constIntExpr = new ConstIntExpr(this.currentToken.position,this.currentToken.spelling);
+	    ConstIntExpr constIntExpr = new ConstIntExpr(currentPosition(),currentSpelling());
 	    updateCurrentToken();
         return constIntExpr;
     }
 
 
     private ConstBooleanExpr parseBoolean() {
-	    ConstBooleanExpr constBooleanExpr = new ConstBooleanExpr(this.currentToken.position,this.currentToken.spelling);
+	    ConstBooleanExpr constBooleanExpr = new ConstBooleanExpr(currentPosition(),currentSpelling());
 	    updateCurrentToken();
         return constBooleanExpr;
     }
@@ -859,30 +943,217 @@ public class Parser
      * Ignores comment tokens
      */
     private void updateCurrentToken(){
-	    this.currentToken = scanner.scan();
-	    while(this.currentToken.kind == COMMENT){
-	        this.currentToken = scanner.scan();
+        nextToken();
+	    while(currentKind() == COMMENT){
+	        nextToken();
         }
     }
 
     /**
-     * Throws errors
+     * Moves to the next token in the buffer, scanning it first if it has not been
+     * scanned yet.  Scanning lazily keeps lexical errors from being reported
+     * before the parse errors that come ahead of them.
+     */
+    private void nextToken(){
+        if(current + 1 < tokens.size()){
+            current++;
+        }
+        else if(scanner != null){
+            current = scanner.scanIntoBuffer();
+        }
+        //past the end of a pre-scanned buffer, stay on its EOF token
+    }
+
+    private Token.Kind currentKind(){
+        return tokens.getKind(current);
+    }
+
+    private int currentPosition(){
+        return tokens.getLine(current);
+    }
+
+    private String currentSpelling(){
+        return tokens.getSpelling(current);
+    }
+
+    /**
+     * @return true if the lookahead token is spelled exactly like the given string
+     */
+    private boolean currentIs(String spelling){
+        return tokens.spellingEquals(current, spelling);
+    }
+
+    /**
+     * Throws errors.  With error recovery on, a SyntaxError is thrown instead of a
+     * CompilationException, and an error at the same token as the previous one is
+     * not registered again, as it comes from the same mistake.
      * @param errorMessage message passed to errorHandler
      * @param compilationMessage message passed to CompilationException
      */
     private void registerError(String errorMessage,String compilationMessage){
+        if(this.recovering){
+            if(current != lastErrorIndex){
+                this.errorHandler.register(Error.Kind.PARSE_ERROR,this.filename,
+                        currentPosition(),errorMessage);
+                lastErrorIndex = current;
+            }
+            throw new SyntaxError();
+        }
         this.errorHandler.register(Error.Kind.PARSE_ERROR,this.filename,
-                this.currentToken.position,errorMessage);
+                currentPosition(),errorMessage);
         throw new CompilationException(compilationMessage);
     }
 
+    //----------------------------------------
+    //Lists
+
+    /**
+     * Adds an element to the list being parsed
+     * @param node the element
+     */
+    private void addPending(ASTNode node){
+        if(numPending == pending.length){
+            pending = Arrays.copyOf(pending, numPending * 2);
+        }
+        pending[numPending++] = node;
+    }
+
+    /**
+     * Moves the elements of the list being parsed into its node, all at once
+     * @param list the empty node of the list
+     * @param listStart the number of pending elements when the list was started
+     * @return the list
+     */
+    private <T extends ListNode> T finishList(T list, int listStart){
+        list.addElements(pending, listStart, numPending - listStart);
+        truncatePending(listStart);
+        return list;
+    }
+
+    /**
+     * Drops the pending elements from an index on, such as those of the lists
+     * in a statement, member or class left out after a syntax error
+     * @param start the number of pending elements to keep
+     */
+    private void truncatePending(int start){
+        Arrays.fill(pending, start, numPending, null);
+        numPending = start;
+    }
+
+    //----------------------------------------
+    //Error recovery
+
+    /**
+     * Skips the rest of a statement that could not be parsed: up to and including
+     * the semicolon ending it or the brace closing a block in it.  Stops before the
+     * brace closing the enclosing block, the start of the next statement, the next
+     * class, or the end of the file.
+     * @param start index in tokens of the first token of the statement
+     */
+    private void skipToStatementEnd(int start){
+        int depth = 0;
+        while(true){
+            switch(currentKind()){
+                case EOF:
+                case CLASS:
+                    return;
+                case IF:
+                case WHILE:
+                case FOR:
+                case RETURN:
+                case BREAK:
+                case VAR:
+                    if(depth == 0 && current != start){
+                        return;
+                    }
+                    break;
+                case LCURLY:
+                    depth++;
+                    break;
+                case RCURLY:
+                    if(depth == 0){
+                        return;
+                    }
+                    depth--;
+                    if(depth == 0){
+                        updateCurrentToken();
+                        return;
+                    }
+                    break;
+                case SEMICOLON:
+                    if(depth == 0){
+                        updateCurrentToken();
+                        return;
+                    }
+                    break;
+            }
+            updateCurrentToken();
+        }
+    }
+
+    /**
+     * Skips the rest of a field or method that could not be parsed: up to and
+     * including the semicolon ending a field or the brace closing a method body.
+     * Stops before the brace closing the class, the next class, or the end of the file.
+     */
+    private void skipToMemberEnd(){
+        int depth = 0;
+        while(true){
+            switch(currentKind()){
+                case EOF:
+                case CLASS:
+                    return;
+                case LCURLY:
+                    depth++;
+                    break;
+                case RCURLY:
+                    if(depth == 0){
+                        return;
+                    }
+                    depth--;
+                    if(depth == 0){
+                        updateCurrentToken();
+                        return;
+                    }
+                    break;
+                case SEMICOLON:
+                    if(depth == 0){
+                        updateCurrentToken();
+                        return;
+                    }
+                    break;
+            }
+            updateCurrentToken();
+        }
+    }
+
+    /**
+     * Skips to the next class declaration or the end of the file
+     */
+    private void skipToClass(){
+        while(currentKind() != CLASS && currentKind() != EOF){
+            updateCurrentToken();
+        }
+    }
+
+    /**
+     * Thrown with error recovery on to unwind the parse to the statement, member
+     * or class that recovers from the error.  It is thrown for every syntax error,
+     * so it carries no stack trace.
+     */
+    private static class SyntaxError extends RuntimeException {
+        private SyntaxError() {
+            super(null, null, false, false);
+        }
+    }
+
     /**
      * checks if the current token is of the correct type and registers an error if not. Moves past the token
      * @param kind kind of the token to match
      * @param errorMessage error message to be sent to the errorHandler
      */
     private void checkToken(Token.Kind kind,String errorMessage){
-        if(this.currentToken.kind != kind){
+        if(currentKind() != kind){
             this.registerError(errorMessage, "Unexpected Token");
         }
         updateCurrentToken();
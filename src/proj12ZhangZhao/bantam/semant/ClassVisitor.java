@@ -12,14 +12,15 @@ package proj12ZhangZhao.bantam.semant;
 import proj12ZhangZhao.bantam.ast.*;
 import proj12ZhangZhao.bantam.util.ErrorHandler;
 import proj12ZhangZhao.bantam.util.Error;
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.util.SymbolTable;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 import proj12ZhangZhao.bantam.util.ClassTreeNode;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.Iterator;
-import java.util.Stack;
 
 
 
@@ -54,12 +55,7 @@ public class ClassVisitor extends Visitor{
             setParentAndChild(node);
         });
 
-        ArrayList<ClassTreeNode> cycleNodes = new ArrayList<ClassTreeNode>();
-        classMap.forEach( (nodeName, node) -> {
-            checkCycles(node, cycleNodes);
-        });
-
-
+        ArrayList<ClassTreeNode> cycleNodes = checkCycles();
 
         //Since nodes in a cycle don't have Object as a parent, change parent to Object
         // to connect them to the tree and remove them as children of each other
@@ -71,6 +67,9 @@ public class ClassVisitor extends Visitor{
             oldParent.removeChild(node);
         });
 
+        //Number the tree so subclass tests are two comparisons
+        object.numberTree();
+
     }
 
     /**
@@ -92,7 +91,7 @@ public class ClassVisitor extends Visitor{
     * @param treeNode is the class tree node to be connected
     */
     private void setParentAndChild(ClassTreeNode treeNode){
-        if(treeNode.getName()== "Object") {
+        if(treeNode.isBuiltIn() && treeNode.getASTNode().getNameSymbol() == Symbol.OBJECT) {
             return;
         }
         Class_ astNode = treeNode.getASTNode();
@@ -125,54 +124,45 @@ public class ClassVisitor extends Visitor{
 
 
     /**
-    * Looks for cycles in a node's inheritance structure
-    * @param node is the ClassTreeNode which should be checked for cycles
-    * @param cycleNodes is the ArrayList in which to store any nodes in a cycle
+    * Looks for cycles in the inheritance structure in one pass over the parent links.
+    * Each class is walked up from at most once: the walk from a class stops at a class
+    * already walked from, and if it comes back to a class of the same walk, the classes
+    * from there around are a cycle.  Every class in a cycle gets an error, in the order
+    * of the class map.
+    * @return the nodes in a cycle
     */
-    private ArrayList<ClassTreeNode> checkCycles(ClassTreeNode node, ArrayList<ClassTreeNode> cycleNodes){
-        Stack stack = new Stack();
-        ArrayList<ClassTreeNode> visited = new ArrayList<ClassTreeNode>();
-        dfs(node, stack, visited, cycleNodes);
-        return cycleNodes;
-    }
+    private ArrayList<ClassTreeNode> checkCycles(){
+        HashMap<ClassTreeNode, Integer> walkOf = new HashMap<ClassTreeNode, Integer>();
+        HashSet<ClassTreeNode> inCycle = new HashSet<ClassTreeNode>();
+        int walk = 0;
+        for (ClassTreeNode start : classMap.values()) {
+            walk++;
+            ClassTreeNode node = start;
+            while (node != null && !walkOf.containsKey(node)) {
+                walkOf.put(node, walk);
+                node = node.getParent();
+            }
+            if (node != null && walkOf.get(node) == walk) {
+                //came back to this walk, so node is in a cycle
+                ClassTreeNode cycleNode = node;
+                do {
+                    inCycle.add(cycleNode);
+                    cycleNode = cycleNode.getParent();
+                } while (cycleNode != node);
+            }
+        }
 
-    /**
-    * Helper method for checkCycles which runs a depth first search on a node to find cycles.
-    * @param node is the node on which to run depth-first search
-    * @param visited is an empty list which will store which nodes have already been fully visited
-    * @param cycleNodes is a list which will have all the nodes found in a cycle added to it
-    */
-    private void dfs(ClassTreeNode node, Stack path, ArrayList<ClassTreeNode> visited, ArrayList<ClassTreeNode> cycleNodes){
-        if(!visited.contains(node)){
-            //System.out.println("Checking " + node.getName());
-            if(path.search(node) > -1){
+        ArrayList<ClassTreeNode> cycleNodes = new ArrayList<ClassTreeNode>();
+        classMap.forEach( (nodeName, node) -> {
+            if (inCycle.contains(node)) {
                 Class_ astNode = node.getASTNode();
                 errorHandler.register(Error.Kind.SEMANT_ERROR, astNode.getFilename(), astNode.getLineNum(),
                         "There is a cycle with class " + node.getName() +
                                 ". Please check its inheritance structure. For now, it'll be changed to have Object as a parent");
                 cycleNodes.add(node);
-                //System.out.println("Detected cycle in " + node.getName());
             }
-            else{
-                path.push(node);
-                //System.out.println("Number of children is " + node.getNumDescendants());
-                if(node.getNumDescendants() > 0) {
-                    Iterator<ClassTreeNode> childrenIt = node.getChildrenList();
-                    while (childrenIt.hasNext()) {
-                        //System.out.println("Next child");
-                        ClassTreeNode child = childrenIt.next();
-                        //System.out.println("Moving onto " + child.getName());
-                        dfs(child, path, visited, cycleNodes);
-                    }
-                }
-                else{ //End of the path
-                    //System.out.println("No children, popping");
-                    path.pop();
-                }
-                visited.add(node);
-            }
-
-        }
+        });
+        return cycleNodes;
     }
 
 }
@@ -0,0 +1,159 @@
+/*
+ * File: DependencyVisitor.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.semant;
+
+import proj12ZhangZhao.bantam.ast.*;
+import proj12ZhangZhao.bantam.util.DependencyGraph;
+import proj12ZhangZhao.bantam.visitor.Visitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Visitor that finds the classes each class depends on and builds a
+ * DependencyGraph of them.  The targets of method calls are known only after
+ * the tree has been type checked; before that, a call adds no dependency.
+ */
+public class DependencyVisitor extends Visitor {
+    private String className; //Name of the class the Visitor is visiting
+    private Map<String, Integer> classDependencies; //Kinds of dependency on each class, by name
+
+
+    /**
+     * Builds the dependency graph of all the classes of a program
+     * @param program the AST to be searched
+     * @return the graph, with the classes in the order of the program
+     */
+    public DependencyGraph makeGraph(Program program){
+        Map<String, Map<String, Integer>> dependencies = new LinkedHashMap<>();
+        for (ASTNode node : program.getClassList()) {
+            Class_ classNode = (Class_) node;
+            dependencies.put(classNode.getName(), getDependencies(classNode));
+        }
+        return new DependencyGraph(dependencies);
+    }
+
+
+    /**
+     * Finds the classes one class depends on
+     * @param node the class node
+     * @return the kinds of dependency on each class, by name
+     * @see DependencyGraph#INHERITANCE
+     */
+    public Map<String, Integer> getDependencies(Class_ node){
+        classDependencies = new LinkedHashMap<>();
+        className = node.getName();
+        depend(node.getParent() != null ? node.getParent() : "Object", DependencyGraph.INHERITANCE);
+        node.accept(this);
+        return classDependencies;
+    }
+
+
+    /**
+     * the type of a field
+     * @param node the field node
+     */
+    public Object visit(Field node){
+        depend(node.getType(), DependencyGraph.FIELD_TYPE);
+        return super.visit(node);
+    }
+
+    /**
+     * the return type of a method
+     * @param node the method node
+     */
+    public Object visit(Method node){
+        depend(node.getReturnType(), DependencyGraph.METHOD_TYPE);
+        return super.visit(node);
+    }
+
+    /**
+     * the type of a formal parameter
+     * @param node the formal node
+     */
+    public Object visit(Formal node){
+        depend(node.getType(), DependencyGraph.METHOD_TYPE);
+        return null;
+    }
+
+    /**
+     * the type of a local variable, once the type checker has found it
+     * @param node the declaration statement node
+     */
+    public Object visit(DeclStmt node){
+        depend(node.getType(), DependencyGraph.VARIABLE_TYPE);
+        return super.visit(node);
+    }
+
+    /**
+     * the class whose method is called, once the type checker has found it
+     * @param node the dispatch expression node
+     */
+    public Object visit(DispatchExpr node){
+        if (node.getRefExpr() != null) {
+            depend(node.getRefExpr().getExprType(), DependencyGraph.DISPATCH);
+        }
+        return super.visit(node);
+    }
+
+    /**
+     * the class of a new object
+     * @param node the new expression node
+     */
+    public Object visit(NewExpr node){
+        depend(node.getType(), DependencyGraph.NEW);
+        return super.visit(node);
+    }
+
+    /**
+     * the element type of a new array
+     * @param node the new array expression node
+     */
+    public Object visit(NewArrayExpr node){
+        depend(node.getType(), DependencyGraph.NEW);
+        return super.visit(node);
+    }
+
+    /**
+     * the type cast to
+     * @param node the cast expression node
+     */
+    public Object visit(CastExpr node){
+        depend(node.getType(), DependencyGraph.CAST);
+        return super.visit(node);
+    }
+
+    /**
+     * the type tested for
+     * @param node the instanceof expression node
+     */
+    public Object visit(InstanceofExpr node){
+        depend(node.getType(), DependencyGraph.INSTANCEOF);
+        return super.visit(node);
+    }
+
+
+    /**
+     * Records a dependency on a type, if it is another class
+     * @param type the name of the type, possibly an array type, or null if not known
+     * @param kind the kind of dependency
+     */
+    private void depend(String type, int kind){
+        if (type == null) {
+            return;
+        }
+        if (type.endsWith("[]")) {
+            type = type.substring(0, type.length() - 2);
+        }
+        if (type.equals(className) || type.equals("int") || type.equals("boolean")
+                || type.equals("void") || type.equals("null")) {
+            return;
+        }
+        classDependencies.merge(type, kind, (a, b) -> a | b);
+    }
+}
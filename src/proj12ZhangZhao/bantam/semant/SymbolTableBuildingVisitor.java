@@ -12,6 +12,7 @@ package proj12ZhangZhao.bantam.semant;
 import proj12ZhangZhao.bantam.ast.*;
 import proj12ZhangZhao.bantam.util.ErrorHandler;
 import proj12ZhangZhao.bantam.util.Error;
+import proj12ZhangZhao.bantam.util.Symbol;
 import proj12ZhangZhao.bantam.visitor.Visitor;
 import proj12ZhangZhao.bantam.util.ClassTreeNode;
 import proj12ZhangZhao.proj12.SemanticAnalyzer;
@@ -102,7 +103,7 @@ public class SymbolTableBuildingVisitor extends Visitor{
                     "Reserved word " + fieldName + " cannot be used as an identifier");
 
         }
-        treeNode.getVarSymbolTable().add(node.getName(), node.getType());
+        treeNode.getVarSymbolTable().add(node.getNameSymbol(), node.getType());
         //System.out.println("Field found: " + node.getName() + " added to " + currentClass);
         return null;
     }
@@ -113,7 +114,7 @@ public class SymbolTableBuildingVisitor extends Visitor{
      */
     public Object visit(Method node){
         ClassTreeNode treeNode = classMap.get(currentClass);
-        treeNode.getMethodSymbolTable().add(node.getName(), node);
+        treeNode.getMethodSymbolTable().add(node.getNameSymbol(), node);
         //System.out.println("Adding method " + node.getName() + " to " + currentClass);
         treeNode.getVarSymbolTable().enterScope();
         super.visit(node);
@@ -139,7 +140,7 @@ public class SymbolTableBuildingVisitor extends Visitor{
     //DeclStmts won't be handled until TypeCheckerVisitor
 
     public void setParentAndChild(ClassTreeNode treeNode){
-        if(treeNode.getName()== "Object") {
+        if(treeNode.isBuiltIn() && treeNode.getASTNode().getNameSymbol() == Symbol.OBJECT) {
             return;
         }
         ClassTreeNode parentNode = treeNode.getParent();
@@ -34,7 +34,8 @@ public class TypeCheckerVisitor extends Visitor {
     private ClassTreeNode currentClass;
     private SymbolTable currentSymbolTable;
     private ErrorHandler errorHandler;
-    private String currentMethod;
+    private Symbol currentMethod;
+    private boolean copyScopes;
 
 
     /*
@@ -45,6 +46,17 @@ public class TypeCheckerVisitor extends Visitor {
         errorHandler = eh;
     }
 
+    /*
+    * Constructor for a Type Checker Visitor that can run on several threads at once.
+    * @param eh is the ErrorHandler that'll log any errors encountered in the course of type checking
+    * @param copyScopes is whether to enter the scopes of methods and blocks in a private copy of the
+    * class's symbol table, so that the shared symbol tables are only read while checking
+    */
+    public TypeCheckerVisitor(ErrorHandler eh, boolean copyScopes){
+        errorHandler = eh;
+        this.copyScopes = copyScopes;
+    }
+
 
 
 
@@ -57,9 +69,21 @@ public class TypeCheckerVisitor extends Visitor {
         if(classNode.isBuiltIn()){
             return;
         }
+        checkTypes(classNode, classNode.getASTNode());
+    }
+
+    /*
+    * Checks the types in a given AST node of a class, which need not be the one the class's
+    * tree node and symbol tables were built from, as long as it declares the same members
+    * @param classNode is the ClassTreeNode of the class to be checked
+    * @param astNode is the Class_ node to check
+    */
+    public void checkTypes (ClassTreeNode classNode, Class_ astNode){
         currentClass = classNode;
-        currentSymbolTable = classNode.getVarSymbolTable();
-        classNode.getASTNode().accept(this);
+        // the parent tables are only read, so only the class's own scopes are copied
+        currentSymbolTable = copyScopes ? classNode.getVarSymbolTable().cloneOwnScopes()
+                : classNode.getVarSymbolTable();
+        astNode.accept(this);
     }
 
 
@@ -73,16 +97,12 @@ public class TypeCheckerVisitor extends Visitor {
             return true;
         }
         Hashtable<String, ClassTreeNode> classMap = this.currentClass.getClassMap();
+        ClassTreeNode ancestor = classMap.get(type1);
         ClassTreeNode classTree = classMap.get(type2);
-
-        while (classTree.getParent() != null) {
-            if (classTree.getParent().getName().equals(type1)) {
-                return true;
-            }
-            classTree = classTree.getParent();
+        if (ancestor == null || classTree == null) {
+            return false;
         }
-
-        return false;
+        return classTree.isSubClassOf(ancestor);
     }
 
     /**
@@ -132,22 +152,22 @@ public class TypeCheckerVisitor extends Visitor {
 
     /*
      * Checks to see if an identifier exists in the current scope
-     * @param id is the identifier
-     * @param ref is the reference variable for the identifier, if any
+     * @param id is the interned identifier
+     * @param ref is the interned reference variable for the identifier, if any
      * @param lineNum is the line number that the identifier is on
      */
-    private String checkIDExistence(String id, String ref, int lineNum){
+    private String checkIDExistence(Symbol id, Symbol ref, int lineNum){
         String idType = null;
         if(ref != null) {
-            if(ref.equals("this")){
-                if ( (idType = (String) currentSymbolTable.lookup(id, 0)) == null) {
+            if(ref == Symbol.THIS){
+                if ( (idType = fieldType(currentClass, id)) == null) {
                     errorHandler.register(Error.Kind.SEMANT_ERROR,
                             currentClass.getASTNode().getFilename(), lineNum,
                             "The field " + id + " does not exist");
                 }
             }
-            else if (ref.equals("super")){
-                if ( (idType = (String) currentClass.getParent().getVarSymbolTable().lookup(id, 0)) == null){ //It has to be a field
+            else if (ref == Symbol.SUPER){
+                if ( (idType = fieldType(currentClass.getParent(), id)) == null){ //It has to be a field
                     errorHandler.register(Error.Kind.SEMANT_ERROR,
                             currentClass.getASTNode().getFilename(), lineNum,
                             "The parent class does not have the field " + id);
@@ -160,7 +180,7 @@ public class TypeCheckerVisitor extends Visitor {
                     //Check the fields of the reference's type
                     //I believe that I don't enter invalid types into the symbol table, so the result should always exist
                     ClassTreeNode refNode = currentClass.getClassMap().get(refType);
-                    idType = (String) refNode.getVarSymbolTable().lookup(id, 0);
+                    idType = fieldType(refNode, id);
                     if ( idType == null) {
                         errorHandler.register(Error.Kind.SEMANT_ERROR,
                                 currentClass.getASTNode().getFilename(), lineNum,
@@ -187,6 +207,17 @@ public class TypeCheckerVisitor extends Visitor {
         return idType;
     }
 
+    /*
+     * Looks up a field of a class, inherited or its own, in the class's member table
+     * @param classNode is the class tree node of the class
+     * @param id is the name of the field
+     * @return the type of the field, or null if the class has no such field
+     */
+    private String fieldType(ClassTreeNode classNode, Symbol id){
+        MemberTable.Member field = classNode.getMemberTable().lookupField(id);
+        return field == null ? null : ((Field) field.getNode()).getType();
+    }
+
     /**
      * Visit a field node
      *
@@ -239,7 +270,7 @@ public class TypeCheckerVisitor extends Visitor {
             checkTypeExistence(type, node.getLineNum());
         }
 
-        currentMethod = node.getName();
+        currentMethod = node.getNameSymbol();
         //create a new scope for the method body
         currentSymbolTable.enterScope();
         node.getFormalList().accept(this);
@@ -282,8 +313,8 @@ public class TypeCheckerVisitor extends Visitor {
                     "The size expression in the array is not valid");
         }
 
-        String id = node.getName();
-        String ref = node.getRefName();
+        Symbol id = node.getNameSymbol();
+        Symbol ref = node.getRefNameSymbol();
 
         String idType = checkIDExistence(id, ref, node.getLineNum());
         //The type should've already been validated by the new array expr
@@ -315,7 +346,7 @@ public class TypeCheckerVisitor extends Visitor {
                     currentClass.getASTNode().getFilename(), node.getLineNum(),
                     "Size expression in array expression is not valid");
         }
-        String id = node.getName();
+        Symbol id = node.getNameSymbol();
         //If the name is this or super, since they're reserved, it'll be null
         if(checkIDExistence( id, null, node.getLineNum()) != null) {
             errorHandler.register(Error.Kind.SEMANT_ERROR,
@@ -345,7 +376,7 @@ public class TypeCheckerVisitor extends Visitor {
     public Object visit(AssignExpr node) {
         node.getExpr().accept(this);
 
-        String type1 = checkIDExistence(node.getName(),node.getRefName(),  node.getLineNum());
+        String type1 = checkIDExistence(node.getNameSymbol(), node.getRefNameSymbol(), node.getLineNum());
         String type2 = node.getExpr().getExprType();
         //System.out.println("Type 2 " + type2 + " type one " + type1);
         if(type1 != null) {
@@ -766,7 +797,7 @@ public class TypeCheckerVisitor extends Visitor {
 
     public Object visit(DeclStmt node) {
         node.getInit().accept(this);
-        String id = node.getName();
+        Symbol id = node.getNameSymbol();
         Object existingDef = currentSymbolTable.lookup(id);
         //System.out.println("Field search for id " + id  + currentSymbolTable.lookup(id, 0) );
         if ((existingDef != null) && (currentSymbolTable.lookup(id, 0) == null)) {
@@ -775,7 +806,7 @@ public class TypeCheckerVisitor extends Visitor {
                     currentClass.getASTNode().getFilename(), node.getLineNum(),
                     "The variable name " + id + " has already been defined in this scope");
         }
-        if (SemanticAnalyzer.reservedIdentifiers.contains(id)){
+        if (SemanticAnalyzer.reservedIdentifiers.contains(node.getName())){
             errorHandler.register(Error.Kind.SEMANT_ERROR,
                     currentClass.getASTNode().getFilename(), node.getLineNum(),
                     id + " is a reserved word in Bantam Java and can't be used as an identifier");
@@ -837,9 +868,10 @@ public class TypeCheckerVisitor extends Visitor {
 
         ClassTreeNode objectNode = checkTypeExistence(objectName, node.getLineNum());
         if(objectNode != null) {
-            String methodName = node.getMethodName();
-            objectNode.getMethodSymbolTable().enterScope();
-            Method method = (Method) objectNode.getMethodSymbolTable().lookup(methodName);
+            Symbol methodName = node.getMethodNameSymbol();
+            //Primitive types have no AST node, so their member table is empty
+            MemberTable.Member member = objectNode.getMemberTable().lookupMethod(methodName);
+            Method method = member == null ? null : (Method) member.getNode();
             if (method == null) {
                 errorHandler.register(Error.Kind.SEMANT_ERROR,
                         currentClass.getASTNode().getFilename(), node.getLineNum(),
@@ -1115,8 +1147,8 @@ public class TypeCheckerVisitor extends Visitor {
         VarExpr ref =  (VarExpr)node.getRef();
         String refType;
         ClassTreeNode refNode;
-        if(ref!=null&&!"this".equals(ref.getName())){
-            refType = (String)this.currentSymbolTable.lookup(ref.getName());
+        if(ref!=null&&ref.getNameSymbol() != Symbol.THIS){
+            refType = (String)this.currentSymbolTable.lookup(ref.getNameSymbol());
             if(refType == null){
                 errorHandler.register(Error.Kind.SEMANT_ERROR,
                         currentClass.getASTNode().getFilename(), node.getLineNum(),
@@ -1130,11 +1162,14 @@ public class TypeCheckerVisitor extends Visitor {
         else{
             refNode = this.currentClass;
         }
-        String varName = node.getName();
+        Symbol varName = node.getNameSymbol();
 
         try {
-            String type = (String) refNode.getVarSymbolTable().lookup(varName);
-            if( (type == null)&& (!"super".equals(varName) && (!"this".equals(varName))) ){
+            //Locals are in the current symbol table, which may be a copy of the class's
+            SymbolTable varTable = refNode == currentClass ? currentSymbolTable
+                    : refNode.getVarSymbolTable();
+            String type = (String) varTable.lookup(varName);
+            if( (type == null)&& (varName != Symbol.SUPER && varName != Symbol.THIS) ){
                 errorHandler.register(Error.Kind.SEMANT_ERROR,
                         currentClass.getASTNode().getFilename(), node.getLineNum(),
                         "The variable " + varName + " does not exist in this scope");
@@ -28,9 +28,10 @@ package proj12ZhangZhao.bantam.util;
 
 import proj12ZhangZhao.bantam.ast.Class_;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
-import java.util.Vector;
 
 /**
  * The <tt>ClassTreeNode</tt> class represents a node in the class
@@ -71,13 +72,22 @@ public class ClassTreeNode {
     /**
      * A list of ClassTreeNodes of the subclasses of this class
      */
-    private Vector<ClassTreeNode> children = new Vector<ClassTreeNode>();
+    private ArrayList<ClassTreeNode> children = new ArrayList<ClassTreeNode>();
 
     /**
      * Total number of descendants (strict subclasses)
      */
     private int numDescendants;
 
+    /**
+     * The positions of this class in a preorder and a postorder walk of the class
+     * hierarchy tree, set by numberTree (-1 until then).  A class is a subclass of
+     * another if its preorder number is at least the other's and its postorder
+     * number is at most the other's.
+     */
+    private int preorder = -1;
+    private int postorder = -1;
+
     /**
      * The (scoped) variable symbol table for this class used for type checking this class
      */
@@ -88,6 +98,12 @@ public class ClassTreeNode {
      */
     private SymbolTable methodSymbolTable = new SymbolTable();
 
+    /**
+     * All the fields and methods of this class, including inherited ones
+     * (null until asked for)
+     */
+    private volatile MemberTable memberTable;
+
     /**
      * ClassTreeNode constructor
      *
@@ -123,6 +139,19 @@ public class ClassTreeNode {
         return astNode;
     }
 
+    /**
+     * Set the AST node for this class, such as a new parse of the class
+     * with the same name, parent and members.  Drops the member table, which
+     * refers to the old members; the AST nodes of the subclasses should be
+     * set too, so their tables are dropped as well.
+     *
+     * @param astNode AST node for this class
+     */
+    public void setASTNode(Class_ astNode) {
+        this.astNode = astNode;
+        this.memberTable = null;
+    }
+
     /**
      * Is this class built-in?
      *
@@ -176,7 +205,7 @@ public class ClassTreeNode {
             // must update numDescendants the parent and for all ancestors of this parent
             // WARNING: must be careful -- class hierarchy tree may not be well formed
             // must avoid cycles
-            Vector<ClassTreeNode> v = new Vector<ClassTreeNode>();
+            HashSet<ClassTreeNode> v = new HashSet<ClassTreeNode>();
             for (ClassTreeNode ctn = parent; ctn != null; ctn = ctn.getParent()) {
                 // check for a cycle -- break if we find one (program is wrong and
                 // error should be detected by semantic analyzer)
@@ -186,7 +215,7 @@ public class ClassTreeNode {
                 // if not cycle then update num descendants by num descendants of
                 // this new child node + 1 (new child)
                 ctn.numDescendants += numDescendants + 1;
-                // add to vector to potentially detect a cycle
+                // add to set to potentially detect a cycle
                 v.add(ctn);
             }
         }
@@ -258,6 +287,75 @@ public class ClassTreeNode {
         return numDescendants;
     }
 
+    /**
+     * Numbers this class and its descendants in a preorder and a postorder walk,
+     * so that isSubClassOf takes constant time.  Must be called on the root
+     * again whenever the tree changes.  The walk uses its own stack, so deep
+     * hierarchies do not overflow the call stack.
+     */
+    public void numberTree() {
+        ArrayList<ClassTreeNode> path = new ArrayList<ClassTreeNode>();
+        ArrayList<Integer> nextChild = new ArrayList<Integer>();
+        int preCount = 0;
+        int postCount = 0;
+        preorder = preCount++;
+        path.add(this);
+        nextChild.add(0);
+        while (!path.isEmpty()) {
+            int top = path.size() - 1;
+            ClassTreeNode node = path.get(top);
+            int next = nextChild.get(top);
+            if (next < node.children.size()) {
+                nextChild.set(top, next + 1);
+                ClassTreeNode child = node.children.get(next);
+                child.preorder = preCount++;
+                path.add(child);
+                nextChild.add(0);
+            }
+            else {
+                node.postorder = postCount++;
+                path.remove(top);
+                nextChild.remove(top);
+            }
+        }
+    }
+
+    /**
+     * Is this class the given class or one of its descendants?
+     * Takes constant time once the tree is numbered by numberTree,
+     * and walks up the tree from this class otherwise.
+     *
+     * @param ancestor the class tree node of the possible ancestor
+     * @return true if this class is the ancestor or a descendant of it
+     */
+    public boolean isSubClassOf(ClassTreeNode ancestor) {
+        if (preorder >= 0 && ancestor.preorder >= 0) {
+            return ancestor.preorder <= preorder && postorder <= ancestor.postorder;
+        }
+        for (ClassTreeNode ctn = this; ctn != null; ctn = ctn.getParent()) {
+            if (ctn == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the closest class that both this class and another one are
+     * subclasses of, such as the type of an expression that may be of either
+     * class.  Walks up from this class, testing each ancestor with isSubClassOf.
+     *
+     * @param other the class tree node of the other class
+     * @return the least common ancestor (null if the classes are not in the same tree)
+     */
+    public ClassTreeNode getLeastCommonAncestor(ClassTreeNode other) {
+        ClassTreeNode ancestor = this;
+        while (ancestor != null && !other.isSubClassOf(ancestor)) {
+            ancestor = ancestor.getParent();
+        }
+        return ancestor;
+    }
+
     /**
      * Get the variable symbol table of the class
      *
@@ -276,6 +374,32 @@ public class ClassTreeNode {
         return methodSymbolTable;
     }
 
+    /**
+     * Get the table of all the fields and methods of this class, including
+     * inherited ones.  The table is built the first time it is asked for,
+     * after the tables of the ancestors, and kept.  It must not be asked for
+     * before the class hierarchy tree is complete.  Threads may ask for it at
+     * the same time; at worst both build equal tables.
+     *
+     * @return the member table
+     */
+    public MemberTable getMemberTable() {
+        MemberTable table = memberTable;
+        if (table == null) {
+            // build the missing tables from the top down, without recursion
+            ArrayList<ClassTreeNode> missing = new ArrayList<ClassTreeNode>();
+            for (ClassTreeNode ctn = this; ctn != null && ctn.memberTable == null; ctn = ctn.parent) {
+                missing.add(ctn);
+            }
+            for (int i = missing.size() - 1; i >= 0; i--) {
+                ClassTreeNode ctn = missing.get(i);
+                table = new MemberTable(ctn, ctn.parent == null ? null : ctn.parent.memberTable);
+                ctn.memberTable = table;
+            }
+        }
+        return table;
+    }
+
     /**
      * Lookup a class tree node
      *
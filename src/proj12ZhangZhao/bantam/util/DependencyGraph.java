@@ -0,0 +1,267 @@
+/*
+ * File: DependencyGraph.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The classes of a program and which classes each of them depends on: its
+ * parent, the types of its fields, methods and variables, and the classes it
+ * creates, casts to, tests with instanceof or calls methods of.  A class
+ * that depends on another may have to be analyzed again when the other one
+ * changes.
+ *
+ * The classes are numbered in the order they were given, followed by the
+ * classes that are depended on but were not given (built-in or missing
+ * classes).  The edges are kept in two pairs of arrays, one for each
+ * direction: the dependencies of class c are dependencies[firstDependencies[c]]
+ * up to dependencies[firstDependencies[c + 1] - 1], with the kinds of each
+ * edge in the same places of kinds, and likewise for the dependents.
+ * The graph is built by DependencyVisitor and is never changed.
+ *
+ * @see proj12ZhangZhao.bantam.semant.DependencyVisitor
+ */
+public class DependencyGraph
+{
+    /**
+     * Kinds of dependency.  An edge has the bits of every way the class uses the other.
+     */
+    public static final int INHERITANCE = 1;    // extends the other class
+    public static final int FIELD_TYPE = 2;     // has a field of the other type
+    public static final int METHOD_TYPE = 4;    // has a method returning or taking the other type
+    public static final int VARIABLE_TYPE = 8;  // has a local variable of the other type
+    public static final int NEW = 16;           // creates objects or arrays of the other type
+    public static final int CAST = 32;          // casts to the other type
+    public static final int INSTANCEOF = 64;    // tests for the other type with instanceof
+    public static final int DISPATCH = 128;     // calls a method of the other class
+
+    private static final String[] KIND_NAMES = {
+            "extends", "field", "method", "variable", "new", "cast", "instanceof", "dispatch"};
+
+    private final String[] names;
+    private final Map<String, Integer> indices;
+    private final int numGiven;
+    private final int[] firstDependencies;
+    private final int[] dependencies;
+    private final int[] kinds;
+    private final int[] firstDependents;
+    private final int[] dependents;
+
+    /**
+     * DependencyGraph constructor
+     *
+     * @param classDependencies for each class, in order, the kinds of its
+     *                          dependency on each class it depends on, by name
+     */
+    public DependencyGraph(Map<String, Map<String, Integer>> classDependencies) {
+        List<String> nameList = new ArrayList<>(classDependencies.keySet());
+        indices = new HashMap<>();
+        for (int i = 0; i < nameList.size(); i++) {
+            indices.put(nameList.get(i), i);
+        }
+        numGiven = nameList.size();
+
+        int numEdges = 0;
+        for (Map<String, Integer> classEdges : classDependencies.values()) {
+            for (String name : classEdges.keySet()) {
+                if (!indices.containsKey(name)) {
+                    indices.put(name, nameList.size());
+                    nameList.add(name);
+                }
+            }
+            numEdges += classEdges.size();
+        }
+        names = nameList.toArray(new String[0]);
+
+        int numClasses = names.length;
+        firstDependencies = new int[numClasses + 1];
+        dependencies = new int[numEdges];
+        kinds = new int[numEdges];
+        int[] numDependents = new int[numClasses];
+        int edge = 0;
+        for (int c = 0; c < numGiven; c++) {
+            firstDependencies[c] = edge;
+            for (Map.Entry<String, Integer> entry : classDependencies.get(names[c]).entrySet()) {
+                int other = indices.get(entry.getKey());
+                dependencies[edge] = other;
+                kinds[edge] = entry.getValue();
+                numDependents[other]++;
+                edge++;
+            }
+        }
+        for (int c = numGiven; c <= numClasses; c++) {
+            firstDependencies[c] = edge;
+        }
+
+        // the reverse edges, by counting sort on the class depended on
+        firstDependents = new int[numClasses + 1];
+        for (int c = 0; c < numClasses; c++) {
+            firstDependents[c + 1] = firstDependents[c] + numDependents[c];
+        }
+        dependents = new int[numEdges];
+        int[] next = new int[numClasses];
+        System.arraycopy(firstDependents, 0, next, 0, numClasses);
+        for (int c = 0; c < numClasses; c++) {
+            for (int e = firstDependencies[c]; e < firstDependencies[c + 1]; e++) {
+                dependents[next[dependencies[e]]++] = c;
+            }
+        }
+    }
+
+    /**
+     * @return the number of classes, including the ones depended on but not given
+     */
+    public int getNumClasses() {
+        return names.length;
+    }
+
+    /**
+     * @return the number of edges
+     */
+    public int getNumEdges() {
+        return dependencies.length;
+    }
+
+    /**
+     * @param name the name of a class
+     * @return true if the class was given, false if it is only depended on or unknown
+     */
+    public boolean isGiven(String name) {
+        Integer index = indices.get(name);
+        return index != null && index < numGiven;
+    }
+
+    /**
+     * @param name the name of a class
+     * @return the names of the classes the class depends on directly
+     */
+    public List<String> getDependencies(String name) {
+        return namesOf(dependencies, firstDependencies, name);
+    }
+
+    /**
+     * @param name the name of a class
+     * @return the names of the classes that depend directly on the class
+     */
+    public List<String> getDependents(String name) {
+        return namesOf(dependents, firstDependents, name);
+    }
+
+    /**
+     * @param from the name of the class that depends on the other
+     * @param to   the name of the class depended on
+     * @return the kinds of the dependency, or 0 if there is none
+     */
+    public int getKinds(String from, String to) {
+        Integer source = indices.get(from);
+        Integer target = indices.get(to);
+        if (source == null || target == null) {
+            return 0;
+        }
+        for (int e = firstDependencies[source]; e < firstDependencies[source + 1]; e++) {
+            if (dependencies[e] == target) {
+                return kinds[e];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Finds the classes that depend on any of the given classes, directly or
+     * through other classes.  These are the classes that may have to be
+     * analyzed again when the given classes change.
+     *
+     * @param changed the names of the classes, which need not be in the graph
+     * @return the names of the given classes and of all the classes depending on them
+     */
+    public List<String> getTransitiveDependents(Collection<String> changed) {
+        boolean[] reached = new boolean[names.length];
+        int[] queue = new int[names.length];
+        int tail = 0;
+        List<String> result = new ArrayList<>();
+        for (String name : changed) {
+            Integer index = indices.get(name);
+            if (index == null) {
+                result.add(name);
+            }
+            else if (!reached[index]) {
+                reached[index] = true;
+                queue[tail++] = index;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int c = queue[head];
+            for (int e = firstDependents[c]; e < firstDependents[c + 1]; e++) {
+                if (!reached[dependents[e]]) {
+                    reached[dependents[e]] = true;
+                    queue[tail++] = dependents[e];
+                }
+            }
+        }
+        for (int i = 0; i < tail; i++) {
+            result.add(names[queue[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the graph in the dot language of Graphviz, one edge per line,
+     * labelled with the kinds of the dependency
+     *
+     * @return the text of the graph
+     */
+    public String toDot() {
+        StringBuilder dot = new StringBuilder("digraph dependencies {\n");
+        for (int c = names.length - 1; c >= numGiven; c--) {
+            dot.append("    \"").append(names[c]).append("\" [style=dashed];\n");
+        }
+        for (int c = 0; c < numGiven; c++) {
+            if (firstDependencies[c] == firstDependencies[c + 1]) {
+                dot.append("    \"").append(names[c]).append("\";\n");
+            }
+            for (int e = firstDependencies[c]; e < firstDependencies[c + 1]; e++) {
+                dot.append("    \"").append(names[c]).append("\" -> \"")
+                        .append(names[dependencies[e]]).append("\" [label=\"")
+                        .append(kindNames(kinds[e])).append("\"];\n");
+            }
+        }
+        return dot.append("}\n").toString();
+    }
+
+    /**
+     * @param kinds the bits of the kinds of a dependency
+     * @return the names of the kinds separated by commas
+     */
+    public static String kindNames(int kinds) {
+        StringBuilder text = new StringBuilder();
+        for (int bit = 0; bit < KIND_NAMES.length; bit++) {
+            if ((kinds & 1 << bit) != 0) {
+                if (text.length() > 0) {
+                    text.append(',');
+                }
+                text.append(KIND_NAMES[bit]);
+            }
+        }
+        return text.toString();
+    }
+
+    private List<String> namesOf(int[] edges, int[] first, String name) {
+        Integer index = indices.get(name);
+        List<String> result = new ArrayList<>();
+        if (index != null) {
+            for (int e = first[index]; e < first[index + 1]; e++) {
+                result.add(names[edges[e]]);
+            }
+        }
+        return result;
+    }
+}
@@ -30,16 +30,63 @@ package proj12ZhangZhao.bantam.util;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The <tt>ErrorHandler</tt> class performs error handling.
+ *
+ * Errors are appended to a bucket for their file, so registering one takes
+ * constant time, and the buckets are sorted by line number only when the list
+ * of errors is asked for.  The list has the errors without a filename first,
+ * the most recently registered first, and then the errors of each file, with
+ * the files in the order their first error was registered and the errors of
+ * each file in order of line number (in the order registered for the same
+ * line).  All the methods are synchronized, so one ErrorHandler can be shared
+ * by threads.  After a maximum number of errors, 100 by default, further
+ * errors are not kept but are counted.  ErrorListeners are told about each
+ * error kept as it is registered.
  */
 public class ErrorHandler {
     /**
-     * The list of errors
+     * The number of errors kept if no other maximum is set
      */
-    private List<Error> errorList = new ArrayList<>();
+    public static final int DEFAULT_MAX_ERRORS = 100;
+
+    /**
+     * The errors of one file, in the order registered until sorted
+     */
+    private static class Bucket {
+        private final ArrayList<Error> errors = new ArrayList<>();
+        private boolean sorted = true;
+    }
+
+    /**
+     * The errors without a filename, in the order registered
+     */
+    private List<Error> unnamedErrors = new ArrayList<>();
+
+    /**
+     * The errors with a filename, by filename, in the order the files were first seen
+     */
+    private Map<String, Bucket> buckets = new LinkedHashMap<>();
+
+    /**
+     * The sorted list of all the errors kept (null when an error was registered since)
+     */
+    private List<Error> errorList = Collections.emptyList();
+
+    /**
+     * The listeners told about each error kept
+     */
+    private final List<ErrorListener> listeners = new CopyOnWriteArrayList<>();
+
+    private int numErrors;
+    private int numSuppressed;
+    private int maxErrors = DEFAULT_MAX_ERRORS;
 
     /**
      * Register an error - auxiliarly method used by the other (public) register methods
@@ -47,10 +94,26 @@ public class ErrorHandler {
      * @param error the error object
      */
     private void register(Error error) {
-        // insert a new error into the error list
-        // but keep at most 100 errors.
-        if (errorList.size() < 100) {
-            insert(error);
+        // keep at most maxErrors errors, but count the rest
+        if (numErrors >= maxErrors) {
+            numSuppressed++;
+            return;
+        }
+        if (error.getFilename() == null) {
+            unnamedErrors.add(error);
+        }
+        else {
+            Bucket bucket = buckets.computeIfAbsent(error.getFilename(), name -> new Bucket());
+            int size = bucket.errors.size();
+            if (size > 0 && bucket.errors.get(size - 1).getLineNum() > error.getLineNum()) {
+                bucket.sorted = false;
+            }
+            bucket.errors.add(error);
+        }
+        numErrors++;
+        errorList = null;
+        for (ErrorListener listener : listeners) {
+            listener.errorRegistered(error);
         }
     }
 
@@ -62,7 +125,7 @@ public class ErrorHandler {
      * @param lineNum      the starting line number in the source file where the error occurred
      * @param errorMessage the error message
      */
-    public void register(Error.Kind kind, String filename, int lineNum, String errorMessage) {
+    public synchronized void register(Error.Kind kind, String filename, int lineNum, String errorMessage) {
         // create error and register it
         register((new Error(kind, filename, lineNum, errorMessage)));
     }
@@ -73,7 +136,7 @@ public class ErrorHandler {
      * @param kind         the type (lex, parse, semantic) of error
      * @param errorMessage the error message
      */
-    public void register(Error.Kind kind, String errorMessage) {
+    public synchronized void register(Error.Kind kind, String errorMessage) {
         // create error and register it
         // note: filename, line number, line, and charNum not specified
         // so using null, 0, null, and 0, respectively
@@ -81,58 +144,104 @@ public class ErrorHandler {
     }
 
     /**
-     * return true if any errors were reported.
+     * Register errors reported to another ErrorHandler, in the order they are listed there
+     *
+     * @param errors the errors to register
      */
-    public boolean errorsFound() {
-        return errorList.size() > 0;
+    public synchronized void registerAll(List<Error> errors) {
+        for (Error error : errors) {
+            register(error);
+        }
     }
 
     /**
-     * Insert an error onto the error list
+     * Adds a listener to be told about each error kept from now on.  Errors
+     * already registered are not passed to it.
      *
-     * @param e error object to insert
-     */
-    private void insert(Error e) {
-        // the algorithm below will insert errors in order by filename first and
-        // then line number.  filenames are kept in the order that they are seen
-        // (i.e., an error is registered with that filename).  line numbers are
-        // ordered numerically.
-
-        int i = 0;
-
-        if (e.getFilename() != null) {
-            // find the section of the list with the same filename (goes to the end
-            // if a section is not found)
-            for (i = 0; i < errorList.size(); i++) {
-                if (errorList.get(i).getFilename() != null) {
-                    if (e.getFilename().equals(errorList.get(i).getFilename())) {
-                        break;
-                    }
-                }
-            }
+     * @param listener the listener
+     */
+    public void addErrorListener(ErrorListener listener) {
+        listeners.add(listener);
+    }
 
-            // find the correct spot in the section for this error's line number
-            for (; i < errorList.size(); i++) {
-                if (!e.getFilename().equals(errorList.get(i).getFilename()) ||
-                        e.getLineNum() < (errorList.get(i)).getLineNum()) {
-                    break;
-                }
-            }
+    /**
+     * Stops telling a listener about errors
+     *
+     * @param listener the listener
+     */
+    public void removeErrorListener(ErrorListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * return true if any errors were reported, including errors not kept.
+     */
+    public synchronized boolean errorsFound() {
+        return numErrors + numSuppressed > 0;
+    }
+
+    /**
+     * Sets how many errors are kept.  Errors registered after that many are
+     * only counted.  Errors already kept are not dropped.
+     *
+     * @param maxErrors the maximum number of errors to keep
+     */
+    public synchronized void setMaxErrors(int maxErrors) {
+        if (maxErrors < 0) {
+            throw new IllegalArgumentException("maxErrors must not be negative");
         }
+        this.maxErrors = maxErrors;
+    }
 
-        // add the error to the list
-        errorList.add(i, e);
+    /**
+     * @return the maximum number of errors kept
+     */
+    public synchronized int getMaxErrors() {
+        return maxErrors;
+    }
+
+    /**
+     * @return the number of errors registered after the maximum was reached, and so not kept
+     */
+    public synchronized int getNumSuppressed() {
+        return numSuppressed;
+    }
+
+    /**
+     * @return the number of errors kept
+     */
+    public synchronized int getNumErrors() {
+        return numErrors;
     }
 
     /**
      * @return an unmodifiable copy of the list of registered errors
      */
-    public List<Error> getErrorList() {
-        return Collections.unmodifiableList(errorList);
+    public synchronized List<Error> getErrorList() {
+        if (errorList == null) {
+            List<Error> errors = new ArrayList<>(numErrors);
+            for (int i = unnamedErrors.size() - 1; i >= 0; i--) {
+                errors.add(unnamedErrors.get(i));
+            }
+            for (Bucket bucket : buckets.values()) {
+                if (!bucket.sorted) {
+                    // a stable sort, so errors on the same line stay in the order registered
+                    bucket.errors.sort(Comparator.comparingInt(Error::getLineNum));
+                    bucket.sorted = true;
+                }
+                errors.addAll(bucket.errors);
+            }
+            errorList = Collections.unmodifiableList(errors);
+        }
+        return errorList;
     }
 
-    public void clear() {
-        errorList.clear();
+    public synchronized void clear() {
+        unnamedErrors.clear();
+        buckets.clear();
+        errorList = Collections.emptyList();
+        numErrors = 0;
+        numSuppressed = 0;
     }
 
 }
@@ -0,0 +1,27 @@
+/*
+ * File: ErrorListener.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.util;
+
+/**
+ * Is told about each error kept by an ErrorHandler as soon as it is
+ * registered, so errors can be shown while a scan, parse or check is still
+ * running.  Errors arrive in the order registered, not in the sorted order of
+ * ErrorHandler.getErrorList(), and errors not kept because the maximum was
+ * reached are not passed on.
+ *
+ * @see ErrorHandler#addErrorListener(ErrorListener)
+ */
+public interface ErrorListener {
+    /**
+     * Called on the thread that registered the error, while the ErrorHandler
+     * is locked, so it should only hand the error on, for example to a queue.
+     *
+     * @param error the error just registered
+     */
+    void errorRegistered(Error error);
+}
@@ -0,0 +1,532 @@
+/*
+ * File: FlatSymbolTable.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.util;
+
+import java.util.Arrays;
+
+/**
+ * A symbol table with the same methods and behavior as SymbolTable, kept in
+ * flat arrays instead of a list of Hashtables.
+ *
+ * Every symbol added is an entry in a log, in the order added.  Each entry
+ * records the scope it was added in and the entry for the same symbol that it
+ * shadows.  An open-addressing map from symbols to their innermost entry makes
+ * a lookup one probe in each table up the parent chain instead of one per
+ * scope, and exiting a scope pops its entries off the end of the log and
+ * points the map back at the entries they shadowed.  Entering and exiting
+ * scopes allocate nothing once the arrays have grown to fit.
+ *
+ * Like SymbolTable, values may not be null.  Unlike SymbolTable, the methods
+ * are not synchronized; a table must not be changed while another thread uses
+ * it or a table below it.
+ */
+public class FlatSymbolTable {
+    private static final int NONE = -1;
+    private static final int INITIAL_SLOTS = 16;   // must be a power of two
+    private static final int INITIAL_ENTRIES = 16;
+    private static final int INITIAL_SCOPES = 4;
+
+    /**
+     * The map: symbols by slot (null for an empty slot) and the index of the
+     * innermost entry for each (NONE once every entry for it has been popped)
+     */
+    private Symbol[] slotSymbols;
+    private int[] slotHeads;
+    private int numSlotsUsed;
+
+    /**
+     * The log of entries: symbol, value, scope it was added in (0 is the
+     * outermost scope of this table), and the entry it shadows (or NONE)
+     */
+    private Symbol[] entrySymbols;
+    private Object[] entryValues;
+    private int[] entryScopes;
+    private int[] entryShadowed;
+    private int numEntries;
+
+    /**
+     * The index of the first entry of each scope
+     */
+    private int[] scopeStarts;
+    private int numScopes;
+
+    /**
+     * Parent class symbol table (may be null)
+     * If lookup fails in this symbol table should lookup in parent
+     */
+    private FlatSymbolTable parent;
+
+    /**
+     * FlatSymbolTable constructor
+     * create an empty symbol table
+     */
+    public FlatSymbolTable() {
+        slotSymbols = new Symbol[INITIAL_SLOTS];
+        slotHeads = new int[INITIAL_SLOTS];
+        entrySymbols = new Symbol[INITIAL_ENTRIES];
+        entryValues = new Object[INITIAL_ENTRIES];
+        entryScopes = new int[INITIAL_ENTRIES];
+        entryShadowed = new int[INITIAL_ENTRIES];
+        scopeStarts = new int[INITIAL_SCOPES];
+    }
+
+    /**
+     * Set the parent symbol table
+     *
+     * @param parent symbol table of the parent class
+     */
+    public void setParent(FlatSymbolTable parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Enter a new scope
+     */
+    public void enterScope() {
+        if (numScopes == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, numScopes * 2);
+        }
+        scopeStarts[numScopes++] = numEntries;
+    }
+
+    /**
+     * Exit a scope
+     */
+    public void exitScope() {
+        if (numScopes == 0) {
+            throw new RuntimeException("No scope to exit");
+        }
+        int start = scopeStarts[--numScopes];
+        for (int e = numEntries - 1; e >= start; e--) {
+            slotHeads[findSlot(entrySymbols[e])] = entryShadowed[e];
+            entrySymbols[e] = null;
+            entryValues[e] = null;
+        }
+        numEntries = start;
+    }
+
+    /**
+     * Same as add(Symbol, Object), for a name given as a String
+     */
+    public void add(String s, Object value) {
+        add(Symbol.intern(s), value);
+    }
+
+    /**
+     * Adds a symbol to the symbol table if one does not already exist
+     * Sets the value of the symbol to the specified parameter
+     *
+     * @param s     symbol name (i.e., name of variable or method)
+     * @param value value of symbol (i.e., type)
+     */
+    public void add(Symbol s, Object value) {
+        if (numScopes == 0) {
+            throw new RuntimeException("Must enter a scope before adding to table");
+        }
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int slot = claimSlot(s);
+        int head = slotHeads[slot];
+        if (head != NONE && entryScopes[head] == numScopes - 1) {
+            entryValues[head] = value;
+            return;
+        }
+        if (numEntries == entrySymbols.length) {
+            int capacity = numEntries * 2;
+            entrySymbols = Arrays.copyOf(entrySymbols, capacity);
+            entryValues = Arrays.copyOf(entryValues, capacity);
+            entryScopes = Arrays.copyOf(entryScopes, capacity);
+            entryShadowed = Arrays.copyOf(entryShadowed, capacity);
+        }
+        entrySymbols[numEntries] = s;
+        entryValues[numEntries] = value;
+        entryScopes[numEntries] = numScopes - 1;
+        entryShadowed[numEntries] = head;
+        slotHeads[slot] = numEntries++;
+    }
+
+    /**
+     * Same as lookup(Symbol), for a name given as a String
+     */
+    public Object lookup(String s) {
+        return lookup(Symbol.intern(s));
+    }
+
+    /**
+     * Looks up a symbol in any scope in the symbol table
+     *
+     * @param s symbol to lookup
+     * @return value of symbol (i.e., type), null if not found
+     */
+    public Object lookup(Symbol s) {
+        for (FlatSymbolTable st = this; st != null; st = st.parent) {
+            if (st.numScopes == 0) {
+                throw new RuntimeException("Must enter a scope before looking up in table");
+            }
+            int head = st.head(s);
+            if (head != NONE) {
+                return st.entryValues[head];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Same as lookup(Symbol, int), for a name given as a String
+     */
+    public Object lookup(String s, int level) {
+        return lookup(Symbol.intern(s), level);
+    }
+
+    /**
+     * Looks up a symbol in a particular scope in the symbol table as well
+     * as any outer scopes from that specified scope
+     * Note: an exception is thrown if the specified level is <0 or >= largest
+     * scope level
+     *
+     * @param s     symbol to lookup
+     * @param level scope level to lookup string (outermost scope is at level 0)
+     * @return value of symbol (i.e., type), null if not found in particular scope level
+     */
+    public Object lookup(Symbol s, int level) {
+        checkLevel("lookup(sym,level)", "looking up in", level);
+        FlatSymbolTable st = tableAt(level);
+        int e = st.entryAtOrBelow(s, level - st.getParentScopeLevel());
+        if (e != NONE) {
+            return st.entryValues[e];
+        }
+        return st.parent != null ? st.parent.lookup(s) : null;
+    }
+
+    /**
+     * Same as peek(Symbol), for a name given as a String
+     */
+    public Object peek(String s) {
+        return peek(Symbol.intern(s));
+    }
+
+    /**
+     * Looks up a symbol in the current scope in the table
+     *
+     * @param s symbol to lookup
+     * @return value of symbol (i.e., type), null if not found
+     */
+    public Object peek(Symbol s) {
+        if (numScopes == 0) {
+            throw new RuntimeException("Must enter a scope before peeking in table");
+        }
+        int head = head(s);
+        return head != NONE && entryScopes[head] == numScopes - 1 ? entryValues[head] : null;
+    }
+
+    /**
+     * Same as peek(Symbol, int), for a name given as a String
+     */
+    public Object peek(String s, int level) {
+        return peek(Symbol.intern(s), level);
+    }
+
+    /**
+     * Looks up a symbol in a particular scope in the symbol table
+     * Note: an exception is thrown if the specified level is <0 or >= largest
+     * scope level
+     *
+     * @param s     symbol to lookup
+     * @param level scope level to lookup string (outermost scope is at level 0)
+     * @return value of symbol (i.e., type), null if not found in particular scope level
+     */
+    public Object peek(Symbol s, int level) {
+        checkLevel("peek(sym,level)", "peeking in", level);
+        FlatSymbolTable st = tableAt(level);
+        int scope = level - st.getParentScopeLevel();
+        int e = st.entryAtOrBelow(s, scope);
+        return e != NONE && st.entryScopes[e] == scope ? st.entryValues[e] : null;
+    }
+
+    /**
+     * Same as set(Symbol, Object), for a name given as a String
+     */
+    public void set(String s, Object val) {
+        set(Symbol.intern(s), val);
+    }
+
+    /**
+     * Sets the value of an existing symbol in the innermost scope of the symbol table
+     *
+     * @param s   symbol to set
+     * @param val value to set the symbol to
+     */
+    public void set(Symbol s, Object val) {
+        if (numScopes == 0) {
+            throw new RuntimeException("Must enter a scope before setting in table");
+        }
+        if (val == null) {
+            throw new NullPointerException();
+        }
+        for (FlatSymbolTable st = this; st != null; st = st.parent) {
+            int head = st.head(s);
+            if (head != NONE) {
+                st.entryValues[head] = val;
+                return;
+            }
+        }
+        throw new RuntimeException("Set symbol '" + s +
+                "' is not in the symbol table");
+    }
+
+    /**
+     * Same as set(Symbol, Object, int), for a name given as a String
+     */
+    public void set(String s, Object val, int level) {
+        set(Symbol.intern(s), val, level);
+    }
+
+    /**
+     * Sets the value of an existing symbol in a particular scope of the
+     * symbol table (or an outer scope containing the specified scope)
+     *
+     * @param s     symbol to set
+     * @param val   value to set the symbol to
+     * @param level scope level containing symbol to be set
+     */
+    public void set(Symbol s, Object val, int level) {
+        checkLevel("set(sym,val,level)", "setting in", level);
+        if (val == null) {
+            throw new NullPointerException();
+        }
+        FlatSymbolTable st = tableAt(level);
+        int e = st.entryAtOrBelow(s, level - st.getParentScopeLevel());
+        if (e != NONE) {
+            st.entryValues[e] = val;
+        }
+        else if (st.parent != null) {
+            st.parent.set(s, val);
+        }
+    }
+
+    /**
+     * Same as getScopeLevel(Symbol), for a name given as a String
+     */
+    public int getScopeLevel(String s) {
+        return getScopeLevel(Symbol.intern(s));
+    }
+
+    /**
+     * Gets scope level of a symbol in the table
+     * (<0 means symbol not in table)
+     *
+     * @param s symbol to lookup
+     * @return scope level
+     */
+    public int getScopeLevel(Symbol s) {
+        if (numScopes == 0) {
+            throw new RuntimeException("Must enter a scope before looking up in table");
+        }
+        int head = head(s);
+        if (head != NONE) {
+            return entryScopes[head] + 1 + getParentScopeLevel();
+        }
+        return parent != null ? parent.getScopeLevel(s) : -1;
+    }
+
+    /**
+     * Gets the number of entries in all scopes of the symbol table
+     * Note: includes inherited scopes
+     *
+     * @return size of current scope
+     */
+    public int getSize() {
+        int size = 0;
+        for (FlatSymbolTable st = this; st != null; st = st.parent) {
+            size += st.numEntries;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of entries in the current scope of the symbol table
+     *
+     * @return size of current scope
+     */
+    public int getCurrScopeSize() {
+        return numScopes == 0 ? 0 : numEntries - scopeStarts[numScopes - 1];
+    }
+
+    /**
+     * Gets the current scope level of the symbol table
+     * (first scope starts at 1)
+     *
+     * @return current scope level
+     */
+    public int getCurrScopeLevel() {
+        return numScopes + getParentScopeLevel();
+    }
+
+    /**
+     * clone this symbol table as well as all parent symbol tables
+     * Note: does a shallow clone, does not copy keys or values
+     *
+     * @return cloned symbol table
+     */
+    public FlatSymbolTable clone() {
+        FlatSymbolTable st = new FlatSymbolTable();
+        st.slotSymbols = slotSymbols.clone();
+        st.slotHeads = slotHeads.clone();
+        st.numSlotsUsed = numSlotsUsed;
+        st.entrySymbols = entrySymbols.clone();
+        st.entryValues = entryValues.clone();
+        st.entryScopes = entryScopes.clone();
+        st.entryShadowed = entryShadowed.clone();
+        st.numEntries = numEntries;
+        st.scopeStarts = scopeStarts.clone();
+        st.numScopes = numScopes;
+        st.parent = parent != null ? parent.clone() : null;
+        return st;
+    }
+
+    /**
+     * For debugging -- dumps out entire symbol table
+     * Starts from highest scope level (Object class) and works
+     * towards the lowest scope level (current level)
+     */
+    public void dump() {
+        if (parent != null) {
+            parent.dump();
+        }
+        for (int scope = 0; scope < numScopes; scope++) {
+            int end = scope + 1 < numScopes ? scopeStarts[scope + 1] : numEntries;
+            StringBuilder text = new StringBuilder("{");
+            for (int e = scopeStarts[scope]; e < end; e++) {
+                if (e > scopeStarts[scope]) {
+                    text.append(", ");
+                }
+                text.append(entrySymbols[e]).append('=').append(entryValues[e]);
+            }
+            System.out.println(text.append('}'));
+        }
+    }
+
+    /**
+     * @return the number of scopes in the parent tables
+     */
+    private int getParentScopeLevel() {
+        int level = 0;
+        for (FlatSymbolTable st = parent; st != null; st = st.parent) {
+            level += st.numScopes;
+        }
+        return level;
+    }
+
+    /**
+     * Throws the same exceptions as SymbolTable for a level that is not in the table
+     */
+    private void checkLevel(String method, String doing, int level) {
+        int lastLevel = getCurrScopeLevel();
+        if (numScopes == 0) {
+            throw new RuntimeException("Must enter a scope before " + doing + " table");
+        }
+        else if (level < 0 || level >= lastLevel) {
+            throw new IllegalArgumentException("SymbolTable." + method + " called" +
+                    " with level (" + level + ") that is not" +
+                    " between 0 and current level (" +
+                    lastLevel + ") minus one");
+        }
+    }
+
+    /**
+     * @return the table, this one or an ancestor, holding a scope level
+     */
+    private FlatSymbolTable tableAt(int level) {
+        FlatSymbolTable st = this;
+        int offset = getParentScopeLevel();
+        while (level < offset) {
+            st = st.parent;
+            offset -= st.numScopes;
+        }
+        return st;
+    }
+
+    /**
+     * @return the innermost entry for a symbol in a scope no deeper than the given one, or NONE
+     */
+    private int entryAtOrBelow(Symbol s, int scope) {
+        int e = head(s);
+        while (e != NONE && entryScopes[e] > scope) {
+            e = entryShadowed[e];
+        }
+        return e;
+    }
+
+    /**
+     * @return the innermost entry for a symbol in this table, or NONE
+     */
+    private int head(Symbol s) {
+        int slot = findSlot(s);
+        return slotSymbols[slot] == null ? NONE : slotHeads[slot];
+    }
+
+    /**
+     * @return the slot of a symbol, or the empty slot where it would go
+     */
+    private int findSlot(Symbol s) {
+        int mask = slotSymbols.length - 1;
+        int slot = (s.getId() * 0x9E3779B9 >>> 16) & mask;
+        while (slotSymbols[slot] != null && slotSymbols[slot] != s) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @return the slot of a symbol, taking an empty one for it if it has none
+     */
+    private int claimSlot(Symbol s) {
+        int slot = findSlot(s);
+        if (slotSymbols[slot] == null) {
+            if (2 * (numSlotsUsed + 1) > slotSymbols.length) {
+                rehash();
+                slot = findSlot(s);
+            }
+            slotSymbols[slot] = s;
+            slotHeads[slot] = NONE;
+            numSlotsUsed++;
+        }
+        return slot;
+    }
+
+    /**
+     * Moves the symbols that still have entries into a map big enough to
+     * stay at most half full, dropping the ones whose entries were all popped
+     */
+    private void rehash() {
+        Symbol[] oldSymbols = slotSymbols;
+        int[] oldHeads = slotHeads;
+        int live = 0;
+        for (int slot = 0; slot < oldSymbols.length; slot++) {
+            if (oldSymbols[slot] != null && oldHeads[slot] != NONE) {
+                live++;
+            }
+        }
+        int capacity = INITIAL_SLOTS;
+        while (capacity < 4 * (live + 1)) {
+            capacity *= 2;
+        }
+        slotSymbols = new Symbol[capacity];
+        slotHeads = new int[capacity];
+        numSlotsUsed = 0;
+        for (int slot = 0; slot < oldSymbols.length; slot++) {
+            if (oldSymbols[slot] != null && oldHeads[slot] != NONE) {
+                int newSlot = findSlot(oldSymbols[slot]);
+                slotSymbols[newSlot] = oldSymbols[slot];
+                slotHeads[newSlot] = oldHeads[slot];
+                numSlotsUsed++;
+            }
+        }
+    }
+}
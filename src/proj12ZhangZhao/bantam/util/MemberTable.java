@@ -0,0 +1,168 @@
+/*
+ * File: MemberTable.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.util;
+
+import proj12ZhangZhao.bantam.ast.ASTNode;
+import proj12ZhangZhao.bantam.ast.Class_;
+import proj12ZhangZhao.bantam.ast.Field;
+import proj12ZhangZhao.bantam.ast.Method;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All the fields and methods of a class, its own and inherited, each with
+ * the class that declares it and its slot.  Fields are numbered in the order
+ * of the object layout, the parent's fields first.  Methods are numbered like
+ * a vtable: a method keeps the slot of the method it overrides, and new
+ * methods get the next slots after the parent's.
+ *
+ * Looking up a member is one hash probe, instead of one lookup per ancestor
+ * in the class's symbol tables.  A table is built from the class's AST node
+ * and its parent's table and is never changed.
+ *
+ * @see ClassTreeNode#getMemberTable()
+ */
+public class MemberTable {
+    /**
+     * A field or method, where it is declared, and its slot
+     */
+    public static class Member {
+        private final ASTNode node;
+        private final ClassTreeNode declaringClass;
+        private final int slot;
+
+        private Member(ASTNode node, ClassTreeNode declaringClass, int slot) {
+            this.node = node;
+            this.declaringClass = declaringClass;
+            this.slot = slot;
+        }
+
+        /**
+         * @return the Field or Method node
+         */
+        public ASTNode getNode() {
+            return node;
+        }
+
+        /**
+         * @return the class tree node of the class declaring the member
+         */
+        public ClassTreeNode getDeclaringClass() {
+            return declaringClass;
+        }
+
+        /**
+         * @return the field's place in the object layout, or the method's vtable slot
+         */
+        public int getSlot() {
+            return slot;
+        }
+    }
+
+    private static final Member[] NO_MEMBERS = new Member[0];
+
+    private final Map<Symbol, Member> fields;
+    private final Map<Symbol, Member> methods;
+    private final Member[] fieldSlots;
+    private final Member[] vtable;
+
+    /**
+     * MemberTable constructor
+     *
+     * @param classNode   the class tree node of the class
+     * @param parentTable the member table of the parent class, or null if there is none
+     */
+    MemberTable(ClassTreeNode classNode, MemberTable parentTable) {
+        fields = parentTable == null ? new HashMap<>() : new HashMap<>(parentTable.fields);
+        methods = parentTable == null ? new HashMap<>() : new HashMap<>(parentTable.methods);
+        Member[] layout = parentTable == null ? NO_MEMBERS : parentTable.fieldSlots;
+        Member[] slots = parentTable == null ? NO_MEMBERS : parentTable.vtable;
+        int numFields = layout.length;
+        int numMethods = slots.length;
+
+        Class_ astNode = classNode.getASTNode();
+        if (astNode != null) {
+            layout = Arrays.copyOf(layout, numFields + astNode.getMemberList().getSize());
+            slots = Arrays.copyOf(slots, numMethods + astNode.getMemberList().getSize());
+            for (ASTNode node : astNode.getMemberList()) {
+                if (node instanceof Field) {
+                    Symbol name = ((Field) node).getNameSymbol();
+                    Member declared = fields.get(name);
+                    // a second declaration in the same class replaces the first
+                    int slot = declared != null && declared.declaringClass == classNode
+                            ? declared.slot : numFields++;
+                    Member field = new Member(node, classNode, slot);
+                    layout[slot] = field;
+                    fields.put(name, field);
+                }
+                else if (node instanceof Method) {
+                    Symbol name = ((Method) node).getNameSymbol();
+                    Member overridden = methods.get(name);
+                    int slot = overridden != null ? overridden.slot : numMethods++;
+                    Member method = new Member(node, classNode, slot);
+                    slots[slot] = method;
+                    methods.put(name, method);
+                }
+            }
+        }
+        fieldSlots = Arrays.copyOf(layout, numFields);
+        vtable = Arrays.copyOf(slots, numMethods);
+    }
+
+    /**
+     * Looks up a field of the class or of one of its ancestors
+     *
+     * @param name the name of the field
+     * @return the field, or null if the class has none by that name
+     */
+    public Member lookupField(Symbol name) {
+        return fields.get(name);
+    }
+
+    /**
+     * Same as lookupField(Symbol), for a name given as a String
+     */
+    public Member lookupField(String name) {
+        return lookupField(Symbol.intern(name));
+    }
+
+    /**
+     * Looks up a method of the class or of one of its ancestors
+     *
+     * @param name the name of the method
+     * @return the method as declared in the class or the closest ancestor, or null if there is none
+     */
+    public Member lookupMethod(Symbol name) {
+        return methods.get(name);
+    }
+
+    /**
+     * Same as lookupMethod(Symbol), for a name given as a String
+     */
+    public Member lookupMethod(String name) {
+        return lookupMethod(Symbol.intern(name));
+    }
+
+    /**
+     * @return the fields in the order of the object layout
+     */
+    public List<Member> getFields() {
+        return Collections.unmodifiableList(Arrays.asList(fieldSlots));
+    }
+
+    /**
+     * @return the methods by vtable slot
+     */
+    public List<Member> getVtable() {
+        return Collections.unmodifiableList(Arrays.asList(vtable));
+    }
+}
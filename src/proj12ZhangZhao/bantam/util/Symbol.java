@@ -0,0 +1,221 @@
+/*
+ * File: Symbol.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.bantam.util;
+
+/**
+ * An interned name (identifier or type name).  There is exactly one Symbol
+ * per distinct spelling, so two Symbols are equal only if they are the same
+ * object, and comparing them is a reference comparison.  Each Symbol keeps
+ * its hash code (the same as its name's) and a small integer id.
+ *
+ * Symbols are interned in one pool shared by the lexer, the parser and the
+ * semantic analyzer.  The pool is thread safe and never shrinks.  Finding a
+ * symbol that is already in the pool takes no lock; only adding one does.
+ */
+public final class Symbol
+{
+    private static final int INITIAL_CAPACITY = 1024; // must be a power of two
+
+    // the pool: an open addressing hash table with linear probing, read
+    // without locking; a grown table is published only once it is filled in
+    private static volatile Symbol[] table = new Symbol[INITIAL_CAPACITY];
+    private static int count = 0;
+
+    // names the semantic analyzer compares against
+    public static final Symbol THIS = intern("this");
+    public static final Symbol SUPER = intern("super");
+    public static final Symbol NULL = intern("null");
+    public static final Symbol OBJECT = intern("Object");
+
+    private final String name;
+    private final int hash;
+    private final int id;
+
+    private Symbol(String name, int hash, int id) {
+        this.name = name;
+        this.hash = hash;
+        this.id = id;
+    }
+
+    /**
+     * Finds the symbol for a name, creating it the first time the name is seen
+     *
+     * @param name the spelling of the symbol
+     * @return the one symbol with that spelling
+     */
+    public static Symbol intern(String name) {
+        int hash = name.hashCode();
+        Symbol symbol = find(table, name, hash);
+        return symbol != null ? symbol : internLocked(name, hash);
+    }
+
+    /**
+     * Probes a pool for a name.  Slots only ever go from null to a symbol, and
+     * a symbol's fields are final, so a reader without the lock sees either
+     * a complete symbol or null, and a null only sends it to the locked path.
+     *
+     * @return the symbol, or null if it is not in this pool
+     */
+    private static Symbol find(Symbol[] table, String name, int hash) {
+        int mask = table.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            Symbol symbol = table[i];
+            if (symbol == null) {
+                return null;
+            }
+            if (symbol.hash == hash && symbol.name.equals(name)) {
+                return symbol;
+            }
+        }
+    }
+
+    /**
+     * Finds or adds a symbol holding the lock, for names not found without it
+     */
+    private static synchronized Symbol internLocked(String name, int hash) {
+        Symbol[] table = Symbol.table;
+        int mask = table.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            Symbol symbol = table[i];
+            if (symbol == null) {
+                return add(i, name, hash);
+            }
+            if (symbol.hash == hash && symbol.name.equals(name)) {
+                return symbol;
+            }
+        }
+    }
+
+    /**
+     * Finds the symbol spelled by a range of chars.  No String is created
+     * unless the name has never been seen before.
+     *
+     * @param chars  the array holding the spelling
+     * @param start  the offset of its first char
+     * @param length the number of chars
+     * @return the one symbol with that spelling
+     */
+    public static Symbol intern(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        Symbol symbol = find(table, chars, start, length, hash);
+        return symbol != null ? symbol : internLocked(chars, start, length, hash);
+    }
+
+    /**
+     * Same as find(Symbol[], String, int), for a name given as a range of chars
+     */
+    private static Symbol find(Symbol[] table, char[] chars, int start, int length, int hash) {
+        int mask = table.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            Symbol symbol = table[i];
+            if (symbol == null) {
+                return null;
+            }
+            if (symbol.hash == hash && symbol.spells(chars, start, length)) {
+                return symbol;
+            }
+        }
+    }
+
+    /**
+     * Same as internLocked(String, int), for a name given as a range of chars
+     */
+    private static synchronized Symbol internLocked(char[] chars, int start, int length, int hash) {
+        Symbol[] table = Symbol.table;
+        int mask = table.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            Symbol symbol = table[i];
+            if (symbol == null) {
+                return add(i, new String(chars, start, length), hash);
+            }
+            if (symbol.hash == hash && symbol.spells(chars, start, length)) {
+                return symbol;
+            }
+        }
+    }
+
+    /**
+     * @return the number of distinct symbols interned so far
+     */
+    public static synchronized int poolSize() {
+        return count;
+    }
+
+    /**
+     * Adds a new symbol at a free slot of the pool, growing the pool if it is
+     * half full.  Called holding the lock.
+     */
+    private static Symbol add(int slot, String name, int hash) {
+        Symbol symbol = new Symbol(name, hash, count++);
+        table[slot] = symbol;
+        if (count * 2 > table.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    private static void rehash() {
+        Symbol[] newTable = new Symbol[table.length * 2];
+        int mask = newTable.length - 1;
+        for (Symbol symbol : table) {
+            if (symbol != null) {
+                int i = symbol.hash & mask;
+                while (newTable[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                newTable[i] = symbol;
+            }
+        }
+        table = newTable;
+    }
+
+    private boolean spells(char[] chars, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the spelling of the symbol
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the id of the symbol; ids are given out in order starting at 0
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the hash code of the symbol's name, computed once
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * @return the spelling of the symbol
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
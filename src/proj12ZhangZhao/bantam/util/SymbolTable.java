@@ -26,24 +26,25 @@
 
 package proj12ZhangZhao.bantam.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Hashtable;
-import java.util.Vector;
 
 /**
  * Class for representing a class symbol table
  */
 public class SymbolTable {
     /**
-     * Hash table that maps strings to Objects.  The object value corresponds to
+     * Hash table that maps symbols to Objects.  The object value corresponds to
      * the type of the variable or method.  For variables it will be a String and
      * for methods it will be an AST node.
      */
-    private Hashtable<String, Object> hash;
+    private Hashtable<Symbol, Object> hash;
     /**
      * List that holds each scope
      */
-    private Vector<Hashtable<String, Object>> scopes;
+    private ArrayList<Hashtable<Symbol, Object>> scopes;
     /**
      * Parent class symbol table (may be null)
      * If lookup fails in this symbol table should lookup in parent
@@ -56,7 +57,7 @@ public class SymbolTable {
      */
     public SymbolTable() {
         hash = null;
-        scopes = new Vector<Hashtable<String, Object>>();
+        scopes = new ArrayList<Hashtable<Symbol, Object>>();
         parent = null;
     }
 
@@ -68,11 +69,11 @@ public class SymbolTable {
      * @param scopes the scopes of symbols
      * @param parent parent symbol table
      */
-    private SymbolTable(Vector<Hashtable<String, Object>> scopes,
+    private SymbolTable(ArrayList<Hashtable<Symbol, Object>> scopes,
                         SymbolTable parent) {
         this.scopes = scopes;
         if (scopes.size() > 0) {
-            this.hash = scopes.elementAt(scopes.size() - 1);
+            this.hash = scopes.get(scopes.size() - 1);
         }
         else {
             this.hash = null;
@@ -93,7 +94,7 @@ public class SymbolTable {
      * Enter a new scope
      */
     public void enterScope() {
-        hash = new Hashtable<String, Object>();
+        hash = new Hashtable<Symbol, Object>();
         scopes.add(hash);
     }
 
@@ -104,15 +105,22 @@ public class SymbolTable {
         if (scopes.size() == 0) {
             throw new RuntimeException("No scope to exit");
         }
-        scopes.removeElementAt(scopes.size() - 1);
+        scopes.remove(scopes.size() - 1);
         if (scopes.size() > 0) {
-            hash = scopes.elementAt(scopes.size() - 1);
+            hash = scopes.get(scopes.size() - 1);
         }
         else {
             hash = null;
         }
     }
 
+    /**
+     * Same as add(Symbol, Object), for a name given as a String
+     */
+    public void add(String s, Object value) {
+        add(Symbol.intern(s), value);
+    }
+
     /**
      * Adds a symbol to the symbol table if one does not already exist
      * Sets the value of the symbol to the specified parameter
@@ -120,26 +128,33 @@ public class SymbolTable {
      * @param s     symbol name (i.e., name of variable or method)
      * @param value value of symbol (i.e., type)
      */
-    public void add(String s, Object value) {
+    public void add(Symbol s, Object value) {
         if (scopes.size() == 0) {
             throw new RuntimeException("Must enter a scope before adding to table");
         }
         hash.put(s, value);
     }
 
+    /**
+     * Same as lookup(Symbol), for a name given as a String
+     */
+    public Object lookup(String s) {
+        return lookup(Symbol.intern(s));
+    }
+
     /**
      * Looks up a symbol in any scope in the symbol table
      *
-     * @param s string of symbol to lookup
+     * @param s symbol to lookup
      * @return value of symbol (i.e., type), null if not found
      */
-    public Object lookup(String s) {
+    public Object lookup(Symbol s) {
         if (scopes.size() == 0) {
             throw new RuntimeException("Must enter a scope before looking up in table");
         }
 
         for (int i = scopes.size() - 1; i >= 0; i--) {
-            Hashtable<String, Object> h = scopes.elementAt(i);
+            Hashtable<Symbol, Object> h = scopes.get(i);
             Object value = h.get(s);
             if (value != null) {
                 return value;
@@ -152,17 +167,24 @@ public class SymbolTable {
         return null;
     }
 
+    /**
+     * Same as lookup(Symbol, int), for a name given as a String
+     */
+    public Object lookup(String s, int level) {
+        return lookup(Symbol.intern(s), level);
+    }
+
     /**
      * Looks up a symbol in a particular scope in the symbol table as well
      * as any outer scopes from that specified scope
      * Note: an exception is thrown if the specified level is <0 or >= largest
      * scope level
      *
-     * @param s     string of symbol to lookup
+     * @param s     symbol to lookup
      * @param level scope level to lookup string (outermost scope is at level 0)
      * @return value of symbol (i.e., type), null if not found in particular scope level
      */
-    public Object lookup(String s, int level) {
+    public Object lookup(Symbol s, int level) {
         int lastLevel = getCurrScopeLevel();
 
         // some error checking
@@ -178,20 +200,20 @@ public class SymbolTable {
 
         // get an ordered list of ancestor symbol tables
         // (starts from Object's table and ends with current class's table)
-        Vector<SymbolTable> tableList = new Vector<SymbolTable>();
+        ArrayList<SymbolTable> tableList = new ArrayList<SymbolTable>();
         for (SymbolTable st = this; st != null; st = st.parent)
             tableList.add(0, st);
 
         // find the right scope
         for (int i = 0; i < tableList.size(); i++) {
-            SymbolTable st = tableList.elementAt(i);
+            SymbolTable st = tableList.get(i);
 
             // if level within the next table then do lookup
             if (level < st.scopes.size()) {
                 // lookup in this scope and earlier scopes until we find
                 // symbol or run out of scopes
                 for (int l = level; l >= 0; l--) {
-                    Hashtable<String, Object> h = st.scopes.elementAt(l);
+                    Hashtable<Symbol, Object> h = st.scopes.get(l);
                     if (h.get(s) != null) {
                         return h.get(s);
                     }
@@ -213,29 +235,43 @@ public class SymbolTable {
         return null;
     }
 
+    /**
+     * Same as peek(Symbol), for a name given as a String
+     */
+    public Object peek(String s) {
+        return peek(Symbol.intern(s));
+    }
+
     /**
      * Looks up a symbol in the current scope in the table
      *
-     * @param s string of symbol to lookup
+     * @param s symbol to lookup
      * @return value of symbol (i.e., type), null if not found
      */
-    public Object peek(String s) {
+    public Object peek(Symbol s) {
         if (scopes.size() == 0) {
             throw new RuntimeException("Must enter a scope before peeking in table");
         }
         return hash.get(s);
     }
 
+    /**
+     * Same as peek(Symbol, int), for a name given as a String
+     */
+    public Object peek(String s, int level) {
+        return peek(Symbol.intern(s), level);
+    }
+
     /**
      * Looks up a symbol in a particular scope in the symbol table
      * Note: an exception is thrown if the specified level is <0 or >= largest
      * scope level
      *
-     * @param s     string of symbol to lookup
+     * @param s     symbol to lookup
      * @param level scope level to lookup string (outermost scope is at level 0)
      * @return value of symbol (i.e., type), null if not found in particular scope level
      */
-    public Object peek(String s, int level) {
+    public Object peek(Symbol s, int level) {
         int lastLevel = getCurrScopeLevel();
 
         // some error checking
@@ -251,17 +287,17 @@ public class SymbolTable {
 
         // get an ordered list of ancestor symbol tables
         // (starts from Object's table and ends with current class's table)
-        Vector<SymbolTable> tableList = new Vector<SymbolTable>();
+        ArrayList<SymbolTable> tableList = new ArrayList<SymbolTable>();
         for (SymbolTable st = this; st != null; st = st.parent)
             tableList.add(0, st);
 
         // find the right scope
         for (int i = 0; i < tableList.size(); i++) {
-            SymbolTable st = tableList.elementAt(i);
+            SymbolTable st = tableList.get(i);
 
             // if level within the next table then do lookup
             if (level < st.scopes.size()) {
-                Hashtable<String, Object> h = st.scopes.elementAt(level);
+                Hashtable<Symbol, Object> h = st.scopes.get(level);
                 return h.get(s);
             }
 
@@ -273,20 +309,27 @@ public class SymbolTable {
         return null;
     }
 
+    /**
+     * Same as set(Symbol, Object), for a name given as a String
+     */
+    public void set(String s, Object val) {
+        set(Symbol.intern(s), val);
+    }
+
     /**
      * Sets the value of an existing symbol in the innermost scope of the symbol table
      *
-     * @param s   string of symbol to set
+     * @param s   symbol to set
      * @param val value to set the symbol to
      */
-    public void set(String s, Object val) {
+    public void set(Symbol s, Object val) {
         if (scopes.size() == 0) {
             throw new RuntimeException("Must enter a scope before setting in table");
         }
 
         for (SymbolTable st = this; st != null; st = st.parent) {
             for (int i = st.scopes.size() - 1; i >= 0; i--) {
-                Hashtable<String, Object> h = st.scopes.elementAt(i);
+                Hashtable<Symbol, Object> h = st.scopes.get(i);
                 if (h.get(s) != null) {
                     h.remove(s);
                     h.put(s, val);
@@ -299,15 +342,22 @@ public class SymbolTable {
                 "' is not in the symbol table");
     }
 
+    /**
+     * Same as set(Symbol, Object, int), for a name given as a String
+     */
+    public void set(String s, Object val, int level) {
+        set(Symbol.intern(s), val, level);
+    }
+
     /**
      * Sets the value of an existing symbol in a particular scope of the
      * symbol table (or an outer scope containing the specified scope)
      *
-     * @param s     string of symbol to set
+     * @param s     symbol to set
      * @param val   value to set the symbol to
      * @param level scope level containing symbol to be set
      */
-    public void set(String s, Object val, int level) {
+    public void set(Symbol s, Object val, int level) {
         int lastLevel = getCurrScopeLevel();
 
         if (scopes.size() == 0) {
@@ -322,20 +372,20 @@ public class SymbolTable {
 
         // get an ordered list of ancestor symbol tables
         // (starts from Object's table and ends with current class's table)
-        Vector<SymbolTable> tableList = new Vector<SymbolTable>();
+        ArrayList<SymbolTable> tableList = new ArrayList<SymbolTable>();
         for (SymbolTable st = this; st != null; st = st.parent)
             tableList.add(0, st);
 
         // find the right scope
         for (int i = 0; i < tableList.size(); i++) {
-            SymbolTable st = tableList.elementAt(i);
+            SymbolTable st = tableList.get(i);
 
             // if level within the next table then do lookup
             if (level < st.scopes.size()) {
                 // look in this scope and earlier scopes until we find
                 // symbol or run out of scopes
                 for (int l = level; l >= 0; l--) {
-                    Hashtable<String, Object> h = st.scopes.elementAt(l);
+                    Hashtable<Symbol, Object> h = st.scopes.get(l);
                     if (h.get(s) != null) {
                         h.remove(s);
                         h.put(s, val);
@@ -355,20 +405,27 @@ public class SymbolTable {
         }
     }
 
+    /**
+     * Same as getScopeLevel(Symbol), for a name given as a String
+     */
+    public int getScopeLevel(String s) {
+        return getScopeLevel(Symbol.intern(s));
+    }
+
     /**
      * Gets scope level of a symbol in the table
      * (<0 means symbol not in table)
      *
-     * @param s string of symbol to lookup
+     * @param s symbol to lookup
      * @return scope level
      */
-    public int getScopeLevel(String s) {
+    public int getScopeLevel(Symbol s) {
         if (scopes.size() == 0) {
             throw new RuntimeException("Must enter a scope before looking up in table");
         }
 
         for (int i = scopes.size() - 1; i >= 0; i--) {
-            Hashtable<String, Object> h = scopes.elementAt(i);
+            Hashtable<Symbol, Object> h = scopes.get(i);
             if (h.get(s) != null) {
                 if (parent == null) {
                     return (i + 1);
@@ -396,7 +453,7 @@ public class SymbolTable {
         int size = 0;
 
         for (int i = 0; i < scopes.size(); i++)
-            size += scopes.elementAt(i).size();
+            size += scopes.get(i).size();
 
         if (parent != null) {
             return parent.getSize() + size;
@@ -446,10 +503,10 @@ public class SymbolTable {
         }
 
         // create new set of clone scopes
-        Vector<Hashtable<String, Object>> newScopes
-                = new Vector<Hashtable<String, Object>>();
+        ArrayList<Hashtable<Symbol, Object>> newScopes
+                = new ArrayList<Hashtable<Symbol, Object>>();
         for (int i = 0; i < scopes.size(); i++)
-            newScopes.add((Hashtable<String, Object>) scopes.elementAt(i).clone());
+            newScopes.add((Hashtable<Symbol, Object>) scopes.get(i).clone());
 
         // use these to create a new symbol table
         SymbolTable st = new SymbolTable(newScopes, newParent);
@@ -458,6 +515,21 @@ public class SymbolTable {
         return st;
     }
 
+    /**
+     * clone the scopes of this symbol table only; the clone shares the
+     * parent symbol table, which must then only be read through the clone
+     * Note: does a shallow clone, does not copy keys or values
+     *
+     * @return cloned symbol table
+     */
+    public SymbolTable cloneOwnScopes() {
+        ArrayList<Hashtable<Symbol, Object>> newScopes
+                = new ArrayList<Hashtable<Symbol, Object>>();
+        for (int i = 0; i < scopes.size(); i++)
+            newScopes.add((Hashtable<Symbol, Object>) scopes.get(i).clone());
+        return new SymbolTable(newScopes, parent);
+    }
+
     /**
      * For debugging -- dumps out entire symbol table
      * Starts from highest scope level (Object class) and works
@@ -468,7 +540,7 @@ public class SymbolTable {
             parent.dump();
         }
 
-        Enumeration e = scopes.elements();
+        Enumeration e = Collections.enumeration(scopes);
         while (e.hasMoreElements())
             System.out.println(e.nextElement());
     }
@@ -135,6 +135,16 @@ public abstract class Visitor {
         return null;
     }
 
+    /**
+     * Visit a member that could not be parsed
+     *
+     * @param node the error member node
+     * @return result of the visit
+     */
+    public Object visit(ErrorMember node) {
+        return null;
+    }
+
     /**
      * Visit a list node of formals
      *
@@ -258,6 +268,16 @@ public abstract class Visitor {
         return null;
     }
 
+    /**
+     * Visit a statement that could not be parsed
+     *
+     * @param node the error statement node
+     * @return result of the visit
+     */
+    public Object visit(ErrorStmt node) {
+        return null;
+    }
+
     /**
      * Visit a block statement node
      *
@@ -0,0 +1,307 @@
+/*
+ * File: AnalysisSession.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.proj12;
+
+import proj12ZhangZhao.bantam.ast.ASTNode;
+import proj12ZhangZhao.bantam.ast.Class_;
+import proj12ZhangZhao.bantam.ast.Field;
+import proj12ZhangZhao.bantam.ast.FlatAst;
+import proj12ZhangZhao.bantam.ast.Formal;
+import proj12ZhangZhao.bantam.ast.Method;
+import proj12ZhangZhao.bantam.ast.Program;
+import proj12ZhangZhao.bantam.semant.DependencyVisitor;
+import proj12ZhangZhao.bantam.util.ClassTreeNode;
+import proj12ZhangZhao.bantam.util.DependencyGraph;
+import proj12ZhangZhao.bantam.util.Error;
+import proj12ZhangZhao.bantam.util.ErrorHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Semantic analysis of successive versions of a program, such as the file
+ * being edited in the IDE, that checks again only the classes that changed and
+ * the classes that depend on them.
+ *
+ * For each class the session keeps a hash of its contents, a hash of its
+ * signature (its name, parent, fields, methods and formal parameters), the
+ * classes it depends on, its type errors, and a FlatAst of it holding the
+ * types the type checker found.  The content hash leaves out the line the class starts
+ * on, so a class that only moved because lines were added or removed above it
+ * counts as unchanged, and its errors move by the same number of lines.
+ *
+ * A class is type checked again if its contents changed, or if it depends,
+ * directly or through other classes, on a class whose signature changed or
+ * that was added or removed (see DependencyGraph).  The other classes get the types and errors
+ * of the last analysis.  If every class has the same signature as before, in
+ * the same order, and no errors were found building the class tree and symbol
+ * tables the last time, the tree and tables are kept too; otherwise they are
+ * built again.
+ */
+public class AnalysisSession
+{
+    /**
+     * What the session knows about one class
+     */
+    private static class ClassState
+    {
+        private final Class_ classNode;
+        private final int lineNum;
+        private final long contentHash;
+        private final long signatureHash;
+        private Map<String, Integer> dependencies;  // null until needed
+        private FlatAst ast;             // null until the class is checked or reused
+        private List<Error> typeErrors;  // null until the class is checked or reused
+
+        private ClassState(Class_ classNode) {
+            this.classNode = classNode;
+            this.lineNum = classNode.getLineNum();
+            this.contentHash = classNode.getSourceHash() != 0
+                    ? classNode.getSourceHash() : hashNodes(FlatAst.of(classNode), lineNum);
+
+            // the name, parent and filename, then each member's kind, name and type
+            long hash = classNode.getName().hashCode();
+            hash = 31 * hash + Objects.hashCode(classNode.getParent());
+            hash = 31 * hash + Objects.hashCode(classNode.getFilename());
+            for (ASTNode node : classNode.getMemberList()) {
+                hash = 31 * hash + node.getClass().getName().hashCode();
+                if (node instanceof Field) {
+                    Field field = (Field) node;
+                    hash = 31 * hash + field.getName().hashCode();
+                    hash = 31 * hash + field.getType().hashCode();
+                }
+                else if (node instanceof Method) {
+                    Method method = (Method) node;
+                    hash = 31 * hash + method.getName().hashCode();
+                    hash = 31 * hash + method.getReturnType().hashCode();
+                    for (ASTNode formalNode : method.getFormalList()) {
+                        Formal formal = (Formal) formalNode;
+                        hash = 31 * hash + formal.getName().hashCode();
+                        hash = 31 * hash + formal.getType().hashCode();
+                    }
+                }
+            }
+            this.signatureHash = hash;
+        }
+
+        private String getName() {
+            return classNode.getName();
+        }
+
+        /**
+         * @return the kinds of dependency on each class this class depends on, by name
+         */
+        private Map<String, Integer> getDependencies() {
+            if (dependencies == null) {
+                dependencies = new DependencyVisitor().getDependencies(classNode);
+            }
+            return dependencies;
+        }
+
+        /**
+         * @return a hash of the nodes of a class that was not made by the parser
+         */
+        private static long hashNodes(FlatAst ast, int lineNum) {
+            long hash = 1;
+            for (int node = 0; node < ast.getNumNodes(); node++) {
+                hash = 31 * hash + ast.getKind(node).ordinal();
+                hash = 31 * hash + ast.getLineNum(node) - lineNum;
+                hash = 31 * hash + symbolKey(ast, ast.getNameId(node));
+                hash = 31 * hash + symbolKey(ast, ast.getTypeId(node));
+                hash = 31 * hash + symbolKey(ast, ast.getExprTypeId(node));
+                for (int i = 0; i < ast.getNumChildren(node); i++) {
+                    hash = 31 * hash + (ast.getChild(node, i) == FlatAst.NONE ? 0 : 1);
+                }
+            }
+            return hash;
+        }
+
+        private static long symbolKey(FlatAst ast, int id) {
+            return id == FlatAst.NONE ? -1 : ast.getSymbol(id).getId();
+        }
+    }
+
+    private Map<String, ClassState> states = new HashMap<>();
+    private SemanticAnalyzer analyzer;  // null until the first analysis, or after one failed
+    private long skeletonHash;          // the signatures of all the classes, in order
+    private int parallelism = 1;
+    private int numChecked;
+    private boolean treeKept;
+
+    /**
+     * Sets how many threads type check the classes
+     *
+     * @param parallelism the number of threads, 1 (the default) to check on the calling thread
+     * @see SemanticAnalyzer#setParallelism(int)
+     */
+    public synchronized void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Analyze a new version of the program, checking for semantic errors and
+     * annotating the tree as SemanticAnalyzer.analyze does, but only type
+     * checking the classes that changed since the last analysis and the classes
+     * that depend on them
+     *
+     * @param program      root of the AST to be checked
+     * @param errorHandler the ErrorHandler the errors are registered with
+     * @return root of the class hierarchy tree
+     */
+    public synchronized ClassTreeNode analyze(Program program, ErrorHandler errorHandler) {
+        Map<String, ClassState> newStates = new HashMap<>();
+        long skeleton = 1;
+        boolean duplicates = false;
+        for (ASTNode node : program.getClassList()) {
+            ClassState state = new ClassState((Class_) node);
+            ClassState old = states.get(state.getName());
+            if (old != null && old.contentHash == state.contentHash) {
+                state.dependencies = old.dependencies;
+            }
+            skeleton = 31 * skeleton + state.signatureHash;
+            duplicates |= newStates.put(state.getName(), state) != null;
+        }
+        if (duplicates) {
+            // classes can't be told apart by name, so nothing is kept
+            states.clear();
+            analyzer = null;
+        }
+
+        Set<String> stale = findDependents(changedSignatures(newStates), newStates);
+        Map<String, List<Error>> typeErrors = new HashMap<>();
+        for (ClassState state : newStates.values()) {
+            ClassState old = states.get(state.getName());
+            if (old != null && old.contentHash == state.contentHash
+                    && !stale.contains(state.getName())) {
+                old.ast.annotate(0, state.classNode);
+                state.ast = old.ast;
+                state.typeErrors = moveErrors(old.typeErrors, state.lineNum - old.lineNum);
+                typeErrors.put(state.getName(), state.typeErrors);
+            }
+        }
+
+        ErrorHandler analysisErrors = new ErrorHandler();
+        analysisErrors.setMaxErrors(Integer.MAX_VALUE);  // the cap is applied by errorHandler
+        ClassTreeNode root;
+        try {
+            treeKept = analyzer != null && skeleton == skeletonHash && !analyzer.treeErrorsFound();
+            if (treeKept) {
+                analyzer.setErrorHandler(analysisErrors);
+                analyzer.setTypeErrorCache(typeErrors);
+                root = analyzer.reanalyze(program);
+            }
+            else {
+                analyzer = new SemanticAnalyzer(analysisErrors);
+                analyzer.setParallelism(parallelism);
+                analyzer.setTypeErrorCache(typeErrors);
+                root = analyzer.analyze(program);
+            }
+        }
+        catch (RuntimeException | java.lang.Error e) {
+            // the tree may be half updated, so start over next time
+            states.clear();
+            analyzer = null;
+            throw e;
+        }
+
+        numChecked = 0;
+        for (ClassState state : newStates.values()) {
+            if (state.typeErrors == null) {
+                state.typeErrors = typeErrors.get(state.getName());
+                state.ast = FlatAst.of(state.classNode);
+                state.dependencies = null;  // calls now have their targets
+                numChecked++;
+            }
+        }
+        states = duplicates ? new HashMap<>() : newStates;
+        skeletonHash = skeleton;
+        errorHandler.registerAll(analysisErrors.getErrorList());
+        return root;
+    }
+
+    /**
+     * @return the number of classes type checked by the last analysis
+     */
+    public synchronized int getNumChecked() {
+        return numChecked;
+    }
+
+    /**
+     * @return true if the last analysis kept the class tree and symbol tables
+     * built by the one before
+     */
+    public synchronized boolean treeKept() {
+        return treeKept;
+    }
+
+    /**
+     * @return the map of class names to ClassTreeNodes of the last analysis
+     */
+    public synchronized Hashtable<String, ClassTreeNode> getClassMap() {
+        return analyzer != null ? analyzer.getClassMap() : new Hashtable<>();
+    }
+
+    /**
+     * @return the names of the classes whose signature changed, that were added or that were removed
+     */
+    private Set<String> changedSignatures(Map<String, ClassState> newStates) {
+        Set<String> changed = new HashSet<>();
+        for (ClassState state : newStates.values()) {
+            ClassState old = states.get(state.getName());
+            if (old == null || old.signatureHash != state.signatureHash) {
+                changed.add(state.getName());
+            }
+        }
+        for (String name : states.keySet()) {
+            if (!newStates.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the names of the given classes and of the classes that depend on
+     * them, directly or through other classes
+     */
+    private static Set<String> findDependents(Set<String> names, Map<String, ClassState> states) {
+        if (names.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Map<String, Map<String, Integer>> dependencies = new HashMap<>();
+        for (ClassState state : states.values()) {
+            dependencies.put(state.getName(), state.getDependencies());
+        }
+        return new HashSet<>(new DependencyGraph(dependencies).getTransitiveDependents(names));
+    }
+
+    /**
+     * @return the errors moved down by a number of lines
+     */
+    private static List<Error> moveErrors(List<Error> errors, int lines) {
+        if (lines == 0) {
+            return errors;
+        }
+        List<Error> moved = new ArrayList<>(errors.size());
+        for (Error error : errors) {
+            moved.add(new Error(error.getKind(), error.getFilename(), error.getLineNum() + lines,
+                    error.getMessage()));
+        }
+        return moved;
+    }
+}
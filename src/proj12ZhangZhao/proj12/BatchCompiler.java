@@ -0,0 +1,241 @@
+/*
+ * File: BatchCompiler.java
+ * Authors: Tia Zhang and Danqing Zhao
+ * Class: CS461
+ * Date: March 2019
+ */
+
+package proj12ZhangZhao.proj12;
+
+import proj12ZhangZhao.bantam.ast.ClassList;
+import proj12ZhangZhao.bantam.ast.Program;
+import proj12ZhangZhao.bantam.lexer.Scanner;
+import proj12ZhangZhao.bantam.lexer.TokenBuffer;
+import proj12ZhangZhao.bantam.parser.Parser;
+import proj12ZhangZhao.bantam.util.CompilationException;
+import proj12ZhangZhao.bantam.util.Error;
+import proj12ZhangZhao.bantam.util.ErrorHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Scans and parses many Bantam Java files at once and merges their classes
+ * into one Program for semantic analysis.  Each file is scanned and parsed
+ * on its own task in a ForkJoinPool, by its own Scanner and Parser reporting
+ * to its own ErrorHandler.  The errors of the files are then registered in
+ * the order the files were given, so the error list does not depend on the
+ * number of threads.  Only the files that scanned and parsed without errors
+ * are merged into the Program.
+ * Usage: BatchCompiler [-threads n] file.btm ...
+ */
+public class BatchCompiler
+{
+    /**
+     * What happened to one file
+     */
+    public static class FileResult
+    {
+        private final String filename;
+        private final Program program;  // null if the file could not be read
+        private final List<Error> errors;
+        private final long scanNanos;
+        private final long parseNanos;
+
+        private FileResult(String filename, Program program, List<Error> errors,
+                           long scanNanos, long parseNanos) {
+            this.filename = filename;
+            this.program = program;
+            this.errors = errors;
+            this.scanNanos = scanNanos;
+            this.parseNanos = parseNanos;
+        }
+
+        public String getFilename() { return filename; }
+
+        /**
+         * @return the AST of the file, or null if it could not be read
+         */
+        public Program getProgram() { return program; }
+
+        /**
+         * @return the lexical and syntax errors of the file
+         */
+        public List<Error> getErrors() { return errors; }
+
+        /**
+         * @return true if the file was read and has no lexical or syntax errors
+         */
+        public boolean succeeded() { return program != null && errors.isEmpty(); }
+
+        public long getScanNanos() { return scanNanos; }
+
+        public long getParseNanos() { return parseNanos; }
+    }
+
+    private ErrorHandler errorHandler;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private List<FileResult> fileResults = Collections.emptyList();
+
+    /**
+     * BatchCompiler constructor
+     *
+     * @param errorHandler the ErrorHandler the errors of all the files are registered with
+     */
+    public BatchCompiler(ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Sets how many files are scanned and parsed at once
+     *
+     * @param parallelism the number of threads, by default the number of processors
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Scans and parses the files and merges the classes of the ones without
+     * errors into one Program
+     *
+     * @param filenames the files to compile
+     * @return a Program with the classes of all the files that parsed, in the order of the files
+     */
+    public Program parse(List<String> filenames) {
+        List<Callable<FileResult>> tasks = new ArrayList<>();
+        for (String filename : filenames) {
+            tasks.add(() -> parseFile(filename));
+        }
+
+        fileResults = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<FileResult> result : pool.invokeAll(tasks)) {
+                fileResults.add(result.get());
+            }
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof java.lang.Error) {
+                throw (java.lang.Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompilationException("Interrupted while parsing");
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        ClassList classes = new ClassList(0);
+        for (FileResult result : fileResults) {
+            errorHandler.registerAll(result.getErrors());
+            if (result.succeeded()) {
+                ClassList fileClasses = result.getProgram().getClassList();
+                for (int i = 0; i < fileClasses.getSize(); i++) {
+                    classes.addElement(fileClasses.get(i));
+                }
+            }
+        }
+        classes.trimToSize();
+        return new Program(0, classes);
+    }
+
+    /**
+     * @return what happened to each file in the last parse, in the order of the files
+     */
+    public List<FileResult> getFileResults() {
+        return Collections.unmodifiableList(fileResults);
+    }
+
+    /**
+     * Scans and parses one file with its own Scanner, Parser and ErrorHandler
+     */
+    private static FileResult parseFile(String filename) {
+        ErrorHandler fileErrors = new ErrorHandler();
+        fileErrors.setMaxErrors(Integer.MAX_VALUE);  // the cap is applied when they are merged
+        long start = System.nanoTime();
+        TokenBuffer tokens;
+        try {
+            tokens = new Scanner(filename, fileErrors).tokenizeAll();
+        }
+        catch (CompilationException e) {
+            fileErrors.register(Error.Kind.LEX_ERROR, filename, 0, e.getMessage());
+            return new FileResult(filename, null, fileErrors.getErrorList(), 0, 0);
+        }
+        long scanned = System.nanoTime();
+
+        Parser parser = new Parser(fileErrors);
+        parser.setErrorRecovery(true);
+        Program program = parser.parse(tokens, filename);
+        long parsed = System.nanoTime();
+        return new FileResult(filename, program, fileErrors.getErrorList(),
+                scanned - start, parsed - scanned);
+    }
+
+    /*
+     * Main method that takes in filenames from the command line, parses them all at once,
+     * prints how long each one took, and then runs semantic analysis on the classes of
+     * the files that parsed
+     */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> filenames = new ArrayList<>(Arrays.asList(args));
+        if (filenames.size() >= 2 && filenames.get(0).equals("-threads")) {
+            threads = Integer.parseInt(filenames.get(1));
+            filenames = filenames.subList(2, filenames.size());
+        }
+        if (filenames.isEmpty()) {
+            System.out.println("Please Provide Test Files");
+            return;
+        }
+
+        ErrorHandler errorHandler = new ErrorHandler();
+        BatchCompiler compiler = new BatchCompiler(errorHandler);
+        compiler.setParallelism(threads);
+        long start = System.nanoTime();
+        Program program = compiler.parse(filenames);
+        long parsed = System.nanoTime();
+
+        int failed = 0;
+        for (FileResult result : compiler.getFileResults()) {
+            System.out.printf("%-50s scan %8.2f ms  parse %8.2f ms  %s%n", result.getFilename(),
+                    result.getScanNanos() / 1e6, result.getParseNanos() / 1e6,
+                    result.succeeded() ? "ok" : result.getErrors().size() + " errors");
+            if (!result.succeeded()) {
+                failed++;
+            }
+        }
+        System.out.printf("Parsed %d files (%d failed) in %.2f ms on %d threads%n",
+                filenames.size(), failed, (parsed - start) / 1e6, threads);
+
+        if (program.getClassList().getSize() > 0) {
+            SemanticAnalyzer semAnalyzer = new SemanticAnalyzer(errorHandler);
+            semAnalyzer.setParallelism(threads);
+            semAnalyzer.analyze(program);
+            System.out.printf("Semantic analysis took %.2f ms%n", (System.nanoTime() - parsed) / 1e6);
+        }
+
+        for (Error error : errorHandler.getErrorList()) {
+            System.out.println(error.toString() + "\n");
+        }
+        if (errorHandler.getNumSuppressed() > 0) {
+            System.out.println(errorHandler.getNumSuppressed() + " more errors were not shown\n");
+        }
+        System.out.println(errorHandler.errorsFound() ? "Compilation Failed" : "Compilation Successful");
+    }
+}
@@ -38,6 +38,10 @@ import proj12ZhangZhao.bantam.util.*;
 import proj12ZhangZhao.bantam.util.Error;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * The <tt>SemanticAnalyzer</tt> class performs semantic analysis.
@@ -87,6 +91,21 @@ public class SemanticAnalyzer
      */
     private final int MAX_NUM_FIELDS = 1500;
 
+    /**
+     * Number of threads that type check classes; 1 checks them one at a time
+     */
+    private int parallelism = 1;
+
+    /**
+     * Type errors of each class already checked, by class name (null to check every class)
+     */
+    private Map<String, List<Error>> typeErrorCache;
+
+    /**
+     * Whether errors were found while building the class tree and symbol tables
+     */
+    private boolean treeErrorsFound;
+
     /**
      * SemanticAnalyzer constructor
      *
@@ -113,27 +132,230 @@ public class SemanticAnalyzer
      * See the lab manual for more details on each of these steps.
      */
     public ClassTreeNode analyze(Program program) {
+        buildTree(program);
+
+        checkTypes();
+
+        // uncomment the following statement
+        return root;
+
+    }
+
+    /**
+     * Steps 1 to 4 of analyze: builds the class tree and the symbol tables
+     *
+     * @param program root of the AST, of which only the declarations of the members are used
+     */
+    private void buildTree(Program program) {
         this.program = program;
         this.classMap.clear();
 
         // step 1:  add built-in classes to classMap
         addBuiltins();
 
+        int numErrors = errorHandler.getNumErrors() + errorHandler.getNumSuppressed();
         ClassVisitor classVisitor = new ClassVisitor(classMap, errorHandler);
         classVisitor.makeTree(program);
         SymbolTableBuildingVisitor symTabVisitor = new SymbolTableBuildingVisitor(classMap, errorHandler);
         symTabVisitor.makeTables();
+        treeErrorsFound = errorHandler.getNumErrors() + errorHandler.getNumSuppressed() > numErrors;
+    }
 
-        classMap.forEach( (className, classNode) -> {
-            TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(errorHandler);
-            typeCheckerVisitor.checkTypes(classNode);
-            //System.out.println("Done with " + className);
+    /**
+     * Analyze a new version of the last program analyzed, keeping the class tree
+     * and symbol tables built for it.  The new program must have the same classes
+     * in the same order, with the same parents and the same fields, methods and
+     * formal parameters, and no errors may have been found building the tree and
+     * tables the last time; only the bodies of the members may have changed.
+     *
+     * @param program root of the AST to be checked
+     * @return root of the class hierarchy tree
+     */
+    public ClassTreeNode reanalyze(Program program) {
+        this.program = program;
+        for (ASTNode node : program.getClassList()) {
+            Class_ classNode = (Class_) node;
+            ClassTreeNode treeNode = classMap.get(classNode.getName());
+            treeNode.setASTNode(classNode);
+            SymbolTable methodTable = treeNode.getMethodSymbolTable();
+            for (ASTNode member : classNode.getMemberList()) {
+                if (member instanceof Method) {
+                    methodTable.set(((Method) member).getNameSymbol(), member);
+                }
             }
-        );
+        }
 
-        // uncomment the following statement
+        checkTypes();
         return root;
+    }
+
+    /**
+     * @return true if errors were found building the class tree and symbol tables
+     * in the last analyze
+     */
+    public boolean treeErrorsFound() {
+        return treeErrorsFound;
+    }
+
+    /**
+     * Type check the classes once the class tree and symbol tables are built
+     */
+    private void checkTypes() {
+        if (parallelism > 1 || typeErrorCache != null) {
+            checkTypesSeparately();
+        }
+        else {
+            classMap.forEach( (className, classNode) -> {
+                TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(errorHandler);
+                typeCheckerVisitor.checkTypes(classNode);
+                //System.out.println("Done with " + className);
+                }
+            );
+        }
+    }
+
+    /**
+     * Sets how many threads type check the classes.  With more than one, each
+     * class is checked on a ForkJoinPool by its own TypeCheckerVisitor, which
+     * enters scopes in a private copy of the class's symbol table and reports
+     * to its own ErrorHandler.  The errors are then registered in the same
+     * order as when the classes are checked one at a time, so the error list
+     * does not depend on the number of threads.
+     *
+     * @param parallelism the number of threads, 1 (the default) to check on the calling thread
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
 
+    /**
+     * Sets where the type errors of each class are kept between analyses.
+     * Classes with an entry in the cache are not type checked again; their
+     * cached errors are registered instead.  Each class that is checked gets an
+     * entry with its errors.  It is up to the caller to remove the entries of
+     * classes that must be checked again.
+     *
+     * @param typeErrorCache the type errors of each class by class name, or null
+     *                       (the default) to check every class
+     */
+    public void setTypeErrorCache(Map<String, List<Error>> typeErrorCache) {
+        this.typeErrorCache = typeErrorCache;
+    }
+
+    /**
+     * Type checks each class not in the type error cache with its own
+     * TypeCheckerVisitor and ErrorHandler, on a ForkJoinPool if there is more
+     * than one thread, and then registers the errors of all the classes in the
+     * order of the class map
+     */
+    private void checkTypesSeparately() {
+        Map<String, List<Error>> cache = typeErrorCache != null ? typeErrorCache : new HashMap<>();
+        List<ClassTreeNode> classNodes = new ArrayList<>();
+        classMap.forEach( (className, classNode) -> {
+            if (!cache.containsKey(className)) {
+                classNodes.add(classNode);
+            }
+        });
+
+        if (parallelism == 1) {
+            for (ClassTreeNode classNode : classNodes) {
+                cache.put(classNode.getName(), checkClass(classNode, false));
+            }
+        }
+        else {
+            checkInParallel(classNodes, cache);
+        }
+        classMap.forEach( (className, classNode) -> errorHandler.registerAll(cache.get(className)));
+    }
+
+    /**
+     * Type checks one class
+     *
+     * @param classNode  the class to check
+     * @param copyScopes whether to enter scopes in a private copy of the class's symbol table
+     * @return the errors found in the class
+     */
+    private List<Error> checkClass(ClassTreeNode classNode, boolean copyScopes) {
+        ErrorHandler classErrors = new ErrorHandler();
+        classErrors.setMaxErrors(Integer.MAX_VALUE);  // the cap is applied when they are registered
+        new TypeCheckerVisitor(classErrors, copyScopes).checkTypes(classNode);
+        return classErrors.getErrorList();
+    }
+
+    /**
+     * Type checks classes on a ForkJoinPool, each on its own task
+     *
+     * @param classNodes the classes to check
+     * @param cache      where the errors found in each class are put, by class name
+     */
+    private void checkInParallel(List<ClassTreeNode> classNodes, Map<String, List<Error>> cache) {
+        List<Callable<List<Error>>> tasks = new ArrayList<>();
+        for (ClassTreeNode classNode : classNodes) {
+            tasks.add(() -> checkClass(classNode, true));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Future<List<Error>>> results = pool.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                cache.put(classNodes.get(i).getName(), results.get(i).get());
+            }
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof java.lang.Error) {
+                throw (java.lang.Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompilationException("Interrupted while type checking");
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Analyze a flat AST without building ordinary nodes for the whole program.
+     * The class tree and symbol tables are built from nodes for the declarations
+     * of the members only.  Then each class in turn is built as ordinary nodes,
+     * type checked, its expression types and other annotations copied back into
+     * the flat AST, and dropped, so only one class is held as ordinary nodes at a
+     * time.  The classes are checked one at a time whatever the parallelism.
+     *
+     * @param ast the flat AST, whose root is a Program
+     * @return root of the class hierarchy tree
+     * @see #analyze(Program)
+     */
+    public ClassTreeNode analyze(FlatAst ast) {
+        int classList = ast.getChild(0, 0);
+        ClassList classes = new ClassList(ast.getLineNum(classList));
+        // the flat node of each class, by the declarations node built for it
+        Map<Class_, Integer> flatNodes = new IdentityHashMap<>();
+        for (int i = 0; i < ast.getNumChildren(classList); i++) {
+            int classNode = ast.getChild(classList, i);
+            Class_ declarations = ast.toDeclarations(classNode);
+            classes.addElement(declarations);
+            flatNodes.put(declarations, classNode);
+        }
+        buildTree(new Program(ast.getLineNum(0), classes));
+
+        classMap.forEach( (className, treeNode) -> {
+            Integer flatNode = flatNodes.get(treeNode.getASTNode());
+            if (flatNode != null) {
+                Class_ astNode = (Class_) ast.toNode(flatNode);
+                new TypeCheckerVisitor(errorHandler).checkTypes(treeNode, astNode);
+                ast.update(flatNode, astNode);
+            }
+        });
+        return root;
     }
 
     //TEMPORARY TESTING CODE
@@ -147,6 +369,11 @@ public class SemanticAnalyzer
      */
     public ErrorHandler getErrorHandler() { return errorHandler; }
 
+    /**
+     * @param errorHandler the ErrorHandler to report the errors of the next analysis to
+     */
+    public void setErrorHandler(ErrorHandler errorHandler) { this.errorHandler = errorHandler; }
+
     /**
      * Add built-in classes to the classMap.
      * These are the classes Object, String, Sys, and TextIO